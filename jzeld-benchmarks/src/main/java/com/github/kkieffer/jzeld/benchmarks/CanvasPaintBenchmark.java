@@ -0,0 +1,71 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.ZCanvas;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Headless paint of a synthetic canvas into a window sized image, as the canvas would paint a scrolled view.
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CanvasPaintBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int elements;
+
+    @Param({"full", "visible"})
+    public String view;  //paint the whole canvas, or a 1400x800 window of it
+
+    private ZCanvas canvas;
+    private BufferedImage image;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        canvas = SyntheticCanvas.create(SyntheticCanvas.DEFAULT_SEED, elements);
+        int side = (int)Math.ceil(SyntheticCanvas.getSide(elements) * 72);
+        canvas.setSize(side, side);
+
+        if (view.equals("full"))
+            image = new BufferedImage(Math.min(side, 4096), Math.min(side, 4096), BufferedImage.TYPE_INT_ARGB_PRE);
+        else
+            image = new BufferedImage(1400, 800, BufferedImage.TYPE_INT_ARGB_PRE);
+        g = image.createGraphics();
+        g.setClip(0, 0, image.getWidth(), image.getHeight());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+        canvas.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        canvas.paintComponent(g);
+        return image;
+    }
+
+}
@@ -0,0 +1,72 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.ZCanvas;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading a canvas with JAXB
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CanvasStoreBenchmark {
+
+    @Param({"1000", "10000"})
+    public int elements;
+
+    private ZCanvas canvas;
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+    private byte[] saved;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        canvas = SyntheticCanvas.create(SyntheticCanvas.DEFAULT_SEED, elements);
+        JAXBContext context = JAXBContext.newInstance(canvas.getContextClasses().getClasses());
+        marshaller = context.createMarshaller();
+        unmarshaller = context.createUnmarshaller();
+        saved = save().toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        canvas.dispose();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream save() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(saved == null ? 1 << 20 : saved.length);
+        marshaller.marshal(canvas.getCanvasStore(), out);
+        return out;
+    }
+
+    @Benchmark
+    public Object load() throws Exception {
+        return unmarshaller.unmarshal(new ByteArrayInputStream(saved));
+    }
+
+}
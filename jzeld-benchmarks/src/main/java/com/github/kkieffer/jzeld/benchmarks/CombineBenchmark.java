@@ -0,0 +1,67 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZElement;
+import com.github.kkieffer.jzeld.geometry.AreaEngine;
+import com.github.kkieffer.jzeld.geometry.GeometryEngine;
+import com.github.kkieffer.jzeld.geometry.PolygonClipEngine;
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Combining overlapping shapes with ZAbstractShape.combineWith(), using each geometry engine
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CombineBenchmark {
+
+    @Param({"Join", "Subtract"})
+    public CombineOperation operation;
+
+    @Param({"10", "100", "1000"})
+    public int shapes;
+
+    @Param({"area", "clip"})
+    public String engine;
+
+    private ZAbstractShape reference;
+    private ArrayList<ZAbstractShape> others;
+    private GeometryEngine geometryEngine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ArrayList<ZElement> elements = SyntheticCanvas.createElements(SyntheticCanvas.DEFAULT_SEED, shapes);
+        reference = (ZAbstractShape)elements.get(0);
+        others = new ArrayList<>();
+        for (int i = 1; i < elements.size(); i++)
+            others.add((ZAbstractShape)elements.get(i));
+        geometryEngine = engine.equals("clip") ? new PolygonClipEngine() : AreaEngine.getShared();
+    }
+
+    @Benchmark
+    public Shape combineWith() {
+        return reference.combineWith(operation, others, geometryEngine, null);
+    }
+
+}
@@ -0,0 +1,61 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.attributes.ConicalGradientPaint;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Raster fill with the conical gradient paint
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ConicalGradientBenchmark {
+
+    @Param({"128", "512"})
+    public int size;
+
+    private BufferedImage image;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        g = image.createGraphics();
+        g.setPaint(new ConicalGradientPaint(new Point2D.Double(size/2.0, size/2.0), new float[]{0.0f, 0.25f, 0.5f, 1.0f},
+                                            new Color[]{Color.BLUE, Color.WHITE, Color.BLACK, Color.GREEN}));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage fill() {
+        g.fillRect(0, 0, size, size);
+        return image;
+    }
+
+}
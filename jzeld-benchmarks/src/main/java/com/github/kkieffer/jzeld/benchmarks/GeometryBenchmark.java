@@ -0,0 +1,74 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZBlockArrow;
+import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
+import com.github.kkieffer.jzeld.element.ZEquilateralPolygon;
+import com.github.kkieffer.jzeld.element.ZOval;
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Area and perimeter computation of single shapes
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class GeometryBenchmark {
+
+    @Param({"oval", "polygon", "arrow"})
+    public String shape;
+
+    @Param({"0.01"})
+    public double resolution;
+
+    private ZAbstractShape element;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (shape) {
+            case "oval":
+                element = new ZOval(0, 0, 2.0, 1.0, 0, true, true, true, 1, Color.BLACK, null, Color.RED, StrokeStyle.SQUARE);
+                break;
+            case "polygon":
+                element = new ZEquilateralPolygon(0, 0, 2.0, 2.0, 0, true, true, true, 1, Color.BLACK, null, Color.RED, StrokeStyle.SQUARE, 7);
+                break;
+            default:
+                element = new ZBlockArrow(0, 0, 2.0, 1.0, 0, true, true, true, 1, Color.BLACK, null, Color.RED, StrokeStyle.SQUARE);
+                break;
+        }
+    }
+
+    @Benchmark
+    public double computeArea() {
+        return element.computeArea();
+    }
+
+    @Benchmark
+    public double computeAreaSliced() {
+        return element.computeArea(resolution);
+    }
+
+    @Benchmark
+    public double computePerimeter() {
+        return element.computePerimeter(resolution);
+    }
+
+}
@@ -0,0 +1,75 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.ZCanvas;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hit testing of mouse presses at random points.  The canvas selectElement() is called directly rather than through
+ * mousePressed(), which also saves the undo context and would dominate the time.
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class HitTestBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int elements;
+
+    private ZCanvas canvas;
+    private Method selectElement;
+    private MouseEvent[] presses;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        canvas = SyntheticCanvas.create(SyntheticCanvas.DEFAULT_SEED, elements);
+
+        selectElement = ZCanvas.class.getDeclaredMethod("selectElement", MouseEvent.class);
+        selectElement.setAccessible(true);
+
+        int side = (int)(SyntheticCanvas.getSide(elements) * 72);
+        Random r = new Random(SyntheticCanvas.DEFAULT_SEED);
+        presses = new MouseEvent[POINTS];
+        for (int i = 0; i < POINTS; i++)
+            presses[i] = new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK, r.nextInt(side), r.nextInt(side), 1, false, MouseEvent.BUTTON1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        canvas.dispose();
+    }
+
+    @Benchmark
+    public ZCanvas select() throws Exception {
+        MouseEvent e = presses[next++ & (POINTS - 1)];
+        canvas.mouseMoved(e);  //the mouse position used for the shape test, as the mouse always moves before a press
+        selectElement.invoke(canvas, e);
+        return canvas;
+    }
+
+}
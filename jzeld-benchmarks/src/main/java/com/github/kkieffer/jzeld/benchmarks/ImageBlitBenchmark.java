@@ -0,0 +1,95 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
+import com.github.kkieffer.jzeld.element.ZImage;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing a large ZImage at full and reduced size, from source images in different formats.  Reduced sizes draw from
+ * the mipmap cache.
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ImageBlitBenchmark {
+
+    private static final int IMAGE_SIZE = 2048;
+    private static final double UNIT = 72.0;
+
+    @Param({"3BYTE_BGR", "INT_ARGB", "INT_ARGB_PRE"})
+    public String format;
+
+    @Param({"1.0", "0.25"})
+    public double scale;  //drawn size relative to the image size
+
+    private ZImage element;
+    private BufferedImage target;
+    private Graphics2D g;
+    private double drawSize;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int type;
+        switch (format) {
+            case "3BYTE_BGR":
+                type = BufferedImage.TYPE_3BYTE_BGR;
+                break;
+            case "INT_ARGB":
+                type = BufferedImage.TYPE_INT_ARGB;
+                break;
+            default:
+                type = BufferedImage.TYPE_INT_ARGB_PRE;
+                break;
+        }
+
+        BufferedImage src = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, type);
+        Random r = new Random(42);
+        for (int y = 0; y < IMAGE_SIZE; y += 16) {
+            for (int x = 0; x < IMAGE_SIZE; x += 16) {
+                int rgb = 0xFF000000 | r.nextInt(0x1000000);
+                for (int i = 0; i < 16; i++)
+                    for (int j = 0; j < 16; j++)
+                        src.setRGB(x + j, y + i, rgb);
+            }
+        }
+
+        drawSize = IMAGE_SIZE * scale;
+        element = new ZImage(0, 0, drawSize / UNIT, drawSize / UNIT, 0, true, true, true, 0, Color.BLACK, null, null, StrokeStyle.SQUARE, src);
+        target = new BufferedImage((int)drawSize, (int)drawSize, BufferedImage.TYPE_INT_ARGB_PRE);
+        g = target.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        element.paint(g, UNIT, drawSize, drawSize);
+        return target;
+    }
+
+}
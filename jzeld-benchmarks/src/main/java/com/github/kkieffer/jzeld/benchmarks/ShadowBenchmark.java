@@ -0,0 +1,76 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.attributes.ShadowAttributes;
+import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
+import com.github.kkieffer.jzeld.element.ZEquilateralPolygon;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Painting a shape with a shadow.  The shadow image is rebuilt on every paint (as after any change to the shape) or reused.
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ShadowBenchmark {
+
+    private static final double UNIT = 72.0;
+
+    @Param({"2", "8"})
+    public int radius;
+
+    @Param({"1", "3"})
+    public double extent;  //shape size, in units
+
+    private ZEquilateralPolygon shape;
+    private BufferedImage image;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        shape = new ZEquilateralPolygon(0, 0, extent, extent, 0, true, true, true, 2, Color.BLACK, null, Color.RED, StrokeStyle.SQUARE, 6);
+        shape.setShadowAttributes(new ShadowAttributes(0.5f, Color.BLACK, radius, 0.1, 0.1));
+        int pixels = (int)Math.ceil((extent + 1) * UNIT);
+        image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB_PRE);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage createShadow() {
+        shape.changed();  //discard the shadow image
+        shape.paint(g, UNIT, extent * UNIT, extent * UNIT);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage cachedShadow() {
+        shape.paint(g, UNIT, extent * UNIT, extent * UNIT);
+        return image;
+    }
+
+}
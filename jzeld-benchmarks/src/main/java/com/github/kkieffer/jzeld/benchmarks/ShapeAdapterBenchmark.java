@@ -0,0 +1,64 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.adapters.ShapeAdapter;
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZElement;
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converting shapes to and from their saved string form
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ShapeAdapterBenchmark {
+
+    @Param({"10", "100"})
+    public int pieces;  //shapes appended into the one marshalled
+
+    private final ShapeAdapter adapter = new ShapeAdapter();
+    private Shape shape;
+    private String marshalled;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ArrayList<ZElement> elements = SyntheticCanvas.createElements(SyntheticCanvas.DEFAULT_SEED, pieces);
+        ArrayList<ZAbstractShape> others = new ArrayList<>();
+        for (int i = 1; i < elements.size(); i++)
+            others.add((ZAbstractShape)elements.get(i));
+        shape = ((ZAbstractShape)elements.get(0)).combineWith(CombineOperation.Append, others);
+        marshalled = adapter.marshal(shape);
+    }
+
+    @Benchmark
+    public String marshal() throws Exception {
+        return adapter.marshal(shape);
+    }
+
+    @Benchmark
+    public Shape unmarshal() throws Exception {
+        return adapter.unmarshal(marshalled);
+    }
+
+}
@@ -0,0 +1,52 @@
+
+package com.github.kkieffer.jzeld.benchmarks;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.UndoStack;
+import com.github.kkieffer.jzeld.element.ZElement;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pushing a copy of the element list onto the undo stack
+ * @author kkieffer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class UndoSnapshotBenchmark {
+
+    @Param({"1000", "10000"})
+    public int elements;
+
+    private LinkedList<ZElement> context;
+    private UndoStack stack;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new LinkedList<>(SyntheticCanvas.createElements(SyntheticCanvas.DEFAULT_SEED, elements));
+        stack = new UndoStack(10);
+    }
+
+    @Benchmark
+    public UndoStack saveContext() {
+        stack.saveContext(context);
+        return stack;
+    }
+
+}
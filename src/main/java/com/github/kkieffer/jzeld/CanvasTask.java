@@ -0,0 +1,340 @@
+
+package com.github.kkieffer.jzeld;
+
+import com.github.kkieffer.jzeld.element.ZAbstractShape.ComputeProgress;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+
+/**
+ * A long running canvas operation that computes on a background thread, reports its progress, can be cancelled, and delivers its
+ * result on the event dispatch thread.  The work is split in two: compute() runs on the executor and must not touch the canvas,
+ * so anything it needs is copied when the task is created (on the event dispatch thread); finish() then runs on the event dispatch
+ * thread to apply the result, for example adding elements to the canvas.  The future completes on the event dispatch thread after
+ * finish(), so stages added to it before completion run there too.
+ * <p>
+ * Cancellation is cooperative. The task is a ComputeProgress, so it can be passed to the geometry engines and other computations
+ * that poll isCancelled(), and compute() should call checkCancelled() between steps of its own.  Cancelling the future cancels the task.
+ * A cancelled or failed task calls failed() on the event dispatch thread, to restore anything changed when the task was created.
+ * <p>
+ * Progress is coalesced and delivered to ProgressListeners on the event dispatch thread.
+ *
+ * @param <T> the type of result
+ * @author kkieffer
+ */
+public abstract class CanvasTask<T> implements ComputeProgress {
+
+    /**
+     * Receives task progress, on the event dispatch thread
+     */
+    public interface ProgressListener {
+        /**
+         * Called when the task progress changes
+         * @param task the task
+         * @param percent the percent complete, 0 to 100
+         */
+        public void progressChanged(CanvasTask<?> task, float percent);
+    }
+
+    private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "CanvasTask-" + count.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);  //stay behind the event dispatch thread
+            return t;
+        }
+    });
+
+    private final String name;
+    private final CompletableFuture<T> future = new CompletableFuture<T>() {
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            CanvasTask.this.cancelled = true;
+            return super.cancel(mayInterruptIfRunning);
+        }
+    };
+    private final CopyOnWriteArrayList<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean progressPosted = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean cancelled;
+    private volatile float percent;
+
+    /**
+     * Create a task, which does nothing until started
+     * @param name a name for the task, for display
+     */
+    protected CanvasTask(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Do the work, on the executor thread.  Don't access the canvas or its elements here.
+     * @return the computed result, passed to finish()
+     * @throws Exception if the computation fails, completing the future exceptionally
+     */
+    protected abstract T compute() throws Exception;
+
+    /**
+     * Apply the computed result, on the event dispatch thread. Not called if the task was cancelled. The default returns the result.
+     * @param result the result of compute()
+     * @return the result to complete the future with
+     * @throws Exception if the result can't be applied, completing the future exceptionally
+     */
+    protected T finish(T result) throws Exception {
+        return result;
+    }
+
+    /**
+     * Called on the event dispatch thread when the task is cancelled or fails, to undo any changes made when it was created.  The
+     * default does nothing.
+     * @param t the CancellationException, or the failure
+     */
+    protected void failed(Throwable t) {
+    }
+
+    /**
+     * Start the task on the default executor, a shared pool of daemon threads
+     * @return this task
+     */
+    public final CanvasTask<T> start() {
+        return start(defaultExecutor);
+    }
+
+    /**
+     * Start the task on the provided executor
+     * @param executor the executor to compute with
+     * @return this task
+     * @throws IllegalStateException if the task was already started
+     */
+    public final CanvasTask<T> start(Executor executor) {
+        if (!started.compareAndSet(false, true))
+            throw new IllegalStateException("Task " + name + " already started");
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                T result = null;
+                Throwable failure = null;
+                try {
+                    checkCancelled();
+                    result = compute();
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                complete(result, failure);
+            }
+        });
+        return this;
+    }
+
+    //Finish and complete the future on the event dispatch thread
+    private void complete(final T result, final Throwable failure) {
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                Throwable t = failure;
+                if (cancelled)  //whatever happened, a cancelled computation is cancelled
+                    t = new CancellationException("Task " + name + " cancelled");
+
+                if (t == null) {
+                    try {
+                        T r = finish(result);
+                        progress(100.0f);
+                        future.complete(r);
+                        return;
+                    } catch (Throwable e) {
+                        t = e;
+                    }
+                }
+
+                try {
+                    failed(t);
+                } finally {
+                    if (t instanceof CancellationException)
+                        future.cancel(false);
+                    else
+                        future.completeExceptionally(t);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the future, completed on the event dispatch thread with the result
+     * @return the future
+     */
+    public final CompletableFuture<T> getFuture() {
+        return future;
+    }
+
+    /**
+     * Wait for the task to complete. Don't call from the event dispatch thread, which completes the task.
+     * @return the result
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if the task failed
+     * @throws CancellationException if the task was cancelled
+     */
+    public final T get() throws InterruptedException, ExecutionException {
+        if (SwingUtilities.isEventDispatchThread())
+            throw new IllegalStateException("Can't wait for a task on the event dispatch thread");
+        return future.get();
+    }
+
+    /**
+     * Request cancellation.  The computation stops the next time it polls for cancellation, and the future completes cancelled.
+     */
+    public final void cancel() {
+        future.cancel(false);
+    }
+
+    @Override
+    public final boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throw if cancellation was requested, call between steps of compute()
+     * @throws CancellationException if cancelled
+     */
+    protected final void checkCancelled() {
+        if (cancelled)
+            throw new CancellationException("Task " + name + " cancelled");
+    }
+
+    /**
+     * Report progress, from any thread
+     * @param percent the percent complete, 0 to 100
+     */
+    @Override
+    public final void progress(float percent) {
+        this.percent = percent;
+
+        if (listeners.isEmpty() || !progressPosted.compareAndSet(false, true))
+            return;  //no one listening, or an update is already on its way
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                progressPosted.set(false);
+                float p = CanvasTask.this.percent;
+                for (ProgressListener l : listeners)
+                    l.progressChanged(CanvasTask.this, p);
+            }
+        });
+    }
+
+    /**
+     * Get the last reported progress
+     * @return the percent complete, 0 to 100
+     */
+    public final float getProgress() {
+        return percent;
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    public final void addProgressListener(ProgressListener l) {
+        listeners.add(l);
+    }
+
+    public final void removeProgressListener(ProgressListener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Get a task that is already complete, for operations that have nothing to do
+     * @param <T> the type of result
+     * @param name the task name
+     * @param result the result
+     * @return the completed task
+     */
+    public static <T> CanvasTask<T> completed(String name, final T result) {
+        CanvasTask<T> task = new CanvasTask<T>(name) {
+            @Override
+            protected T compute() {
+                return result;
+            }
+        };
+        task.started.set(true);
+        task.percent = 100.0f;
+        task.future.complete(result);
+        return task;
+    }
+
+
+    /**
+     * An input stream that reports the fraction of a known length read as progress, and stops reading when the task is cancelled
+     */
+    public static class ProgressInputStream extends FilterInputStream {
+
+        private final ComputeProgress progress;
+        private final long length;
+        private final float from, to;
+        private long count;
+
+        /**
+         * Wrap an input stream
+         * @param in the stream to read
+         * @param length the expected number of bytes
+         * @param progress receives progress and is polled for cancellation
+         * @param from the percent reported at the start of the stream
+         * @param to the percent reported at the end of the stream
+         */
+        public ProgressInputStream(InputStream in, long length, ComputeProgress progress, float from, float to) {
+            super(in);
+            this.length = Math.max(length, 1);
+            this.progress = progress;
+            this.from = from;
+            this.to = to;
+        }
+
+        private void advance(long n) throws IOException {
+            if (progress.isCancelled())
+                throw new CancellationException("Read cancelled");
+            if (n > 0) {
+                count += n;
+                progress.progress(from + (to - from) * Math.min(count, length) / length);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            advance(b >= 0 ? 1 : 0);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            advance(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            advance(skipped);
+            return skipped;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+
+package com.github.kkieffer.jzeld;
+
+import com.github.kkieffer.jzeld.element.ZElement;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A level of detail policy determines what the ZCanvas paints in place of an element that is too small on screen to be worth
+ * painting in full (see ZCanvas.setLODThreshold()).  Policies are set per element class with ZCanvas.setLODPolicy().
+ *
+ * @author kkieffer
+ */
+public interface LODPolicy {
+
+    /**
+     * Paint a cheap stand-in for the element
+     * @param g the graphics to paint on, transformed so that 0,0 is the top left corner of the element
+     * @param e the element
+     * @param unitSize the size of a unit, in graphics coordinates
+     * @param width the width of the element, in graphics coordinates
+     * @param height the height of the element, in graphics coordinates
+     */
+    public void paintProxy(Graphics2D g, ZElement e, double unitSize, double width, double height);
+
+
+    /**
+     * Paints nothing, small elements disappear
+     */
+    public static final LODPolicy NOTHING = new LODPolicy() {
+        @Override
+        public void paintProxy(Graphics2D g, ZElement e, double unitSize, double width, double height) {}
+    };
+
+    /**
+     * Fills the element bounds with its fill color, or its outline color if it has no fill.  Paints nothing if the element has neither.
+     */
+    public static final LODPolicy BOUNDS = new LODPolicy() {
+        @Override
+        public void paintProxy(Graphics2D g, ZElement e, double unitSize, double width, double height) {
+
+            Color c = e.getFillColor();
+            if (c == null || c.getAlpha() == 0)
+                c = e.getOutlineColor();
+            if (c == null || c.getAlpha() == 0)
+                return;
+
+            int alpha = Math.round(c.getAlpha() * e.getOpacity());
+            g.setColor(new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha));
+            g.fill(new Rectangle2D.Double(0, 0, width, height));
+        }
+    };
+
+
+    /**
+     * Paints a thumbnail image of the element, which is rendered once and kept until the element changes or is drawn at a much
+     * different size.  Thumbnails are sized in powers of two, up to the provided maximum.
+     */
+    public static final class Thumbnail implements LODPolicy {
+
+        private static final class Entry {
+            private final BufferedImage image;
+            private final double width;
+            private final double height;
+            private final int changeCount;
+            private final int size;
+
+            private Entry(BufferedImage image, double width, double height, int changeCount, int size) {
+                this.image = image;
+                this.size = size;
+                this.width = width;
+                this.height = height;
+                this.changeCount = changeCount;
+            }
+        }
+
+        private final int maxSize;
+        private final Map<ZElement, Entry> thumbnails = new WeakHashMap<>();
+
+        /**
+         * Create a thumbnail policy
+         * @param maxSize the largest thumbnail size, in pixels. Should be at least the LOD threshold
+         */
+        public Thumbnail(int maxSize) {
+            if (maxSize < 1)
+                throw new IllegalArgumentException("Thumbnail size must be at least 1");
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void paintProxy(Graphics2D g, ZElement e, double unitSize, double width, double height) {
+
+            AffineTransform t = g.getTransform();
+            double pixels = Math.max(width * Math.hypot(t.getScaleX(), t.getShearY()), height * Math.hypot(t.getShearX(), t.getScaleY()));
+
+            int size = 1;  //round up to a power of two, so small changes in zoom reuse the same thumbnail
+            while (size < pixels && size < maxSize)
+                size *= 2;
+
+            Entry entry = thumbnails.get(e);
+            if (entry == null || entry.width != width || entry.height != height || entry.changeCount != e.getChangeCount() ||
+                    entry.size != size) {
+
+                double scale = size / Math.max(width, height);
+                BufferedImage img = new BufferedImage(Math.max(1, (int)Math.ceil(width * scale)), Math.max(1, (int)Math.ceil(height * scale)), BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D ig = img.createGraphics();
+                ig.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                ig.scale(scale, scale);
+                e.paint(ig, unitSize, width, height);
+                ig.dispose();
+
+                entry = new Entry(img, width, height, e.getChangeCount(), size);
+                thumbnails.put(e, entry);
+            }
+
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(entry.image, AffineTransform.getScaleInstance(width / entry.image.getWidth(), height / entry.image.getHeight()), null);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+
+package com.github.kkieffer.jzeld;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import javax.swing.Timer;
+
+/**
+ * A single shared timer for animations and other periodic work on the event dispatch thread.  Rather than each canvas and element
+ * running its own Swing Timer, consumers register with the scheduler only while they have something to animate (a selection present,
+ * text being edited) and unregister when idle.  One timer runs at the shortest registered period, and each consumer is called at
+ * its own period.  When nothing is registered, the timer is stopped.
+ * <p>
+ * All methods must be called from the event dispatch thread.
+ *
+ * @author kkieffer
+ */
+public final class TickScheduler {
+
+    /**
+     * Receives ticks from the scheduler, on the event dispatch thread.
+     */
+    public interface TickListener {
+        /**
+         * Called every period while registered
+         * @param now the current System.nanoTime()
+         * @return true to keep receiving ticks, false to unregister
+         */
+        public boolean tick(long now);
+    }
+
+    private static final class Entry {
+        private final TickListener listener;
+        private long periodNanos;
+        private long nextDue;
+
+        private Entry(TickListener l) {
+            listener = l;
+        }
+    }
+
+    private static final TickScheduler shared = new TickScheduler();
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private final Timer timer;
+
+    private TickScheduler() {
+        timer = new Timer(0, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                fire();
+            }
+        });
+    }
+
+    /**
+     * Get the scheduler shared by all canvases and elements
+     * @return the shared scheduler
+     */
+    public static TickScheduler getShared() {
+        return shared;
+    }
+
+    /**
+     * Register to receive ticks.  If the listener is already registered, its period is changed.
+     * @param l the listener
+     * @param periodMillis the period between ticks, in milliseconds
+     */
+    public void register(TickListener l, int periodMillis) {
+        if (periodMillis <= 0)
+            throw new IllegalArgumentException("Tick period must be positive");
+
+        Entry e = find(l);
+        if (e == null) {
+            e = new Entry(l);
+            entries.add(e);
+        }
+        e.periodNanos = periodMillis * 1000000L;
+        e.nextDue = System.nanoTime() + e.periodNanos;
+        reschedule();
+    }
+
+    /**
+     * Stop receiving ticks. Does nothing if the listener isn't registered.
+     * @param l the listener
+     */
+    public void unregister(TickListener l) {
+        Entry e = find(l);
+        if (e != null) {
+            entries.remove(e);
+            reschedule();
+        }
+    }
+
+    /**
+     * Check if the listener is receiving ticks
+     * @param l the listener
+     * @return true if registered
+     */
+    public boolean isRegistered(TickListener l) {
+        return find(l) != null;
+    }
+
+    private Entry find(TickListener l) {
+        for (Entry e : entries) {
+            if (e.listener == l)
+                return e;
+        }
+        return null;
+    }
+
+    //Run the timer at the shortest period, or stop it when nothing is registered
+    private void reschedule() {
+
+        if (entries.isEmpty()) {
+            timer.stop();
+            return;
+        }
+
+        long minPeriod = Long.MAX_VALUE;
+        for (Entry e : entries)
+            minPeriod = Math.min(minPeriod, e.periodNanos);
+
+        int delay = (int)(minPeriod / 1000000L);
+        if (timer.getDelay() != delay) {
+            timer.setDelay(delay);
+            timer.setInitialDelay(delay);
+            if (timer.isRunning())
+                timer.restart();
+        }
+        if (!timer.isRunning())
+            timer.start();
+    }
+
+    private void fire() {
+
+        long now = System.nanoTime();
+        long tolerance = timer.getDelay() * 500000L;  //half the timer period, so a consumer due just after this tick doesn't wait a whole extra one
+
+        boolean removed = false;
+        Entry[] current = entries.toArray(new Entry[entries.size()]);  //listeners may register or unregister while ticking
+        for (Entry e : current) {
+            if (now < e.nextDue - tolerance || !entries.contains(e))
+                continue;
+
+            e.nextDue = now + e.periodNanos;
+            if (!e.listener.tick(now)) {
+                entries.remove(e);
+                removed = true;
+            }
+        }
+
+        if (removed)
+            reschedule();
+    }
+
+}
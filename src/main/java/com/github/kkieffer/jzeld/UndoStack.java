@@ -2,6 +2,7 @@
 package com.github.kkieffer.jzeld;
 
 import com.github.kkieffer.jzeld.element.ZElement;
+import com.github.kkieffer.jzeld.jfr.UndoSnapshotEvent;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
@@ -62,7 +63,13 @@ public class UndoStack {
         if (undoHistory.size() == stackDepth)  //remove oldest, if reached capacity limit
             undoHistory.removeLast();
                 
+        UndoSnapshotEvent event = new UndoSnapshotEvent();
+        event.begin();
+        long start = System.nanoTime();
         undoHistory.addFirst(copyOf(ctx));  //push a copy to the stack
+        ZCanvasMetrics.getShared().recordUndoSnapshot(ctx.size(), System.nanoTime() - start);
+        event.elementCount = ctx.size();
+        event.commit();
         
         if (clearRedo)
             redoHistory.clear(); //clear all redo because this is a new context
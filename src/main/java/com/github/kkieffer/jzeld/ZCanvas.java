@@ -9,14 +9,28 @@ import com.github.kkieffer.jzeld.adapters.JAXBAdapter.Point2DAdapter;
 import com.github.kkieffer.jzeld.adapters.JAXBAdapter.PointAdapter;
 import com.github.kkieffer.jzeld.adapters.JAXBAdapter.Rectangle2DAdapter;
 import com.github.kkieffer.jzeld.attributes.CustomStroke;
+import com.github.kkieffer.jzeld.attributes.ShadowAttributes;
 import com.github.kkieffer.jzeld.draw.DrawClient;
 import com.github.kkieffer.jzeld.element.ZElement;
 import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZAbstractShape.ComputeProgress;
 import com.github.kkieffer.jzeld.element.ZCanvasRuler;
 import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
 import com.github.kkieffer.jzeld.element.ZGrid;
 import com.github.kkieffer.jzeld.element.ZGroupedElement;
 import com.github.kkieffer.jzeld.element.ZShape;
+import com.github.kkieffer.jzeld.element.ZSymbol;
+import com.github.kkieffer.jzeld.element.ZSymbolInstance;
+import com.github.kkieffer.jzeld.geometry.AreaEngine;
+import com.github.kkieffer.jzeld.geometry.GeometryEngine;
+import com.github.kkieffer.jzeld.jfr.CanvasPaintEvent;
+import com.github.kkieffer.jzeld.jfr.CombineEvent;
+import com.github.kkieffer.jzeld.jfr.DuplicateEvent;
+import com.github.kkieffer.jzeld.jfr.GroupEvent;
+import com.github.kkieffer.jzeld.jfr.LoadEvent;
+import com.github.kkieffer.jzeld.jfr.PrintEvent;
+import com.github.kkieffer.jzeld.jfr.SaveEvent;
+import com.github.kkieffer.jzeld.jfr.SelectEvent;
 import java.awt.BasicStroke;
 import static java.awt.BasicStroke.CAP_SQUARE;
 import static java.awt.BasicStroke.JOIN_MITER;
@@ -43,21 +57,35 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.FlatteningPathIterator;
 import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
 import javax.swing.ImageIcon;
@@ -67,7 +95,9 @@ import javax.swing.JPanel;
 import javax.swing.KeyStroke;
 import javax.swing.RepaintManager;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -111,6 +141,41 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         }
     }
     
+    /**
+     * Rendering quality levels used by the adaptive quality controller, from best to fastest.  Each level sets a minimum level of
+     * detail threshold, and whether antialiasing, shadows, and new raster caches are allowed.
+     */
+    public enum RenderQuality {Full(0, true, true, true), Reduced(4, true, false, true), Draft(8, false, false, true), Minimal(16, false, false, false);
+    
+        private final double lodPixels;
+        private final boolean antialias;
+        private final boolean shadows;
+        private final boolean rasterCache;
+        
+        private RenderQuality(double lodPixels, boolean antialias, boolean shadows, boolean rasterCache) {
+            this.lodPixels = lodPixels;
+            this.antialias = antialias;
+            this.shadows = shadows;
+            this.rasterCache = rasterCache;
+        }
+        
+        public double getLODThreshold() {
+            return lodPixels;
+        }
+        
+        public boolean isAntialiased() {
+            return antialias;
+        }
+        
+        public boolean hasShadows() {
+            return shadows;
+        }
+        
+        public boolean hasRasterCache() {
+            return rasterCache;
+        }
+    }
+    
     public enum CombineOperation {Join, Subtract, Intersect, Exclusive_Join, Append;
     
         @Override
@@ -182,6 +247,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     private static final double ROTATION_MULTIPLIER = 1.0;
     private static final double SHEAR_MULTIPLIER = 0.1;
     private static final double SIZE_INCREASE_MULTIPLIER = 0.5;
+    private static final double PATH_FLATNESS = 0.001;  //units, for placing copies along curved paths
     private final static float SCALE = 72.0f;
 
     /* -------- FIELDS BELOW CAN BE SAVED TO FILE USING JAXB ---------------*/
@@ -244,6 +310,9 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         
         @XmlElement(name="ZElement")        
         private LinkedList<ZElement> zElements = new LinkedList<>();  //list of all Z-plane objects, first is top, bottom is last
+        
+        @XmlElement(name="Symbol")
+        private LinkedList<ZSymbol> symbols = new LinkedList<>();  //shared definitions placed by ZSymbolInstances
  
         @XmlElement(name="Zoom")
         private double zoom = 1.0;
@@ -252,8 +321,49 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         @XmlJavaTypeAdapter(Point2DAdapter.class)
         private Point2D zeroOffset = new Point2D.Double(0, 0);   //in units
        
+        private transient long marshalStart;  //when the current save or load started
+        private transient SaveEvent saveEvent;
+        private transient LoadEvent loadEvent;
+        
         static Class<?>[] getContextClasses() {
-            return new Class<?>[] {UnitMeasure.class, Orientation.class, ZCanvasRuler.class, ZGrid.class};
+            return new Class<?>[] {UnitMeasure.class, Orientation.class, ZCanvasRuler.class, ZGrid.class, ZSymbol.class};
+        }
+        
+        //JAXB callbacks, to time saving and loading
+        private void beforeMarshal(Marshaller m) {
+            if (marshalStart != 0)  //the root element callbacks may be called twice
+                return;
+            marshalStart = System.nanoTime();
+            saveEvent = new SaveEvent();
+            saveEvent.begin();
+        }
+        
+        private void afterMarshal(Marshaller m) {
+            if (marshalStart == 0)
+                return;
+            ZCanvasMetrics.getShared().recordSave(System.nanoTime() - marshalStart);
+            marshalStart = 0;
+            
+            saveEvent.elementCount = zElements.size();
+            saveEvent.commit();
+            saveEvent = null;
+        }
+        
+        private void beforeUnmarshal(Unmarshaller u, Object parent) {
+            marshalStart = System.nanoTime();
+            loadEvent = new LoadEvent();
+            loadEvent.begin();
+        }
+        
+        private void afterUnmarshal(Unmarshaller u, Object parent) {
+            if (marshalStart == 0)
+                return;
+            ZCanvasMetrics.getShared().recordLoad(System.nanoTime() - marshalStart);
+            marshalStart = 0;
+            
+            loadEvent.elementCount = zElements.size();
+            loadEvent.commit();
+            loadEvent = null;
         }
         
     }
@@ -286,15 +396,41 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     private double selectedObj_yOffset_toRightCorner;
 
     private Point2D mouseIn;
+    private Rectangle mouseTextArea;  //where the mouse coordinates were last painted, in component coordinates
+    private Point mouseTextAnchor;  //the mouse location they were painted for, in component coordinates
     private boolean selectedElementResizeOn = false;
     private Rectangle2D selectedResizeElementOrigDim;
     private ZElement selectedResizeElement = null;
     private ZElement lastSelectedElement;
     
-    private Timer animationTimer;
+    private TickScheduler.TickListener animationTick;
     private HighlightAnimation animation = HighlightAnimation.Fast;
     
+    private boolean lodEnabled = true;
+    private double lodThreshold = 0;  //in pixels, zero for no level of detail
+    private final HashMap<Class<?>, LODPolicy> lodPolicies = new HashMap<>();  //policies set by class
+    private final HashMap<Class<?>, LODPolicy> lodPolicyLookup = new HashMap<>();  //resolved policy for each element class painted
+    
+    private boolean interactiveQualityEnabled = true;
+    private int interactiveRepaintDelay = 250;  //ms after the last input before repainting at full quality
+    private boolean interacting = false;  //input is streaming, paint in draft quality
+    private long lastInteraction = -1;
+    private TickScheduler.TickListener interactionTick;
+    
+    private static final double FRAME_TIME_WEIGHT = 0.2;  //weight of the newest paint in the frame time average
+    private static final int DEGRADE_FRAMES = 4;  //paints at a quality before it may be lowered
+    private static final long MIN_RASTER_BUDGET = 4000000;  //nanoseconds of a fast paint that may render raster caches
+    private static final int IMPROVE_FRAMES = 30;  //paints at a quality before it may be raised
+    private long adaptiveTargetNanos = 0;  //target paint time, zero when adaptive quality is off
+    private double frameTimeAverage = -1;  //moving average of the paint time, in nanoseconds, or -1 if no paints measured at this quality
+    private int framesAtQuality = 0;
+    private RenderQuality quality = RenderQuality.Full;
+    
+    private int framePainted;  //elements painted in the current paint
+    private int frameCulled;  //elements skipped in the current paint, because they are outside the clip
+    
     private double scrollWheelMultiplier = 1.0;
+    private GeometryEngine geometryEngine = AreaEngine.getShared();
     private boolean selectedAlternateBorder;
     private Method lastMethod = null;
     private String lastMethodName = null;
@@ -303,6 +439,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     
     private boolean canvasModified;  //tracks any changes to the Z-plane order of the elements
     private boolean printOn = false;  //if printing is turned on (hides some pieces during paint)
+    private ComputeProgress printProgress = null;  //when printing in the background, receives progress as elements are painted
     
     private boolean wheelOn = true;  //true if the mouse wheel is enabled
     private long mouseWheelLastMoved = -1;
@@ -371,24 +508,28 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         addMouseWheelListener(this);
        
 
-        animationTimer = new Timer(animation.delaySpeed(), new ActionListener() {  //timer to animate the selected dashed line border, draw coordinates
+        animationTick = new TickScheduler.TickListener() {  //animate the selected dashed line border, draw coordinates
             @Override
-            public void actionPerformed(ActionEvent e) {
+            public boolean tick(long now) {
+                boolean animateSelected = hasSelectedElements() && animation != HighlightAnimation.None;
+                if (!animateSelected && selectedMousePress == null)
+                    return false;  //nothing to animate, stop ticking until the next paint with a selection
+                
                 boolean repaint = false;
-                if (hasSelectedElements() && animation != HighlightAnimation.None) {
+                if (animateSelected) {
                     selectedAlternateBorder = !selectedAlternateBorder;
                     repaint = true;
                 }
-                if (selectedMousePress != null && System.nanoTime() - mouseFirstPressed > 500000000) {
+                if (selectedMousePress != null && now - mouseFirstPressed > 500000000) {
                     selectedMouseDrag = selectedMousePress;
                     repaint = true;
                 }
                     
                 if (repaint)
                     repaint();
+                return true;
             }
-        });
-        animationTimer.start();
+        };
         
         
         //Set up the standard hotkeys for the canvas, more can be added by custom implementations
@@ -629,6 +770,17 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         
              
         updatePreferredSize();
+        interactionTick = new TickScheduler.TickListener() {  //after input stops, repaint at full quality
+            @Override
+            public boolean tick(long now) {
+                if (now - lastInteraction < interactiveRepaintDelay * 1000000L)
+                    return true;  //more input arrived since registering
+                interacting = false;
+                repaint();
+                return false;
+            }
+        };
+        
         repaint();
 
     }
@@ -642,8 +794,10 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         removeAll();  //remove all subcomponents and listeners
         undoStack.clear();  
         clipboard.clear();
-        contextMenu.dispose();   //clear context menu and listeners
-        animationTimer.stop();
+        if (contextMenu != null)
+            contextMenu.dispose();   //clear context menu and listeners
+        TickScheduler.getShared().unregister(animationTick);
+        TickScheduler.getShared().unregister(interactionTick);
         canvasEventListeners.clear();
         removeMouseListener(this);	
         removeMouseMotionListener(this);    
@@ -719,11 +873,171 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         return selected;
     }
     
+    /**
+     * Sets the size below which elements are painted with their level of detail policy rather than in full. The size is the larger
+     * of the element's width and height, in screen pixels.  Level of detail is never used when printing or exporting to images.
+     * @param pixels the threshold size, 0 paints all elements in full
+     */
+    public void setLODThreshold(double pixels) {
+        lodThreshold = pixels;
+        repaint();
+    }
+    
+    public double getLODThreshold() {
+        return lodThreshold;
+    }
+    
+    /**
+     * Turns level of detail painting on or off, without changing the threshold
+     * @param enabled true to enable
+     */
+    public void setLODEnabled(boolean enabled) {
+        lodEnabled = enabled;
+        repaint();
+    }
+    
+    public boolean isLODEnabled() {
+        return lodEnabled;
+    }
+    
+    /**
+     * Sets the level of detail policy for an element class, and its subclasses unless they have their own policy. Elements
+     * that have no policy for their class or any superclass use LODPolicy.BOUNDS.
+     * @param c the element class
+     * @param policy the policy, or null to remove the policy for the class
+     */
+    public void setLODPolicy(Class<? extends ZElement> c, LODPolicy policy) {
+        if (policy == null)
+            lodPolicies.remove(c);
+        else
+            lodPolicies.put(c, policy);
+        lodPolicyLookup.clear();
+        repaint();
+    }
+    
+    private LODPolicy getLODPolicy(Class<?> c) {
+        LODPolicy p = lodPolicyLookup.get(c);
+        if (p == null) {
+            for (Class<?> k = c; k != null && p == null; k = k.getSuperclass())  //find the policy for the nearest class
+                p = lodPolicies.get(k);
+            if (p == null)
+                p = LODPolicy.BOUNDS;
+            lodPolicyLookup.put(c, p);
+        }
+        return p;
+    }
+    
+    /**
+     * Turns interactive quality on or off.  When on, the canvas paints in draft quality (no antialiasing, nearest neighbor images,
+     * no shadows) while elements are dragged, resized with the wheel, or the canvas zoomed, and repaints at full quality once the input
+     * has stopped for the repaint delay.
+     * @param enabled true to enable
+     */
+    public void setInteractiveQuality(boolean enabled) {
+        interactiveQualityEnabled = enabled;
+        if (!enabled && interacting) {
+            interacting = false;
+            TickScheduler.getShared().unregister(interactionTick);
+            repaint();
+        }
+    }
+    
+    public boolean isInteractiveQuality() {
+        return interactiveQualityEnabled;
+    }
+    
+    /**
+     * Sets the delay after the last input before the canvas repaints at full quality
+     * @param millis the delay, in milliseconds
+     */
+    public void setInteractiveRepaintDelay(int millis) {
+        if (millis <= 0)
+            throw new IllegalArgumentException("Repaint delay must be positive");
+        interactiveRepaintDelay = millis;
+    }
+    
+    public int getInteractiveRepaintDelay() {
+        return interactiveRepaintDelay;
+    }
+    
+    /**
+     * Called on each streaming input event (drag, wheel, zoom).  Paints switch to draft quality, and a full quality repaint is
+     * scheduled for the repaint delay after the last event.
+     */
+    private void interactionOccurred() {
+        if (!interactiveQualityEnabled)
+            return;
+        interacting = true;
+        lastInteraction = System.nanoTime();
+        TickScheduler.getShared().register(interactionTick, interactiveRepaintDelay);  //re-registering pushes the tick back
+    }
+    
+    /**
+     * Turns on the adaptive quality controller, which measures each paint of the canvas and lowers the rendering quality when 
+     * paints take longer than the target, raising it again when they are well under. Listeners are notified through 
+     * canvasQualityChanged() when the quality changes.
+     * @param targetMillis the target paint time in milliseconds (16 for 60 frames per second), zero to turn off and paint at full quality
+     */
+    public void setAdaptiveQuality(double targetMillis) {
+        if (targetMillis < 0)
+            throw new IllegalArgumentException("Target paint time cannot be negative");
+        adaptiveTargetNanos = (long)(targetMillis * 1000000);
+        frameTimeAverage = -1;
+        framesAtQuality = 0;
+        setRenderQuality(RenderQuality.Full);
+    }
+    
+    /**
+     * Gets the target paint time of the adaptive quality controller
+     * @return the target paint time in milliseconds, zero if off
+     */
+    public double getAdaptiveQuality() {
+        return adaptiveTargetNanos / 1000000.0;
+    }
+    
+    public RenderQuality getRenderQuality() {
+        return quality;
+    }
+    
+    /**
+     * The moving average of recent paint times, measured while adaptive quality is on
+     * @return the average paint time in milliseconds, or zero if none measured
+     */
+    public double getAverageFrameTime() {
+        return frameTimeAverage < 0 ? 0 : frameTimeAverage / 1000000.0;
+    }
+    
+    private void setRenderQuality(RenderQuality q) {
+        if (q == quality)
+            return;
+        quality = q;
+        frameTimeAverage = -1;  //the old measurements were for a different quality
+        framesAtQuality = 0;
+        repaint();
+        for (ZCanvasEventListener l : canvasEventListeners)
+            l.canvasQualityChanged(q);
+    }
+    
+    /**
+     * Add the paint time to the average, and change the quality if the average is over the target, or well under it.  The
+     * thresholds and the frame counts provide hysteresis so the quality doesn't flip back and forth.
+     */
+    private void frameTimeMeasured(long nanos) {
+        
+        frameTimeAverage = frameTimeAverage < 0 ? nanos : frameTimeAverage + FRAME_TIME_WEIGHT * (nanos - frameTimeAverage);
+        framesAtQuality++;
+        
+        RenderQuality[] levels = RenderQuality.values();
+        if (frameTimeAverage > adaptiveTargetNanos * 1.25 && framesAtQuality >= DEGRADE_FRAMES && quality.ordinal() < levels.length - 1)
+            setRenderQuality(levels[quality.ordinal() + 1]);
+        else if (frameTimeAverage < adaptiveTargetNanos * 0.5 && framesAtQuality >= IMPROVE_FRAMES && quality.ordinal() > 0)
+            setRenderQuality(levels[quality.ordinal() - 1]);
+    }
+    
     public void setHighlightAnimation(HighlightAnimation a) {
         animation = a;
         canvasModified = true;
-        animationTimer.setDelay(animation.delaySpeed());
-        animationTimer.start();
+        TickScheduler.getShared().unregister(animationTick);  //restarts at the new period on repaint, if needed
         
         repaint();
     }
@@ -736,6 +1050,18 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         return scrollWheelMultiplier;
     }
     
+    /**
+     * Set the engine used to combine selected elements.  The default is the shared AreaEngine.
+     * @param engine the engine to use, or null for the default
+     */
+    public void setGeometryEngine(GeometryEngine engine) {
+        geometryEngine = engine != null ? engine : AreaEngine.getShared();
+    }
+    
+    public GeometryEngine getGeometryEngine() {
+        return geometryEngine;
+    }
+    
     /**
      * Set the horizontal ruler
      * @param r the ruler to use, or null to remove
@@ -1154,6 +1480,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         
         if (fields.zoom < 8.0) {
             fields.zoom += .25;
+            interactionOccurred();
          
             updatePreferredSize();
             repaint();
@@ -1172,6 +1499,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         
         if (fields.zoom > 0.5) {
             fields.zoom -= .25;
+            interactionOccurred();
         
             updatePreferredSize();
             repaint();
@@ -1585,6 +1913,9 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         if (selectedElements.size() <= 1 || passThruElement != null) 
             return;
 
+        GroupEvent event = new GroupEvent();
+        event.begin();
+        
         undoStack.saveContext(fields.zElements);
 
         undoStack.suspendSave();  //don't push all the remove and add changes to the undo stack
@@ -1600,6 +1931,9 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         elementSelected(group);
         
         undoStack.resumeSave();
+        
+        event.elementCount = selectedElements.size();
+        event.commit();
 
     }
     
@@ -1672,7 +2006,94 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
      * If the combine operation results in a shape with no area, then -1 is returned.
      */
     public int combineSelectedElements(CombineOperation operation) {
+        return combineSelectedElements(operation, null);
+    }
+    
+    /**
+     * Merge the selected elements, as combineSelectedElements(operation), reporting progress. The merged shape is computed before
+     * the canvas is changed, so if the operation is cancelled the canvas is left as it was.
+     * @param operation the operation to apply
+     * @param progress receives the percent complete and is polled for cancellation, can be null
+     * @return the number of shapes combined, as combineSelectedElements(operation)
+     * @throws CancellationException if the progress reports it was cancelled
+     */
+    public int combineSelectedElements(CombineOperation operation, ComputeProgress progress) {
+                
+        ArrayList<ZAbstractShape> combineList = new ArrayList<>();
+        ZAbstractShape ref = getCombineElements(combineList);
+        if (ref == null)  //nothing to merge
+            return 0;
+
+        CombineEvent event = new CombineEvent();
+        event.begin();
+        event.operation = operation.name();
+        
+        Shape mergedShape = ref.combineWith(operation, combineList, geometryEngine, progress);  //combine reference with list of other elements
+        
+        return applyCombine(ref, combineList, mergedShape, event);
+    }
+    
+    /**
+     * Merge the selected elements, as combineSelectedElements(operation), on a background thread.  The shapes are captured when
+     * called, and the merged shape replaces the elements on the event dispatch thread when complete.  If any of the combined elements
+     * is removed or reshaped in the meantime, the task fails with an IllegalStateException and the canvas is left unchanged.
+     * @param operation the operation to apply
+     * @return the started task, which completes with the number of shapes combined, as combineSelectedElements(operation)
+     */
+    public CanvasTask<Integer> combineSelectedElementsAsync(final CombineOperation operation) {
+        
+        final ArrayList<ZAbstractShape> combineList = new ArrayList<>();
+        final ZAbstractShape ref = getCombineElements(combineList);
+        if (ref == null)  //nothing to merge
+            return CanvasTask.completed("Combine", 0);
+        
+        final CombineEvent event = new CombineEvent();
+        event.begin();
+        event.operation = operation.name();
+        
+        //Capture the shapes, and their bounds to detect changes
+        final Shape refShape = ref.getShape();
+        final ArrayList<Shape> others = new ArrayList<>(combineList.size());
+        final ArrayList<Rectangle2D> bounds = new ArrayList<>(combineList.size() + 1);
+        bounds.add(refShape.getBounds2D());
+        for (ZAbstractShape e : combineList) {
+            Shape s = e.getShape();
+            others.add(s);
+            bounds.add(s.getBounds2D());
+        }
+        final GeometryEngine engine = geometryEngine;
+        
+        return new CanvasTask<Integer>("Combine") {
+            
+            private Shape mergedShape;
+            
+            @Override
+            protected Integer compute() {
+                mergedShape = ZAbstractShape.combine(operation, refShape, others, engine, this);
+                return combineList.size() + 1;
+            }
+
+            @Override
+            protected Integer finish(Integer result) {
+                
+                if (uuidMap.get(ref.getUUID()) != ref || !ref.getShape().getBounds2D().equals(bounds.get(0)))
+                    throw new IllegalStateException("Element " + ref.getName() + " changed while combining");
+                for (int i=0; i<combineList.size(); i++) {
+                    ZAbstractShape e = combineList.get(i);
+                    if (uuidMap.get(e.getUUID()) != e || !e.getShape().getBounds2D().equals(bounds.get(i+1)))
+                        throw new IllegalStateException("Element " + e.getName() + " changed while combining");
+                }
                 
+                return applyCombine(ref, combineList, mergedShape, event);
+            }
+            
+        }.start();
+    }
+    
+    //Find the mutable ZAbstractShapes in the selection. Returns the reference, the lowest in the Z stack, and adds the others
+    //to the list.  Returns null if fewer than two were found.
+    private ZAbstractShape getCombineElements(ArrayList<ZAbstractShape> combineList) {
+        
         ArrayList<ZElement> selectedElements = getSelectedElements();
         Iterator<ZElement> it = selectedElements.iterator();
         while (it.hasNext()) {  //remove any unmutable objects
@@ -1681,15 +2102,9 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         }
 
         if (selectedElements.size() <= 1 || passThruElement != null) 
-            return 0;
-
-        undoStack.saveContext(fields.zElements);
-        
-        undoStack.suspendSave();  //don't push all the removal and adding to the undo stack
-
+            return null;
         
         ZAbstractShape ref = null;
-        ArrayList<ZAbstractShape> combineList = new ArrayList<>();
         
         for (int i=selectedElements.size()-1; i>=0; i--) {  //go backward, from the one at the bottom of the Z stack first
             
@@ -1708,17 +2123,31 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
             }
         }
         
-        if (ref == null || combineList.isEmpty())  //nothing to merge
-            return 0;
+        if (ref == null || combineList.isEmpty())
+            return null;
+        
+        return ref;
+    }
+    
+    //Replace the combined elements with the merged shape
+    private int applyCombine(ZAbstractShape ref, ArrayList<ZAbstractShape> combineList, Shape mergedShape, CombineEvent event) {
         
+        event.elementCount = combineList.size() + 1;
+
+        undoStack.saveContext(fields.zElements);
+        
+        undoStack.suspendSave();  //don't push all the removal and adding to the undo stack
+
         //Remove all abstract shapes to be merged from the canvas - except the reference (it will be replaced) 
         for (ZElement e : combineList)
             removeElement(e);
         
-        
-        Shape mergedShape = ref.combineWith(operation, combineList);  //combine reference with list of other elements
-        if (mergedShape == null)  //combine resulted in shape with no area
+        if (mergedShape == null) { //combine resulted in shape with no area
+            undoStack.resumeSave(); 
+            repaint();
+            event.commit();
             return -1;
+        }
            
         
         ZShape shape = ZShape.createFromReference(ref, mergedShape);  //create a ZShape from the reference attributes and the merged shape
@@ -1732,6 +2161,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         undoStack.resumeSave(); 
            
         repaint();
+        event.commit();
         return combineList.size() + 1;
     }
     
@@ -1903,7 +2333,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
      * @return true if added, false if already exists on canvas
      */
     public boolean addElement(ZElement e) {
-        if (fields.zElements.contains(e))
+        if (uuidMap.get(e.getUUID()) == e)  //already on the canvas, the map holds every element so there's no need to search the list
             return false;
         
         undoStack.saveContext(fields.zElements);
@@ -1953,6 +2383,8 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         undoStack.saveContext(fields.zElements);
         
         fields.zElements.set(fields.zElements.indexOf(replace), with);
+        uuidMap.remove(replace.getUUID());
+        uuidMap.put(with.getUUID(), with);
         
         replace.removedFrom(this);
         with.addedTo(this);
@@ -2074,6 +2506,99 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     }
     
     
+    //The symbol library, which is null in stores serialized before there were symbols
+    private LinkedList<ZSymbol> getSymbolList() {
+        if (fields.symbols == null)
+            fields.symbols = new LinkedList<>();
+        return fields.symbols;
+    }
+    
+    /**
+     * Create a symbol from an element and add it to the symbol library.  The element is copied, and isn't changed or removed from the canvas.
+     * @param name a name for the symbol
+     * @param e the element the symbol draws
+     * @return the new symbol, to place with ZSymbolInstances
+     */
+    public ZSymbol defineSymbol(String name, ZElement e) {
+        ZSymbol symbol = new ZSymbol(name, e);
+        addSymbol(symbol);
+        return symbol;
+    }
+    
+    /**
+     * Add a symbol to the symbol library, which is saved with the canvas.  A ZSymbolInstance adds its symbol when it is added to the canvas.
+     * @param symbol the symbol to add
+     * @return true if added, false if the library already has the symbol
+     */
+    public boolean addSymbol(ZSymbol symbol) {
+        if (getSymbol(symbol.getUUID()) != null)
+            return false;
+        
+        getSymbolList().add(symbol);
+        canvasModified = true;
+        return true;
+    }
+    
+    /**
+     * Find a symbol in the symbol library
+     * @param id the UUID of the symbol
+     * @return the symbol, or null if not found
+     */
+    public ZSymbol getSymbol(UUID id) {
+        for (ZSymbol symbol : getSymbolList())
+            if (symbol.getUUID().equals(id))
+                return symbol;
+        return null;
+    }
+    
+    /**
+     * Get the symbols in the symbol library
+     * @return a copy of the list of symbols
+     */
+    public List<ZSymbol> getSymbols() {
+        return new ArrayList<>(getSymbolList());
+    }
+    
+    /**
+     * Replace the definition of a symbol, changing every instance of it.  Symbol changes are not undoable.
+     * @param symbol the symbol to change
+     * @param e the new definition, which is copied
+     */
+    public void redefineSymbol(ZSymbol symbol, ZElement e) {
+        symbol.setDefinition(e);
+        canvasModified = true;
+        repaint();
+    }
+    
+    /**
+     * Remove a symbol from the symbol library
+     * @param symbol the symbol to remove
+     * @return true if removed, false if not in the library
+     * @throws IllegalStateException if the symbol is placed on the canvas
+     */
+    public boolean removeSymbol(ZSymbol symbol) {
+        if (isSymbolPlaced(symbol, fields.zElements))
+            throw new IllegalStateException("Symbol " + symbol.getName() + " has instances on the canvas");
+        
+        if (!getSymbolList().remove(symbol))
+            return false;
+        
+        symbol.discardImages();
+        canvasModified = true;
+        return true;
+    }
+    
+    private static boolean isSymbolPlaced(ZSymbol symbol, Iterable<ZElement> elements) {
+        for (ZElement e : elements) {
+            if (e instanceof ZSymbolInstance && ((ZSymbolInstance)e).getSymbol() == symbol)
+                return true;
+            if (e instanceof ZGroupedElement && isSymbolPlaced(symbol, Arrays.asList(((ZGroupedElement)e).getGroupedElements())))
+                return true;
+        }
+        return false;
+    }
+    
+    
     /**
      * Return all the elements that are instances of the classType.
      * @param classType the classType to match, elements must be equal, subclasses of, or implement the classType. Use ZElement for all types
@@ -2194,6 +2719,253 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         addElement(toPaste);
         elementSelected(toPaste);
     }
+
+    /**
+     * Duplicates the selected elements into a grid, the selection being the top left cell.  Each selected element is copied rows*cols - 1 times,
+     * and all the copies are added in one step, with a single undo, and selected.  Copies share the generated geometry and symbols of their originals,
+     * so a grid of ZSymbolInstances is cheap to create, save, and undo.  Copies that would be off the canvas are not made.
+     * @param rows number of rows, including the row of the selection
+     * @param cols number of columns, including the column of the selection
+     * @param dx the distance between columns, in units
+     * @param dy the distance between rows, in units
+     * @return the copies added, or null if nothing was selected or control is currently with an element
+     */
+    public ZElement[] duplicateSelected(int rows, int cols, double dx, double dy) {
+        return duplicateSelected(rows, cols, dx, dy, false);
+    }
+    
+    /**
+     * Duplicates the selected elements into a grid, the selection being the top left cell.  See duplicateSelected(int, int, double, double).
+     * @param rows number of rows, including the row of the selection
+     * @param cols number of columns, including the column of the selection
+     * @param dx the distance between columns, in units
+     * @param dy the distance between rows, in units
+     * @param instanced true to define a symbol of the selection and place an instance of it in each cell, rather than copying each element
+     * @return the copies added, or null if nothing was selected or control is currently with an element
+     */
+    public ZElement[] duplicateSelected(int rows, int cols, double dx, double dy, boolean instanced) {
+        
+        if (rows < 1 || cols < 1)
+            throw new IllegalArgumentException("Rows and columns must be at least 1");
+        
+        AffineTransform[] placements = new AffineTransform[rows*cols - 1];
+        int i = 0;
+        for (int r=0; r<rows; r++) {
+            for (int c=0; c<cols; c++) {
+                if (r > 0 || c > 0)  //not the selection's cell
+                    placements[i++] = AffineTransform.getTranslateInstance(c*dx, r*dy);
+            }
+        }
+        
+        return duplicateSelected(placements, instanced);
+    }
+    
+    /**
+     * Duplicates the selected elements around a center point.  Each copy is rotated about the center, and turned, by the angle from the previous
+     * copy, starting from the selection.  All the copies are added in one step, with a single undo, and selected.  Copies that would be off the canvas
+     * are not made.
+     * @param copies number of copies of each selected element
+     * @param centerX the x coordinate of the center, in units
+     * @param centerY the y coordinate of the center, in units
+     * @param angle the angle between copies, in degrees clockwise, for instance 360/(copies+1) to fill a circle
+     * @return the copies added, or null if nothing was selected or control is currently with an element
+     */
+    public ZElement[] duplicateSelectedRadial(int copies, double centerX, double centerY, double angle) {
+        return duplicateSelectedRadial(copies, centerX, centerY, angle, false);
+    }
+    
+    /**
+     * Duplicates the selected elements around a center point.  See duplicateSelectedRadial(int, double, double, double).
+     * @param copies number of copies of each selected element
+     * @param centerX the x coordinate of the center, in units
+     * @param centerY the y coordinate of the center, in units
+     * @param angle the angle between copies, in degrees clockwise, for instance 360/(copies+1) to fill a circle
+     * @param instanced true to define a symbol of the selection and place instances of it, rather than copying each element
+     * @return the copies added, or null if nothing was selected or control is currently with an element
+     */
+    public ZElement[] duplicateSelectedRadial(int copies, double centerX, double centerY, double angle, boolean instanced) {
+        
+        if (copies < 0)
+            throw new IllegalArgumentException("Copies cannot be negative");
+        
+        AffineTransform[] placements = new AffineTransform[copies];
+        for (int i=0; i<copies; i++)
+            placements[i] = AffineTransform.getRotateInstance(Math.toRadians(angle * (i+1)), centerX, centerY);
+        
+        return duplicateSelected(placements, instanced);
+    }
+    
+    /**
+     * Duplicates the selected elements along a path.  The copies are centered at points evenly spaced along the path, from its start to its end,
+     * or around it if it ends where it starts.  All the copies are added in one step, with a single undo, and selected.  Copies that would be off
+     * the canvas are not made.
+     * @param path the path, in units
+     * @param copies number of copies of each selected element
+     * @param orient true to turn each copy by the direction of the path at its point, false to keep the selection's rotation
+     * @param instanced true to define a symbol of the selection and place instances of it, rather than copying each element
+     * @return the copies added, or null if nothing was selected or control is currently with an element
+     */
+    public ZElement[] duplicateSelectedAlongPath(Shape path, int copies, boolean orient, boolean instanced) {
+        
+        if (copies < 0)
+            throw new IllegalArgumentException("Copies cannot be negative");
+        
+        Rectangle2D selection = getSelectedBounds();
+        if (selection == null)
+            return null;
+        
+        //Flatten the path into segments, each starting where the previous one ended unless the path moved
+        ArrayList<double[]> segments = new ArrayList<>();
+        double length = 0;
+        double[] c = new double[6];
+        double startX = 0, startY = 0, lastX = 0, lastY = 0;
+        for (PathIterator it = new FlatteningPathIterator(path.getPathIterator(null), PATH_FLATNESS); !it.isDone(); it.next()) {
+            switch (it.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    startX = lastX = c[0];
+                    startY = lastY = c[1];
+                    continue;
+                case PathIterator.SEG_CLOSE:
+                    c[0] = startX;
+                    c[1] = startY;
+                    break;
+            }
+            double d = Point2D.distance(lastX, lastY, c[0], c[1]);
+            if (d > 0) {
+                segments.add(new double[] {lastX, lastY, c[0], c[1], d});
+                length += d;
+            }
+            lastX = c[0];
+            lastY = c[1];
+        }
+        
+        if (segments.isEmpty())
+            return duplicateSelected(new AffineTransform[0], instanced);
+        
+        double[] first = segments.get(0);
+        double[] last = segments.get(segments.size()-1);
+        boolean closed = first[0] == last[2] && first[1] == last[3];
+        double spacing = closed ? length / copies : (copies > 1 ? length / (copies - 1) : 0);
+        
+        AffineTransform[] placements = new AffineTransform[copies];
+        int s = 0;
+        double segmentStart = 0;
+        for (int i=0; i<copies; i++) {
+            double at = Math.min(i * spacing, length);
+            while (s < segments.size() - 1 && segmentStart + segments.get(s)[4] < at)
+                segmentStart += segments.get(s++)[4];
+            
+            double[] seg = segments.get(s);
+            double f = Math.min((at - segmentStart) / seg[4], 1.0);
+            
+            AffineTransform t = AffineTransform.getTranslateInstance(seg[0] + f * (seg[2] - seg[0]), seg[1] + f * (seg[3] - seg[1]));
+            if (orient)
+                t.rotate(Math.atan2(seg[3] - seg[1], seg[2] - seg[0]));
+            t.translate(-selection.getCenterX(), -selection.getCenterY());
+            placements[i] = t;
+        }
+        
+        return duplicateSelected(placements, instanced);
+    }
+    
+    //The bounds of the selected elements, or null if none
+    private Rectangle2D getSelectedBounds() {
+        Rectangle2D bounds = null;
+        for (ZElement e : getSelectedElements()) {
+            if (bounds == null)
+                bounds = e.getBounds2D();
+            else
+                bounds.add(e.getBounds2D());
+        }
+        return bounds;
+    }
+    
+    //Add a copy of the selected elements for each placement, which moves the element's center and turns it by the placement's rotation. If instanced,
+    //a symbol is defined from the selection, and an instance of it is placed instead
+    private ZElement[] duplicateSelected(AffineTransform[] placements, boolean instanced) {
+        
+        ArrayList<ZElement> selectedElements = getSelectedElements();
+        Iterator<ZElement> it = selectedElements.iterator();
+        while (it.hasNext()) {  //remove any unmutable objects, and those that can't be placed
+            ZElement e = it.next();
+            if (!e.isMutable() || !e.isMoveable())
+                it.remove();
+        }
+        
+        if (selectedElements.isEmpty() || passThruElement != null)
+            return null;
+        
+        DuplicateEvent event = new DuplicateEvent();
+        event.begin();
+        
+        undoStack.saveContext(fields.zElements);  //one undo for all the copies, they are added directly rather than each with addElement()
+        
+        //Copy one instance of a symbol of the selection, rather than each element. A lone instance is already light to copy
+        ArrayList<ZElement> sources = selectedElements;
+        if (instanced && !(selectedElements.size() == 1 && selectedElements.get(0) instanceof ZSymbolInstance)) {
+            ArrayList<ZElement> grouped = new ArrayList<>(selectedElements);
+            Collections.reverse(grouped);  //the group draws in list order, bottom first
+            ZGroupedElement group = ZGroupedElement.createGroup(grouped, null, true);
+            Rectangle2D b = group.getBounds2D();
+            if (b.getWidth() > 0 && b.getHeight() > 0) {
+                ZSymbol symbol = defineSymbol(group.getName(), group);
+                sources = new ArrayList<>();
+                sources.add(new ZSymbolInstance(symbol, b.getX(), b.getY(), b.getWidth(), b.getHeight(), 0.0, true, true, true));
+            }
+        }
+        
+        double xLimit = getMaxXPosition();
+        double yLimit = getMaxYPosition();
+        
+        ArrayList<ZElement> copies = new ArrayList<>(placements.length * sources.size());
+        for (AffineTransform t : placements) {
+            
+            double rotation = Math.toDegrees(Math.atan2(t.getShearY(), t.getScaleX()));
+            
+            //Since elements are stored top z plane to bottom, go in reverse so each placement keeps the selection's z order
+            for (int i=sources.size()-1; i>=0; i--) {
+                ZElement e = sources.get(i);
+                Rectangle2D b = e.getBounds2D();
+                Point2D center = new Point2D.Double(b.getCenterX(), b.getCenterY());
+                Point2D placed = t.transform(center, null);
+                double x = placed.getX() - center.getX();
+                double y = placed.getY() - center.getY();
+                
+                if (b.getX() + x > xLimit || b.getMaxX() + x < 0 || b.getY() + y > yLimit || b.getMaxY() + y < 0)  //off the canvas
+                    continue;
+                
+                ZElement copy = e.copyOf(true);
+                copy.move(x, y, xLimit, yLimit);
+                if (rotation != 0)
+                    copy.rotate(rotation);
+                copies.add(copy);
+            }
+        }
+        
+        selectNone();
+        for (ZElement copy : copies) {
+            fields.zElements.addFirst(copy);
+            uuidMap.put(copy.getUUID(), copy);
+            copy.addedTo(this);
+            
+            if (copy.isSelectable()) {
+                copy.select();
+                lastSelectedElement = copy;
+                for (ZCanvasEventListener l : canvasEventListeners)
+                    l.elementSelected(copy);
+            }
+        }
+        
+        lastMethod = null;
+        canvasModified = true;
+        repaint();
+        
+        event.elementCount = selectedElements.size();
+        event.copyCount = copies.size();
+        event.commit();
+        
+        return copies.toArray(new ZElement[copies.size()]);
+    }
     
  
     /**
@@ -2239,6 +3011,70 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
      }
      
     //Paint the element, if the element has no width or height, provide the canvas width and height
+    //Check if the element is small enough on screen to be painted by its level of detail policy
+    private boolean isBelowLODThreshold(Graphics2D g2d, ZElement o, Rectangle2D r) {
+        
+        double threshold = Math.max(lodThreshold, quality.getLODThreshold());
+        if (!lodEnabled || threshold <= 0 || printOn || o == passThruElement || r.getWidth() < 0 || r.getHeight() < 0)
+            return false;
+        
+        AffineTransform t = g2d.getTransform();
+        double pixels = Math.max(r.getWidth() * Math.hypot(t.getScaleX(), t.getShearY()), r.getHeight() * Math.hypot(t.getShearX(), t.getScaleY()));
+        return pixels < threshold;
+    }
+    
+    //Check if nothing the element paints can be within the clip. The graphics is transformed so 0,0 is the element top left corner
+    private boolean isOutsideClip(Graphics2D g2d, ZElement o, Rectangle2D r) {
+        
+        if (printOn || r.getWidth() < 0 || r.getHeight() < 0)
+            return false;
+        
+        double margin = getCullMargin(o);
+        if (margin < 0)
+            return false;
+        
+        return !g2d.hitClip((int)Math.floor(-margin), (int)Math.floor(-margin), (int)Math.ceil(r.getWidth() + 2*margin) + 1, (int)Math.ceil(r.getHeight() + 2*margin) + 1);
+    }
+    
+    //The distance outside its bounds the element may paint, or -1 if unknown (the element has a shadow)
+    private double getCullMargin(ZElement o) {
+        
+        if (o instanceof ShadowAttributes.ShadowInterface) {
+            ShadowAttributes s = ((ShadowAttributes.ShadowInterface)o).getShadowAttributes();
+            if (s != null && s.isEnabled())
+                return -1;
+        }
+        
+        if (o instanceof ZGroupedElement) {
+            double margin = 0;
+            for (ZElement e : ((ZGroupedElement)o).getGroupedElements()) {
+                double m = getCullMargin(e);
+                if (m < 0)
+                    return -1;
+                margin = Math.max(margin, m);
+            }
+            return margin;
+        }
+        
+        Stroke s = o.getStroke(SCALE);
+        if (s instanceof BasicStroke) {  //a mitered corner can reach out to the miter limit times the half width
+            BasicStroke b = (BasicStroke)s;
+            double halfWidth = b.getLineWidth()/2.0;
+            if (b.getLineJoin() == BasicStroke.JOIN_MITER)
+                halfWidth *= Math.max(b.getMiterLimit(), 1.0);
+            return Math.max(halfWidth, getSelectMargin(o)) + 1;
+        }
+        
+        return getSelectMargin(o) + 1;
+    }
+    
+    //Report the progress of a background print, and stop it if cancelled
+    private void reportPrintProgress(int elementsPainted) {
+        if (printProgress.isCancelled())
+            throw new CancellationException("Print cancelled");
+        printProgress.progress(100.0f * elementsPainted / fields.zElements.size());
+    }
+    
     private void paintElement(Graphics2D g2d, ZElement o, boolean highlightSelectedOnly) {
         if (o != null) {
             
@@ -2250,7 +3086,24 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
             g2d.translate(-r.getWidth()/2, -r.getHeight()/2);  //translate so that 0,0 is the top left corner
             
             if (!highlightSelectedOnly) {  //paint the element
-                o.paint(g2d, SCALE, r.getWidth()<0 ? getWidth() : r.getWidth(), r.getHeight()<0 ? getHeight() : r.getHeight());      
+                
+                if (isOutsideClip(g2d, o, r)) {
+                    frameCulled++;
+                    g2d.setTransform(t);
+                    return;
+                }
+                
+                double width = r.getWidth()<0 ? getWidth() : r.getWidth();
+                double height = r.getHeight()<0 ? getHeight() : r.getHeight();
+                
+                long paintStart = System.nanoTime();
+                if (isBelowLODThreshold(g2d, o, r))
+                    getLODPolicy(o.getClass()).paintProxy(g2d, o, SCALE, width, height);
+                else
+                    o.paint(g2d, SCALE, width, height);      
+                
+                ZCanvasMetrics.getShared().recordElementPaint(o.getClass(), System.nanoTime() - paintStart);
+                framePainted++;
             }
                                  
             if (o.isSelected() && highlightSelectedOnly && r.getWidth() > 0 && r.getHeight() > 0) {  //highlight selected element, just outside its boundaries
@@ -2481,9 +3334,28 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     @Override
     public synchronized void paintComponent(Graphics g) {
 
+        CanvasPaintEvent paintEvent = new CanvasPaintEvent();
+        paintEvent.begin();
+        long paintStart = System.nanoTime();
+        framePainted = 0;
+        frameCulled = 0;
         super.paintComponent(g);  
         Graphics2D g2d = (Graphics2D)g;
         
+        //While input is streaming, or the adaptive quality is reduced, elements paint quickly
+        boolean fast = !printOn && (interacting || !quality.isAntialiased());
+        g2d.setRenderingHint(ZRenderingHints.KEY_DRAFT, fast);
+        g2d.setRenderingHint(ZRenderingHints.KEY_SHADOWS, !fast && (printOn || quality.hasShadows()));
+        g2d.setRenderingHint(ZRenderingHints.KEY_RASTER_CACHE, printOn || quality.hasRasterCache());
+        
+        //When painting fast, rasters are rendered only for part of the paint, elements that miss out draw what they have and the canvas
+        //paints again, so a zoom doesn't re-render every raster in one paint, and the Minimal quality still renders them over a few paints
+        ZRenderingHints.RasterBudget rasterBudget = null;
+        if (fast || (!printOn && !quality.hasRasterCache())) {
+            rasterBudget = new ZRenderingHints.RasterBudget(paintStart + Math.max(adaptiveTargetNanos / 4, MIN_RASTER_BUDGET));
+            g2d.setRenderingHint(ZRenderingHints.KEY_RASTER_BUDGET, rasterBudget);
+        }
+        
         DecimalFormat degreeFormat = new DecimalFormat("0.00\u00b0");
           
           
@@ -2520,6 +3392,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         }
         
         ArrayList<ZElement> selectedElements = new ArrayList<>();  //for speed - so we don't need to iterate twice
+        int elementsPainted = 0;
         //Start from the deepest point in the stack, drawing elements up to the top z layer
         Iterator<ZElement> it = fields.zElements.descendingIterator();  
         while (it.hasNext()) {
@@ -2527,6 +3400,9 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
             if (o.isSelected())
                 selectedElements.add(o);
             
+            if (printProgress != null)
+                reportPrintProgress(elementsPainted++);
+            
             if (!printOn || o.isPrintable())
                 paintElement(g2d, o, false); 
         }
@@ -2534,6 +3410,12 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         for (ZElement s : selectedElements)
             paintElement(g2d, s, true); //apply highlights to selected elements
         
+        //Animate only while there is something to animate, otherwise the canvas doesn't tick at all. The same test as the tick's, so it
+        //doesn't register here only to unregister itself on the next tick
+        boolean animateSelected = !selectedElements.isEmpty() && animation != HighlightAnimation.None;
+        if ((animateSelected || selectedMousePress != null) && !printOn && !TickScheduler.getShared().isRegistered(animationTick))
+            TickScheduler.getShared().register(animationTick, animation.delaySpeed());
+        
         Font mouseFont = fields.mouseCoordFont.deriveFont((float)(fields.mouseCoordFont.getSize2D() / fields.zoom));
         FontMetrics fontMetrics = g2d.getFontMetrics(mouseFont);
         g2d.setFont(mouseFont);
@@ -2624,8 +3506,18 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
                 double x = mouseIn.getX() + (int)Math.ceil(10.0 /fields.zoom);
                 double y = mouseIn.getY() + (int)Math.ceil(fontMetrics.getHeight() + 10.0 /fields.zoom);
                 paintString(g2d, s, x, y);
-                if (measString != null)
+                double textWidth = fontMetrics.stringWidth(s);
+                double textBottom = y + fontMetrics.getDescent();
+                if (measString != null) {
                     paintString(g2d, measString, x, y + (int)Math.ceil(fontMetrics.getHeight() + 10.0 /fields.zoom));
+                    textWidth = Math.max(textWidth, fontMetrics.stringWidth(measString));
+                    textBottom += (int)Math.ceil(fontMetrics.getHeight() + 10.0 /fields.zoom);
+                }
+                
+                //Remember where the text went, so a draw client repaint can erase it
+                double textTop = y - fontMetrics.getAscent();
+                mouseTextArea = canvasToComponent(new Rectangle2D.Double(x, textTop, textWidth, textBottom - textTop));
+                mouseTextAnchor = canvasToComponent(new Rectangle2D.Double(mouseIn.getX(), mouseIn.getY(), 0, 0)).getLocation();
             }
   
             
@@ -2636,9 +3528,27 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
             drawClient.drawClientPaint(g, mouseIn);
         }
         
+        long paintTime = System.nanoTime() - paintStart;
+        if (!printOn)
+            ZCanvasMetrics.getShared().recordPaint(paintTime, framePainted, frameCulled);
+        if (adaptiveTargetNanos > 0 && !printOn)
+            frameTimeMeasured(paintTime);
+        
+        paintEvent.end();
+        if (paintEvent.shouldCommit()) {
+            paintEvent.elementsPainted = framePainted;
+            paintEvent.elementsCulled = frameCulled;
+            paintEvent.width = getWidth();
+            paintEvent.height = getHeight();
+            paintEvent.commit();
+        }
+        
         for (ZCanvasEventListener l : canvasEventListeners)
             l.canvasRepainted();
         
+        if (rasterBudget != null && rasterBudget.isDeferred())  //some elements are waiting to render their rasters
+            repaint();
+        
         
     }
 
@@ -2668,12 +3578,16 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     private void selectElement(MouseEvent e) {
         
         final Point2D mouseLoc = getScaledMouse(e);
+        long hitTestStart = System.nanoTime();
+        SelectEvent selectEvent = new SelectEvent();
+        selectEvent.begin();
         
         //Select the pointed object, if there is one
         //See if the mouse click was within the bounds of any component, checking upper objects before moving down the z stack
         Iterator<ZElement> it = fields.zElements.iterator();
         while (it.hasNext()) {
             ZElement o = it.next();
+            selectEvent.elementsTested++;
             if (!o.isSelectable()) //don't select anything that's unselectable
                 continue;
                                    
@@ -2708,6 +3622,10 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
                     
                 }
                 
+                ZCanvasMetrics.getShared().recordHitTest(System.nanoTime() - hitTestStart);
+                selectEvent.found = true;
+                selectEvent.commit();
+                
                 if (!o.isSelected()) {  //newly selected element
                     
                     if (!shiftPressed && hasSelectedElements()) //no shift, so clear all others
@@ -2770,6 +3688,8 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
             
 
         }
+        ZCanvasMetrics.getShared().recordHitTest(System.nanoTime() - hitTestStart);
+        selectEvent.commit();
         selectNone();
         
         for (ZCanvasEventListener l : canvasEventListeners)
@@ -2992,7 +3912,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
  
         if (drawClient != null) {
             drawClient.drawClientMouseDragged(getScaledMouse(e), e);
-            repaint();
+            repaintDrawClient();
             return;
         }
         
@@ -3016,6 +3936,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
                     moveSelected(xDelta, yDelta);
                     
                     selectedObj_dragPosition = mouseLoc;
+                    interactionOccurred();
                     
                     selectedMouseDrag = new Point2D.Double((mouseLoc.getX() - selectedObj_xOffset), (mouseLoc.getY() - selectedObj_yOffset));  
                 }
@@ -3048,6 +3969,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
 
                 //move the shape 
                 selectedResizeElement.move(xMove/SCALE, yMove/SCALE, getMaxXPosition(), getMaxYPosition());
+                interactionOccurred();
 
             }
                         
@@ -3062,7 +3984,44 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
     @Override
     public void mouseMoved(MouseEvent e) {
         mouseIn = getScaledMouse(e);
-        repaint();
+        if (drawClient != null)
+            repaintDrawClient();
+        else
+            repaint();
+    }
+    
+    /**
+     * Repaint what the draw client changed, and the mouse coordinates that follow the mouse.  When the crosshair is on it spans the
+     * canvas and marks the rulers, so everything is repainted.
+     */
+    private void repaintDrawClient() {
+        
+        Rectangle2D dirty = drawClient.drawClientDirtyRegion(mouseIn);
+        if (dirty == null || fields.mouseCursorColor != null) {
+            repaint();
+            return;
+        }
+        
+        Rectangle r = canvasToComponent(dirty);
+        r.grow(2, 2);
+        repaint(r);
+        
+        if (mouseTextArea != null && mouseIn != null) {
+            repaint(mouseTextArea);
+            
+            //The text moves with the mouse, and may get a little wider
+            Rectangle moved = new Rectangle(mouseTextArea);
+            Point mouse = canvasToComponent(new Rectangle2D.Double(mouseIn.getX(), mouseIn.getY(), 0, 0)).getLocation();
+            moved.translate(mouse.x - mouseTextAnchor.x, mouse.y - mouseTextAnchor.y);
+            moved.width += moved.width / 2;
+            repaint(moved);
+        }
+    }
+    
+    //Convert an area of the canvas to the enclosing component pixels
+    private Rectangle canvasToComponent(Rectangle2D r) {
+        return new Rectangle2D.Double(r.getX() * fields.zoom + fields.origin.x, r.getY() * fields.zoom + fields.origin.y, 
+                                      r.getWidth() * fields.zoom, r.getHeight() * fields.zoom).getBounds();
     }
 
     @Override
@@ -3107,6 +4066,7 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
             }
             
             mouseWheelLastMoved = System.nanoTime();
+            interactionOccurred();
             repaint();
         }
 
@@ -3136,7 +4096,10 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
      * @return 
      */
     public ContextClasses getContextClasses() {   
-        return ContextClasses.getContextClasses(fields.zElements);
+        ArrayList<ZElement> elements = new ArrayList<>(fields.zElements);
+        for (ZSymbol symbol : getSymbolList())
+            elements.add(symbol.getDefinition());
+        return ContextClasses.getContextClasses(elements);
     }
     
     
@@ -3172,6 +4135,144 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         return c;
     }
     
+    /**
+     * Save the canvas to an XML file with JAXB, on a background thread. A copy of the canvas, taken when called, is saved and the canvas
+     * is marked as saved, so changes made while saving remain unsaved changes.  The XML is written to a temporary file that then
+     * replaces the file, so a cancelled or failed save leaves any existing file intact, and marks the canvas as changed again.
+     * @param f the file to write
+     * @param extraClasses classes to add to the JAXB context besides those from getContextClasses(), for instance custom strokes
+     * @return the started task, which completes with the file
+     */
+    public CanvasTask<File> saveAsync(final File f, Class<?>... extraClasses) {
+        
+        final CanvasStore store = copyOfStore();
+        final Class<?>[] classes = combineClasses(getContextClasses().getClasses(), extraClasses);
+        final Set<ZElement> saving = Collections.newSetFromMap(new IdentityHashMap<ZElement, Boolean>());
+        saving.addAll(store.zElements);
+        
+        //Mark as saved now, remembering what had changed in case the save fails
+        final ArrayList<ZElement> changed = new ArrayList<>();
+        for (ZElement e : fields.zElements) {
+            if (e.hasChanges()) {
+                changed.add(e);
+                e.wasSaved();
+            }
+        }
+        final boolean wasModified = canvasModified;
+        canvasModified = false;
+        
+        return new CanvasTask<File>("Save " + f.getName()) {
+            
+            @Override
+            protected File compute() throws Exception {
+                
+                Marshaller marshaller = JAXBContext.newInstance(classes).createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+                marshaller.setListener(new Marshaller.Listener() {
+                    private int count;
+                    
+                    @Override
+                    public void beforeMarshal(Object source) {
+                        checkCancelled();
+                    }
+
+                    @Override
+                    public void afterMarshal(Object source) {
+                        if (saving.contains(source))
+                            progress(99.0f * ++count / saving.size());
+                    }
+                });
+                
+                File temp = File.createTempFile(f.getName(), ".tmp", f.getAbsoluteFile().getParentFile());
+                try {
+                    marshaller.marshal(store, temp);
+                    checkCancelled();
+                    Files.move(temp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+                return f;
+            }
+
+            @Override
+            protected void failed(Throwable t) {
+                for (ZElement e : changed)
+                    e.changed();
+                if (wasModified)
+                    canvasModified = true;
+            }
+            
+        }.start();
+    }
+    
+    /**
+     * Load a canvas from an XML file with JAXB, on a background thread.  The context classes are found from the file, see
+     * ContextClasses.getContextClasses(f), and the canvas is created on the event dispatch thread.
+     * @param f the file to read
+     * @param extraClasses classes to add to the JAXB context besides those named in the file, for instance custom strokes
+     * @return the started task, which completes with the loaded ZCanvas
+     */
+    public static CanvasTask<ZCanvas> loadAsync(final File f, final Class<?>... extraClasses) {
+        
+        return new CanvasTask<ZCanvas>("Load " + f.getName()) {
+            
+            private CanvasStore store;
+            
+            @Override
+            protected ZCanvas compute() throws Exception {
+                
+                Class<?>[] classes = combineClasses(ContextClasses.getContextClasses(f).getClasses(), extraClasses);
+                checkCancelled();
+                
+                Unmarshaller unmarshaller = JAXBContext.newInstance(classes).createUnmarshaller();
+                try (InputStream in = new CanvasTask.ProgressInputStream(new BufferedInputStream(new FileInputStream(f)), f.length(), this, 0.0f, 99.0f)) {
+                    store = (CanvasStore)unmarshaller.unmarshal(in);
+                }
+                return null;
+            }
+
+            @Override
+            protected ZCanvas finish(ZCanvas result) {
+                return fromCanvasStore(store);
+            }
+            
+        }.start();
+    }
+    
+    private static Class<?>[] combineClasses(Class<?>[] classes, Class<?>[] extraClasses) {
+        LinkedHashSet<Class<?>> all = new LinkedHashSet<>(Arrays.asList(classes));
+        all.addAll(Arrays.asList(extraClasses));
+        return all.toArray(new Class<?>[all.size()]);
+    }
+    
+    //A copy of the canvas fields with copies of the elements, that can be saved or painted away from the event dispatch thread.
+    //The rulers and grid are shared.
+    private CanvasStore copyOfStore() {
+        
+        CanvasStore c = new CanvasStore();
+        c.backgroundColor = fields.backgroundColor;
+        c.mouseCursorColor = fields.mouseCursorColor;
+        c.mouseCoordFont = fields.mouseCoordFont;
+        c.unit = fields.unit;
+        c.undoStackCount = fields.undoStackCount;
+        c.origin = fields.origin == null ? null : new Point(fields.origin);
+        c.bounds = fields.bounds == null ? null : new Dimension(fields.bounds);
+        c.orientation = fields.orientation;
+        c.pageSize = fields.pageSize == null ? null : new Dimension(fields.pageSize);
+        c.margins = fields.margins == null ? null : (Rectangle2D.Double)fields.margins.clone();
+        c.marginsOn = fields.marginsOn;
+        c.rulersHidden = fields.rulersHidden;
+        c.horizontalRuler = fields.horizontalRuler;
+        c.verticalRuler = fields.verticalRuler;
+        c.grid = fields.grid;
+        for (ZElement e : fields.zElements)
+            c.zElements.addLast(e.copyOf(false));
+        c.symbols.addAll(getSymbolList());  //shared, the instance copies refer to the same symbols
+        c.zoom = fields.zoom;
+        c.zeroOffset = fields.zeroOffset == null ? null : (Point2D)fields.zeroOffset.clone();
+        return c;
+    }
+    
     /**
      * Mark the canvas and its elements has having been saed
      */
@@ -3200,10 +4301,12 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         Graphics2D g2d = (Graphics2D)g;
         g2d.translate(-fields.origin.x, -fields.origin.y);
         currentManager.setDoubleBufferingEnabled(false);
-        this.paint(g2d);
-        currentManager.setDoubleBufferingEnabled(true);
-        
-        printOn = false;
+        try {
+            this.paint(g2d);
+        } finally {  //a background print may be cancelled part way
+            currentManager.setDoubleBufferingEnabled(true);
+            printOn = false;
+        }
         
         return(PAGE_EXISTS);
       
@@ -3244,13 +4347,61 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
      * @return the image of the canvas
      */
     public BufferedImage printToImage(int resolutionScale, Color clearColor) {
+        return printToImage(resolutionScale, clearColor, null);
+    }
+    
+    /**
+     * Grab an image of the canvas, as printToImage(resolutionScale, clearColor), on a background thread.  A copy of the canvas,
+     * taken when called, is painted in one pass, reporting progress as each element is painted.  Text elements paint with Swing
+     * text components, which are handed to the event dispatch thread, so the print waits for it while painting text.
+     * @param resolutionScale the desired resolution multiplier. A value of 1 = 72dpi (screen resolution).  2 doubles this, and so on.
+     * @param clearColor clear the image with the specified color before painting image, if not null
+     * @return the started task, which completes with the image of the canvas
+     */
+    public CanvasTask<BufferedImage> printToImageAsync(final int resolutionScale, final Color clearColor) {
+        
+        CanvasStore store = copyOfStore();
+        store.grid = null;  //not printed, and not shared with the copy
+        store.horizontalRuler = null;
+        store.verticalRuler = null;
+        
+        final ZCanvas copy = fromCanvasStore(store);
+        copy.setSize(getSize());
+        
+        return new CanvasTask<BufferedImage>("Print") {
+            
+            @Override
+            protected BufferedImage compute() {
+                return copy.printToImage(resolutionScale, clearColor, this);
+            }
+
+            @Override
+            protected BufferedImage finish(BufferedImage result) {
+                copy.dispose();
+                return result;
+            }
+
+            @Override
+            protected void failed(Throwable t) {
+                copy.dispose();
+            }
+            
+        }.start();
+    }
+    
+    //With progress, the progress is reported and cancellation checked as each element is painted
+    private BufferedImage printToImage(int resolutionScale, Color clearColor, ComputeProgress progress) {
         
         if (fields.pageSize == null || resolutionScale < 1)
             return null;
         
    
+        PrintEvent event = new PrintEvent();
+        event.begin();
+        
         //Create Buffered Image
         BufferedImage bi = new BufferedImage(fields.pageSize.width*resolutionScale, fields.pageSize.height*resolutionScale, BufferedImage.TYPE_INT_ARGB);
+        
         Graphics2D g = bi.createGraphics();
         g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
         g.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_ENABLE);
@@ -3262,10 +4413,19 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         }
 
         g.scale(resolutionScale, resolutionScale);
-        print(g, null, 0);
-        g.dispose();
+        printProgress = progress;
+        try {
+            print(g, null, 0);
+        } finally {
+            printProgress = null;
+            g.dispose();
+        }
         
-
+        event.elementCount = fields.zElements.size();
+        event.width = bi.getWidth();
+        event.height = bi.getHeight();
+        event.bytes = 4L * bi.getWidth() * bi.getHeight();
+        event.commit();
         
         return bi;   
     }
@@ -3322,12 +4482,14 @@ public class ZCanvas extends JComponent implements Printable, MouseListener, Mou
         
         RepaintManager currentManager = RepaintManager.currentManager(this);
 
+        printOn = true;  //paint in full detail
         currentManager.setDoubleBufferingEnabled(false);
         for (ZElement e : selectedElements) {
             if (e.isPrintable())
                 this.paintElement(g, e, false);
         }
         currentManager.setDoubleBufferingEnabled(true);
+        printOn = false;
 
         g.dispose();
         return bi; 
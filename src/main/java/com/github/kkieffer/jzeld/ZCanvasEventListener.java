@@ -50,4 +50,11 @@ public interface ZCanvasEventListener {
      */
     public void canvasMousePress(Point2D mouseLoc, ZElement selected);
     
+    /**
+     * Called when the adaptive quality controller changes the rendering quality of the canvas (see ZCanvas.setAdaptiveQuality()).
+     * Hosts may use this to show that the canvas is in a draft mode.
+     * @param quality the new rendering quality
+     */
+    public default void canvasQualityChanged(ZCanvas.RenderQuality quality) {}
+    
 }
@@ -0,0 +1,490 @@
+
+package com.github.kkieffer.jzeld;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Rendering and editing metrics collected from all canvases: paint times, culling, hit testing, undo snapshots, cache hit rates,
+ * and save/load times.  Recording uses only lock-free counters and fixed bucket histograms, and allocates nothing once an element
+ * class has been seen, so metrics can stay enabled in production.
+ * <p>
+ * The metrics are available directly from getShared(), or over JMX after calling registerMBean().
+ *
+ * @author kkieffer
+ */
+public final class ZCanvasMetrics implements ZCanvasMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.github.kkieffer.jzeld:type=ZCanvasMetrics";
+
+    /**
+     * A histogram of durations with power of two buckets.  Bucket i holds durations from 2^(i-1) up to 2^i nanoseconds, so
+     * percentiles are accurate to within a factor of two, interpolated within the bucket.
+     */
+    public static final class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * Record a duration
+         * @param nanos the duration, in nanoseconds
+         */
+        public void record(long nanos) {
+            if (nanos < 0)
+                nanos = 0;
+            buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(nanos)));
+            count.increment();
+            total.add(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * The mean of the recorded durations
+         * @return the mean, in milliseconds, or zero if nothing recorded
+         */
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : total.sum() / (double)n / 1000000.0;
+        }
+
+        /**
+         * Estimate a percentile of the recorded durations
+         * @param p the percentile, from 0 to 100
+         * @return the estimated duration, in milliseconds, or zero if nothing recorded
+         */
+        public double getPercentile(double p) {
+
+            long[] counts = new long[buckets.length()];
+            long n = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            if (n == 0)
+                return 0;
+
+            double rank = Math.max(1, Math.ceil(p / 100.0 * n));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (seen + counts[i] >= rank) {
+                    double lower = i == 0 ? 0 : Math.pow(2, i - 1);
+                    double upper = Math.pow(2, i);
+                    return (lower + (upper - lower) * (rank - seen) / counts[i]) / 1000000.0;
+                }
+                seen += counts[i];
+            }
+            return Math.pow(2, counts.length - 1) / 1000000.0;
+        }
+
+        public void reset() {
+            for (int i = 0; i < buckets.length(); i++)
+                buckets.set(i, 0);
+            count.reset();
+            total.reset();
+        }
+    }
+
+
+    private static final ZCanvasMetrics shared = new ZCanvasMetrics();
+
+    private volatile boolean enabled = true;
+
+    private final Histogram paintTime = new Histogram();
+    private final LongAdder elementsPainted = new LongAdder();
+    private final LongAdder elementsCulled = new LongAdder();
+    private volatile int lastFramePainted;
+    private volatile int lastFrameCulled;
+    private final ConcurrentHashMap<Class<?>, LongAdder> classPaintTime = new ConcurrentHashMap<>();
+
+    private final Histogram hitTestTime = new Histogram();
+
+    private final Histogram undoSnapshotTime = new Histogram();
+    private final LongAdder undoSnapshotElements = new LongAdder();
+    private volatile int lastUndoSnapshotElements;
+
+    private final LongAdder shadowHits = new LongAdder();
+    private final LongAdder shadowMisses = new LongAdder();
+    private final LongAdder gradientHits = new LongAdder();
+    private final LongAdder gradientMisses = new LongAdder();
+    private final LongAdder geometryHits = new LongAdder();
+    private final LongAdder geometryMisses = new LongAdder();
+
+    private final Histogram saveTime = new Histogram();
+    private volatile long lastSaveNanos;
+    private final Histogram loadTime = new Histogram();
+    private volatile long lastLoadNanos;
+
+
+    private ZCanvasMetrics() {}
+
+    /**
+     * Get the metrics shared by all canvases
+     * @return the shared metrics
+     */
+    public static ZCanvasMetrics getShared() {
+        return shared;
+    }
+
+    /**
+     * Register the shared metrics with the platform MBean server, under OBJECT_NAME. Does nothing if already registered.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(shared, name);
+        } catch (JMException ex) {
+            throw new RuntimeException("Unable to register canvas metrics: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Remove the shared metrics from the platform MBean server. Does nothing if not registered.
+     */
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException ex) {
+            throw new RuntimeException("Unable to unregister canvas metrics: " + ex.getMessage());
+        }
+    }
+
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        paintTime.reset();
+        elementsPainted.reset();
+        elementsCulled.reset();
+        lastFramePainted = 0;
+        lastFrameCulled = 0;
+        classPaintTime.clear();
+        hitTestTime.reset();
+        undoSnapshotTime.reset();
+        undoSnapshotElements.reset();
+        lastUndoSnapshotElements = 0;
+        shadowHits.reset();
+        shadowMisses.reset();
+        gradientHits.reset();
+        gradientMisses.reset();
+        geometryHits.reset();
+        geometryMisses.reset();
+        saveTime.reset();
+        lastSaveNanos = 0;
+        loadTime.reset();
+        lastLoadNanos = 0;
+    }
+
+
+    /* ------------- RECORDING ---------------------- */
+
+    /**
+     * Record a paint of a canvas
+     * @param nanos the time to paint
+     * @param painted the number of elements painted
+     * @param culled the number of elements skipped because they were outside the clip
+     */
+    public void recordPaint(long nanos, int painted, int culled) {
+        if (!enabled)
+            return;
+        paintTime.record(nanos);
+        elementsPainted.add(painted);
+        elementsCulled.add(culled);
+        lastFramePainted = painted;
+        lastFrameCulled = culled;
+    }
+
+    /**
+     * Record the time to paint one element
+     * @param c the element class
+     * @param nanos the time to paint
+     */
+    public void recordElementPaint(Class<?> c, long nanos) {
+        if (!enabled)
+            return;
+        LongAdder a = classPaintTime.get(c);
+        if (a == null) {  //first time for this class
+            a = new LongAdder();
+            LongAdder existing = classPaintTime.putIfAbsent(c, a);
+            if (existing != null)
+                a = existing;
+        }
+        a.add(nanos);
+    }
+
+    public void recordHitTest(long nanos) {
+        if (enabled)
+            hitTestTime.record(nanos);
+    }
+
+    /**
+     * Record an undo snapshot
+     * @param elements the number of elements copied into the snapshot
+     * @param nanos the time to copy them
+     */
+    public void recordUndoSnapshot(int elements, long nanos) {
+        if (!enabled)
+            return;
+        undoSnapshotTime.record(nanos);
+        undoSnapshotElements.add(elements);
+        lastUndoSnapshotElements = elements;
+    }
+
+    public void recordShadowCache(boolean hit) {
+        if (enabled)
+            (hit ? shadowHits : shadowMisses).increment();
+    }
+
+    public void recordGradientCache(boolean hit) {
+        if (enabled)
+            (hit ? gradientHits : gradientMisses).increment();
+    }
+
+    public void recordGeometryCache(boolean hit) {
+        if (enabled)
+            (hit ? geometryHits : geometryMisses).increment();
+    }
+
+    public void recordSave(long nanos) {
+        if (!enabled)
+            return;
+        saveTime.record(nanos);
+        lastSaveNanos = nanos;
+    }
+
+    public void recordLoad(long nanos) {
+        if (!enabled)
+            return;
+        loadTime.record(nanos);
+        lastLoadNanos = nanos;
+    }
+
+
+    /* ------------- HISTOGRAMS ---------------------- */
+
+    public Histogram getPaintTimeHistogram() {
+        return paintTime;
+    }
+
+    public Histogram getHitTestHistogram() {
+        return hitTestTime;
+    }
+
+    public Histogram getUndoSnapshotHistogram() {
+        return undoSnapshotTime;
+    }
+
+    public Histogram getSaveTimeHistogram() {
+        return saveTime;
+    }
+
+    public Histogram getLoadTimeHistogram() {
+        return loadTime;
+    }
+
+
+    /* ------------- MXBEAN ATTRIBUTES ---------------------- */
+
+    @Override
+    public long getPaintCount() {
+        return paintTime.getCount();
+    }
+
+    @Override
+    public double getPaintTimeMean() {
+        return paintTime.getMean();
+    }
+
+    @Override
+    public double getPaintTimeP50() {
+        return paintTime.getPercentile(50);
+    }
+
+    @Override
+    public double getPaintTimeP99() {
+        return paintTime.getPercentile(99);
+    }
+
+    @Override
+    public long getElementsPainted() {
+        return elementsPainted.sum();
+    }
+
+    @Override
+    public long getElementsCulled() {
+        return elementsCulled.sum();
+    }
+
+    @Override
+    public int getLastFrameElementsPainted() {
+        return lastFramePainted;
+    }
+
+    @Override
+    public int getLastFrameElementsCulled() {
+        return lastFrameCulled;
+    }
+
+    @Override
+    public Map<String, Long> getPaintTimeByClass() {
+        TreeMap<String, Long> m = new TreeMap<>();
+        for (Map.Entry<Class<?>, LongAdder> e : classPaintTime.entrySet())
+            m.put(e.getKey().getName(), e.getValue().sum());
+        return m;
+    }
+
+    @Override
+    public long getHitTestCount() {
+        return hitTestTime.getCount();
+    }
+
+    @Override
+    public double getHitTestP50() {
+        return hitTestTime.getPercentile(50);
+    }
+
+    @Override
+    public double getHitTestP99() {
+        return hitTestTime.getPercentile(99);
+    }
+
+    @Override
+    public long getUndoSnapshotCount() {
+        return undoSnapshotTime.getCount();
+    }
+
+    @Override
+    public double getUndoSnapshotP50() {
+        return undoSnapshotTime.getPercentile(50);
+    }
+
+    @Override
+    public double getUndoSnapshotP99() {
+        return undoSnapshotTime.getPercentile(99);
+    }
+
+    @Override
+    public int getLastUndoSnapshotElements() {
+        return lastUndoSnapshotElements;
+    }
+
+    @Override
+    public long getUndoSnapshotElements() {
+        return undoSnapshotElements.sum();
+    }
+
+    @Override
+    public long getShadowCacheHits() {
+        return shadowHits.sum();
+    }
+
+    @Override
+    public long getShadowCacheMisses() {
+        return shadowMisses.sum();
+    }
+
+    @Override
+    public double getShadowCacheHitRate() {
+        return hitRate(shadowHits.sum(), shadowMisses.sum());
+    }
+
+    @Override
+    public long getGradientCacheHits() {
+        return gradientHits.sum();
+    }
+
+    @Override
+    public long getGradientCacheMisses() {
+        return gradientMisses.sum();
+    }
+
+    @Override
+    public double getGradientCacheHitRate() {
+        return hitRate(gradientHits.sum(), gradientMisses.sum());
+    }
+
+    @Override
+    public long getGeometryCacheHits() {
+        return geometryHits.sum();
+    }
+
+    @Override
+    public long getGeometryCacheMisses() {
+        return geometryMisses.sum();
+    }
+
+    @Override
+    public double getGeometryCacheHitRate() {
+        return hitRate(geometryHits.sum(), geometryMisses.sum());
+    }
+
+    private static double hitRate(long hits, long misses) {
+        return hits + misses == 0 ? 0 : hits / (double)(hits + misses);
+    }
+
+    @Override
+    public long getSaveCount() {
+        return saveTime.getCount();
+    }
+
+    @Override
+    public double getSaveTimeP50() {
+        return saveTime.getPercentile(50);
+    }
+
+    @Override
+    public double getSaveTimeP99() {
+        return saveTime.getPercentile(99);
+    }
+
+    @Override
+    public double getLastSaveTime() {
+        return lastSaveNanos / 1000000.0;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadTime.getCount();
+    }
+
+    @Override
+    public double getLoadTimeP50() {
+        return loadTime.getPercentile(50);
+    }
+
+    @Override
+    public double getLoadTimeP99() {
+        return loadTime.getPercentile(99);
+    }
+
+    @Override
+    public double getLastLoadTime() {
+        return lastLoadNanos / 1000000.0;
+    }
+
+}
@@ -0,0 +1,74 @@
+
+package com.github.kkieffer.jzeld;
+
+import java.util.Map;
+
+/**
+ * Management interface for the canvas rendering metrics, see ZCanvasMetrics.  Times are in milliseconds unless noted.
+ *
+ * @author kkieffer
+ */
+public interface ZCanvasMetricsMXBean {
+
+    public boolean isEnabled();
+    public void setEnabled(boolean enabled);
+
+    /**
+     * Clear all counters and histograms
+     */
+    public void reset();
+
+
+    public long getPaintCount();
+    public double getPaintTimeMean();
+    public double getPaintTimeP50();
+    public double getPaintTimeP99();
+
+    public long getElementsPainted();
+    public long getElementsCulled();
+    public int getLastFrameElementsPainted();
+    public int getLastFrameElementsCulled();
+
+    /**
+     * Cumulative paint time of each element class
+     * @return map of class name to total paint time, in nanoseconds
+     */
+    public Map<String, Long> getPaintTimeByClass();
+
+
+    public long getHitTestCount();
+    public double getHitTestP50();
+    public double getHitTestP99();
+
+
+    public long getUndoSnapshotCount();
+    public double getUndoSnapshotP50();
+    public double getUndoSnapshotP99();
+    public int getLastUndoSnapshotElements();
+    public long getUndoSnapshotElements();
+
+
+    public long getShadowCacheHits();
+    public long getShadowCacheMisses();
+    public double getShadowCacheHitRate();
+
+    public long getGradientCacheHits();
+    public long getGradientCacheMisses();
+    public double getGradientCacheHitRate();
+
+    public long getGeometryCacheHits();
+    public long getGeometryCacheMisses();
+    public double getGeometryCacheHitRate();
+
+
+    public long getSaveCount();
+    public double getSaveTimeP50();
+    public double getSaveTimeP99();
+    public double getLastSaveTime();
+
+    public long getLoadCount();
+    public double getLoadTimeP50();
+    public double getLoadTimeP99();
+    public double getLastLoadTime();
+
+}
@@ -0,0 +1,154 @@
+
+package com.github.kkieffer.jzeld;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * Rendering hints that the ZCanvas sets on its Graphics2D to tell elements how much effort to put into painting.  Elements check
+ * these when painting, and when the hints are absent (printing, exporting, painting to images) they paint at full quality.
+ *
+ * @author kkieffer
+ */
+public final class ZRenderingHints {
+
+    private static final class Key extends RenderingHints.Key {
+
+        private final String name;
+        private final Class<?> valueClass;
+
+        private Key(int privateKey, String name, Class<?> valueClass) {
+            super(privateKey);
+            this.name = name;
+            this.valueClass = valueClass;
+        }
+
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return valueClass.isInstance(val);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * If Boolean.TRUE, elements should favor speed over quality: no antialiasing, speed rendering, and nearest neighbor image interpolation.
+     */
+    public static final RenderingHints.Key KEY_DRAFT = new Key(1, "Draft rendering", Boolean.class);
+
+    /**
+     * If Boolean.FALSE, elements should not paint their shadows
+     */
+    public static final RenderingHints.Key KEY_SHADOWS = new Key(2, "Shadow rendering", Boolean.class);
+
+    /**
+     * If Boolean.FALSE, elements should not render new raster caches (images of their content kept for later paints), unless a
+     * RasterBudget allows.  Elements should ask with admitRaster().
+     */
+    public static final RenderingHints.Key KEY_RASTER_CACHE = new Key(3, "Raster cache admission", Boolean.class);
+
+    /**
+     * A RasterBudget limiting the time spent rendering raster caches in one paint.  When present, it decides instead of KEY_RASTER_CACHE.
+     */
+    public static final RenderingHints.Key KEY_RASTER_BUDGET = new Key(4, "Raster cache budget", RasterBudget.class);
+
+    /**
+     * The time a paint may spend rendering raster caches.  Rendering a raster costs about as much as painting the content directly,
+     * so when the canvas is short on time, rasters are still rendered up to the deadline, and elements that miss it defer their
+     * painting to a following paint rather than painting directly.
+     */
+    public static final class RasterBudget {
+
+        private final long deadline;
+        private boolean admitted;  //the first raster is always admitted, so each paint makes progress
+        private boolean deferred;
+
+        /**
+         * Create a budget
+         * @param deadline the System.nanoTime() after which no more rasters should be rendered
+         */
+        public RasterBudget(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Note that an element skipped painting, or painted from an out of date raster, and needs another paint
+         */
+        public void defer() {
+            deferred = true;
+        }
+
+        /**
+         * Check if any element deferred its painting
+         * @return true if the canvas should paint again
+         */
+        public boolean isDeferred() {
+            return deferred;
+        }
+    }
+
+
+    private ZRenderingHints() {}
+
+    /**
+     * Check if the graphics is set for draft rendering
+     * @param g the graphics being painted on
+     * @return true if elements should paint quickly rather than at full quality
+     */
+    public static boolean isDraft(Graphics2D g) {
+        return Boolean.TRUE.equals(g.getRenderingHint(KEY_DRAFT));
+    }
+
+    /**
+     * Check if shadows should be painted
+     * @param g the graphics being painted on
+     * @return false if shadows have been turned off for this paint
+     */
+    public static boolean isShadowsOn(Graphics2D g) {
+        return !Boolean.FALSE.equals(g.getRenderingHint(KEY_SHADOWS));
+    }
+
+    /**
+     * Check if new raster caches may be rendered
+     * @param g the graphics being painted on
+     * @return false if raster caches should not be created for this paint
+     */
+    public static boolean isRasterCacheOn(Graphics2D g) {
+        return !Boolean.FALSE.equals(g.getRenderingHint(KEY_RASTER_CACHE));
+    }
+
+    /**
+     * Check if the element may render a new raster cache now.  If not, the element should call deferRaster(), so the canvas paints
+     * again, and draw an out of date raster it has or skip painting. Painting directly instead costs as much as rendering the raster.
+     * @param g the graphics being painted on
+     * @return true if the paint's budget has time left, or without a budget, if raster caches are on
+     */
+    public static boolean admitRaster(Graphics2D g) {
+        Object budget = g.getRenderingHint(KEY_RASTER_BUDGET);
+        if (budget instanceof RasterBudget) {
+            RasterBudget b = (RasterBudget)budget;
+            if (b.admitted && System.nanoTime() >= b.deadline)
+                return false;
+            b.admitted = true;
+            return true;
+        }
+        return isRasterCacheOn(g);
+    }
+
+    /**
+     * Note that the element couldn't render its raster cache in this paint, and needs to be painted again
+     * @param g the graphics being painted on
+     * @return false if there's no budget, and so no following paint, in which case the element should paint directly
+     */
+    public static boolean deferRaster(Graphics2D g) {
+        Object budget = g.getRenderingHint(KEY_RASTER_BUDGET);
+        if (!(budget instanceof RasterBudget))
+            return false;
+        ((RasterBudget)budget).defer();
+        return true;
+    }
+
+}
@@ -0,0 +1,194 @@
+
+package com.github.kkieffer.jzeld.adapters;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A shared cache of the geometry generated by parametric elements, such as arrows, waves and polygons.  An element asks for its
+ * shape with a key of its class, the parameters that define it, and its size; elements with the same key get the same shape, so
+ * thousands of identical elements share one path instead of each generating their own on every paint.  Shapes in the cache are
+ * immutable, and the number of shapes is bounded, least recently used shapes are discarded first.
+ *
+ * @author kkieffer
+ */
+public final class GeometryCache {
+
+    private static final int DEFAULT_MAX_SHAPES = 4096;
+
+    /**
+     * Identifies a generated shape
+     */
+    public static final class Key {
+
+        private final Class<?> type;
+        private final double[] values;
+        private final int hash;
+
+        /**
+         * Create a key
+         * @param type the class generating the shape
+         * @param values the parameters and size the shape is generated from
+         */
+        public Key(Class<?> type, double... values) {
+            this.type = type;
+            this.values = values;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key)o;
+            return hash == k.hash && type == k.type && Arrays.equals(values, k.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A path that can't be changed, so it can be shared
+     */
+    private static final class SharedShape implements Shape {
+
+        private final Path2D.Double path;
+
+        private SharedShape(Shape s) {
+            path = new Path2D.Double(s);
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return path.getBounds();
+        }
+
+        @Override
+        public Rectangle2D getBounds2D() {
+            return path.getBounds2D();
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            return path.contains(x, y);
+        }
+
+        @Override
+        public boolean contains(Point2D p) {
+            return path.contains(p);
+        }
+
+        @Override
+        public boolean intersects(double x, double y, double w, double h) {
+            return path.intersects(x, y, w, h);
+        }
+
+        @Override
+        public boolean intersects(Rectangle2D r) {
+            return path.intersects(r);
+        }
+
+        @Override
+        public boolean contains(double x, double y, double w, double h) {
+            return path.contains(x, y, w, h);
+        }
+
+        @Override
+        public boolean contains(Rectangle2D r) {
+            return path.contains(r);
+        }
+
+        @Override
+        public PathIterator getPathIterator(AffineTransform at) {
+            return path.getPathIterator(at);
+        }
+
+        @Override
+        public PathIterator getPathIterator(AffineTransform at, double flatness) {
+            return path.getPathIterator(at, flatness);
+        }
+    }
+
+    private static final LinkedHashMap<Key, Shape> shapes = new LinkedHashMap<>(16, 0.75f, true);  //access order for LRU
+    private static int maxShapes = DEFAULT_MAX_SHAPES;
+
+    private GeometryCache() {}
+
+    /**
+     * Sets the maximum number of shapes to hold. Least recently used shapes are discarded if over the new limit.
+     * @param count the maximum number of shapes, zero to disable caching
+     */
+    public static synchronized void setMaxShapes(int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Max shapes cannot be negative");
+        maxShapes = count;
+        trim();
+    }
+
+    public static synchronized int getMaxShapes() {
+        return maxShapes;
+    }
+
+    public static synchronized int size() {
+        return shapes.size();
+    }
+
+    /**
+     * Discard all cached shapes
+     */
+    public static synchronized void clear() {
+        shapes.clear();
+    }
+
+    /**
+     * Get a cached shape
+     * @param key the key the shape was stored with
+     * @return the immutable shape, or null if it isn't cached
+     */
+    public static synchronized Shape get(Key key) {
+        return shapes.get(key);
+    }
+
+    /**
+     * Cache a shape. The shape is copied, so the caller can't change the cached copy.
+     * @param key the key to store the shape with
+     * @param s the shape
+     * @return an immutable copy of the shape, which can be shared
+     */
+    public static synchronized Shape put(Key key, Shape s) {
+        Shape shared = new SharedShape(s);
+        if (maxShapes > 0) {
+            shapes.put(key, shared);
+            trim();
+        }
+        return shared;
+    }
+
+    /**
+     * Check if a shape came from the cache, in which case it is immutable and need not be copied
+     * @param s the shape to check
+     * @return true if the shape is shared
+     */
+    public static boolean isShared(Shape s) {
+        return s instanceof SharedShape;
+    }
+
+    private static void trim() {
+        while (shapes.size() > maxShapes) {
+            Map.Entry<Key, Shape> eldest = shapes.entrySet().iterator().next();
+            shapes.remove(eldest.getKey());
+        }
+    }
+
+}
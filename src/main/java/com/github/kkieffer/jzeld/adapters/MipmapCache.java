@@ -0,0 +1,342 @@
+
+package com.github.kkieffer.jzeld.adapters;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A shared cache of reduced resolution copies (mipmap levels) of images.  Each level is half the size of the previous one, built
+ * with a 2x2 area average, so drawing a large image into a small area samples from a level close to the target size instead of
+ * the full resolution source.  Levels are generated lazily and keyed on the SerializableImage id, so exact copies of an image
+ * (for instance in the undo stack) share the same levels.  The total size of the cache is bounded, least recently used levels are
+ * discarded first.
+ * <p>
+ * The cache also holds a full size rendering copy of each image, converted to the format of the display (level zero). Images loaded
+ * in custom or non-premultiplied formats would otherwise be converted by Java2D on every draw. The original image is left untouched
+ * for saving.  These copies have their own, separately bounded, space in the cache.  A copy larger than a quarter of that space is
+ * not made and the original is drawn instead, so a few large images on screen can't evict each other's copies on every paint.
+ *
+ * @author kkieffer
+ */
+public final class MipmapCache {
+
+    private static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+    private static final long DEFAULT_MAX_COMPATIBLE_BYTES = 128L * 1024 * 1024;
+    private static final int MIN_COMPATIBLE_COPIES = 4;  //a copy may use at most this fraction of the compatible space
+
+    private static final class LevelKey {
+
+        private final long imageId;
+        private final int level;
+
+        private LevelKey(long imageId, int level) {
+            this.imageId = imageId;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LevelKey))
+                return false;
+            LevelKey k = (LevelKey)o;
+            return imageId == k.imageId && level == k.level;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(imageId, level);
+        }
+    }
+
+    private static final LinkedHashMap<LevelKey, BufferedImage> levels = new LinkedHashMap<>(16, 0.75f, true);  //access order for LRU
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long currentBytes = 0;
+
+    private static final LinkedHashMap<Long, BufferedImage> compatibleCopies = new LinkedHashMap<>(16, 0.75f, true);  //level zero, by image id
+    private static long maxCompatibleBytes = DEFAULT_MAX_COMPATIBLE_BYTES;
+    private static long compatibleBytes = 0;
+
+    private MipmapCache() {}
+
+    /**
+     * Sets the maximum amount of memory the cached levels may occupy. Existing levels are discarded if over the new limit.
+     * @param bytes the maximum bytes, zero to disable caching
+     */
+    public static synchronized void setMaxBytes(long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("Max bytes cannot be negative");
+        maxBytes = bytes;
+        trim();
+    }
+
+    public static synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the maximum amount of memory the full size compatible copies may occupy, separately from the mipmap levels. Existing copies
+     * are discarded if over the new limit. Images whose copy would be larger than a quarter of this are drawn from the original.
+     * @param bytes the maximum bytes, zero to always draw the originals
+     */
+    public static synchronized void setMaxCompatibleBytes(long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("Max bytes cannot be negative");
+        maxCompatibleBytes = bytes;
+        trimCompatible();
+    }
+
+    public static synchronized long getMaxCompatibleBytes() {
+        return maxCompatibleBytes;
+    }
+
+    /**
+     * Get the configuration to create compatible images for, if the graphics draws to the screen.  Printers and other devices
+     * should be given the original image.
+     * @param g the graphics to be drawn on
+     * @return the screen configuration, or null if the graphics is not a screen
+     */
+    public static GraphicsConfiguration getScreenConfiguration(Graphics2D g) {
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        if (gc == null || gc.getDevice().getType() != GraphicsDevice.TYPE_RASTER_SCREEN)
+            return null;
+        return gc;
+    }
+    
+    /**
+     * Discard all cached levels
+     */
+    public static synchronized void clear() {
+        levels.clear();
+        currentBytes = 0;
+        compatibleCopies.clear();
+        compatibleBytes = 0;
+    }
+
+
+    /**
+     * Get the image to draw for the target size.  This is the smallest mipmap level that is at least as large as the target
+     * in both dimensions, or the original image if there is no such reduced level.
+     * @param src the source image
+     * @param targetWidth the width, in pixels, the image will be drawn at
+     * @param targetHeight the height, in pixels, the image will be drawn at
+     * @return the image to draw, which may be the original
+     */
+    public static Image getImage(SerializableImage src, double targetWidth, double targetHeight) {
+        return getImage(src, targetWidth, targetHeight, null);
+    }
+    
+    /**
+     * Get the image to draw for the target size.  This is the smallest mipmap level that is at least as large as the target
+     * in both dimensions, or if there is no such reduced level, a full size copy compatible with the graphics configuration.
+     * @param src the source image
+     * @param targetWidth the width, in pixels, the image will be drawn at
+     * @param targetHeight the height, in pixels, the image will be drawn at
+     * @param gc the configuration of the device drawn on, if null the original image is used instead of a compatible copy
+     * @return the image to draw, which may be the original
+     */
+    public static Image getImage(SerializableImage src, double targetWidth, double targetHeight, GraphicsConfiguration gc) {
+
+        Image original = src.getImage();
+        if (!(original instanceof BufferedImage) || targetWidth <= 0 || targetHeight <= 0)
+            return getCompatibleImage(src, gc);
+
+        BufferedImage img = (BufferedImage)original;
+
+        //Find the number of halvings that keeps the level at or above the target size
+        double reduction = Math.min(img.getWidth() / targetWidth, img.getHeight() / targetHeight);
+        int level = 0;
+        while (reduction >= 2.0) {
+            reduction /= 2.0;
+            level++;
+        }
+
+        if (level == 0)
+            return getCompatibleImage(src, gc);
+
+        return getLevel(src.getImageId(), img, level);
+    }
+    
+    
+    /**
+     * Get a full size copy of the image in the format of the graphics configuration, which draws without per-pixel conversion.  
+     * If the image is already in a compatible format, or a copy is too large to keep, the original is returned.
+     * @param src the source image
+     * @param gc the configuration of the device drawn on, if null the original image is returned
+     * @return the image to draw, which may be the original
+     */
+    public static Image getCompatibleImage(SerializableImage src, GraphicsConfiguration gc) {
+        
+        Image original = src.getImage();
+        if (gc == null || !(original instanceof BufferedImage))
+            return original;
+        
+        BufferedImage img = (BufferedImage)original;
+        ColorModel target = gc.getColorModel(img.getTransparency());
+        if (isCompatible(img, target))
+            return original;
+        
+        long bytes = 4L * img.getWidth() * img.getHeight();
+        Long key = src.getImageId();
+        synchronized (MipmapCache.class) {
+            if (bytes > maxCompatibleBytes / MIN_COMPATIBLE_COPIES)  //couldn't be kept, converting it on every paint is slower than drawing the original
+                return original;
+            
+            BufferedImage cached = compatibleCopies.get(key);
+            if (cached != null && cached.getColorModel().equals(target))
+                return cached;
+        }
+        
+        //Convert outside the lock, so a large image doesn't hold up painting other images
+        BufferedImage compatible = gc.createCompatibleImage(img.getWidth(), img.getHeight(), img.getTransparency());
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        
+        synchronized (MipmapCache.class) {
+            BufferedImage replaced = compatibleCopies.put(key, compatible);  //replaces a copy made for another device, or by another thread
+            if (replaced != null)
+                compatibleBytes -= 4L * replaced.getWidth() * replaced.getHeight();
+            compatibleBytes += bytes;
+            trimCompatible();
+        }
+        return compatible;
+    }
+    
+    
+    private static boolean isCompatible(BufferedImage img, ColorModel target) {
+        return img.getColorModel().equals(target) && target.isCompatibleRaster(img.getRaster());
+    }
+
+
+    //Levels are built outside the lock, so building a large image's levels doesn't hold up painting other images
+    private static BufferedImage getLevel(long imageId, BufferedImage original, int level) {
+
+        //Start from the largest level already cached at or below the one wanted
+        BufferedImage img = original;
+        int built = 0;
+        synchronized (MipmapCache.class) {
+            for (int l = level; l > 0; l--) {
+                BufferedImage cached = levels.get(new LevelKey(imageId, l));
+                if (cached != null) {
+                    img = cached;
+                    built = l;
+                    break;
+                }
+            }
+        }
+
+        while (built < level) {
+            img = halve(img);
+            built++;
+            synchronized (MipmapCache.class) {
+                put(new LevelKey(imageId, built), img);
+            }
+        }
+        return img;
+    }
+    
+    
+    private static void put(LevelKey key, BufferedImage img) {
+        remove(key);  //another thread may have built the same level
+        long bytes = 4L * img.getWidth() * img.getHeight();
+        if (bytes <= maxBytes) {
+            levels.put(key, img);
+            currentBytes += bytes;
+            trim();
+        }
+    }
+    
+    private static void remove(LevelKey key) {
+        BufferedImage i = levels.remove(key);
+        if (i != null)
+            currentBytes -= 4L * i.getWidth() * i.getHeight();
+    }
+
+
+    private static void trimCompatible() {
+        Iterator<BufferedImage> it = compatibleCopies.values().iterator();
+        while (compatibleBytes > maxCompatibleBytes && it.hasNext()) {
+            BufferedImage i = it.next();
+            compatibleBytes -= 4L * i.getWidth() * i.getHeight();
+            it.remove();
+        }
+    }
+
+    private static void trim() {
+        Iterator<Map.Entry<LevelKey, BufferedImage>> it = levels.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            BufferedImage i = it.next().getValue();
+            currentBytes -= 4L * i.getWidth() * i.getHeight();
+            it.remove();
+        }
+    }
+
+
+    /**
+     * Halve the image dimensions, each destination pixel is the average of the 2x2 block of source pixels.  Averaging is done on
+     * premultiplied values so transparent pixels don't darken their neighbors.
+     * @param src source image
+     * @return a new premultiplied ARGB image, half the size (rounded up)
+     */
+    private static BufferedImage halve(BufferedImage src) {
+
+        if (src.getType() != BufferedImage.TYPE_INT_ARGB_PRE) {
+            BufferedImage pre = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = pre.createGraphics();
+            g.drawImage(src, 0, 0, null);
+            g.dispose();
+            src = pre;
+        }
+
+        int srcW = src.getWidth();
+        int srcH = src.getHeight();
+        int dstW = (srcW + 1) / 2;
+        int dstH = (srcH + 1) / 2;
+
+        BufferedImage dst = new BufferedImage(dstW, dstH, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        //Read and write by rows through the rasters, which handles sub-images with offsets and strides, and doesn't take the
+        //data arrays, which would stop Java2D from accelerating the caller's image or the level
+        Raster in = src.getRaster();
+        WritableRaster out = dst.getRaster();
+        int[] s0 = new int[srcW];
+        int[] s1 = new int[srcW];
+        int[] d = new int[dstW];
+
+        for (int y = 0; y < dstH; y++) {
+            in.getDataElements(0, 2 * y, srcW, 1, s0);
+            in.getDataElements(0, Math.min(2 * y + 1, srcH - 1), srcW, 1, s1);
+
+            for (int x = 0; x < dstW; x++) {
+                int x0 = 2 * x;
+                int x1 = Math.min(x0 + 1, srcW - 1);
+
+                int p0 = s0[x0];
+                int p1 = s0[x1];
+                int p2 = s1[x0];
+                int p3 = s1[x1];
+
+                int a = ((p0 >>> 24) + (p1 >>> 24) + (p2 >>> 24) + (p3 >>> 24) + 2) >> 2;
+                int r = (((p0 >> 16) & 0xFF) + ((p1 >> 16) & 0xFF) + ((p2 >> 16) & 0xFF) + ((p3 >> 16) & 0xFF) + 2) >> 2;
+                int g = (((p0 >> 8) & 0xFF) + ((p1 >> 8) & 0xFF) + ((p2 >> 8) & 0xFF) + ((p3 >> 8) & 0xFF) + 2) >> 2;
+                int b = ((p0 & 0xFF) + (p1 & 0xFF) + (p2 & 0xFF) + (p3 & 0xFF) + 2) >> 2;
+
+                d[x] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+            out.setDataElements(0, y, dstW, 1, d);
+        }
+
+        return dst;
+    }
+
+}
@@ -0,0 +1,128 @@
+
+package com.github.kkieffer.jzeld.adapters;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A shared cache of rasters that elements render of their content and draw on later paints, such as the rendered text of a
+ * ZEditableText or the images of a ZSymbol.  Each raster is stored under a key object of its owner's, and the total size of all the
+ * rasters is bounded, least recently used rasters are discarded first.  A raster larger than a quarter of the limit is not
+ * kept, so a few large rasters can't evict each other on every paint.
+ * <p>
+ * The owner tracks what the raster was rendered for; the cache only holds it.  An owner that no longer needs its rasters, for
+ * instance when removed from the canvas, should remove them.
+ *
+ * @author kkieffer
+ */
+public final class RasterCache {
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int MIN_RASTERS = 4;  //a raster may use at most this fraction of the cache
+
+    private static final LinkedHashMap<Object, BufferedImage> rasters = new LinkedHashMap<>(64, 0.75f, true);  //access order for LRU
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long currentBytes = 0;
+
+    private RasterCache() {}
+
+    /**
+     * Sets the maximum amount of memory the rasters may occupy. Rasters are discarded if over the new limit.
+     * @param bytes the maximum bytes, zero to disable caching
+     */
+    public static synchronized void setMaxBytes(long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("Max bytes cannot be negative");
+        maxBytes = bytes;
+        trim();
+    }
+
+    public static synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the memory used by the cached rasters
+     * @return the bytes used
+     */
+    public static synchronized long getBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Discard all cached rasters
+     */
+    public static synchronized void clear() {
+        rasters.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Check if a raster of the size would be kept by the cache
+     * @param pixelWidth the width of the raster
+     * @param pixelHeight the height of the raster
+     * @return true if small enough to cache
+     */
+    public static synchronized boolean fits(int pixelWidth, int pixelHeight) {
+        return pixelWidth > 0 && pixelHeight > 0 && 4L * pixelWidth * pixelHeight <= maxBytes / MIN_RASTERS;
+    }
+
+    /**
+     * Get the owner's raster
+     * @param key the owner's key
+     * @return the raster, or null if none or it was discarded
+     */
+    public static synchronized BufferedImage get(Object key) {
+        return rasters.get(key);
+    }
+
+    /**
+     * Check if the owner's raster is still cached, without counting as a use of it
+     * @param key the owner's key
+     * @return true if cached
+     */
+    public static synchronized boolean contains(Object key) {
+        return rasters.containsKey(key);
+    }
+
+    /**
+     * Store the owner's raster, replacing any previous one
+     * @param key the owner's key, compared with equals()
+     * @param raster the raster
+     * @return true if the raster was kept, false if too large
+     */
+    public static synchronized boolean put(Object key, BufferedImage raster) {
+        remove(key);
+        if (!fits(raster.getWidth(), raster.getHeight()))
+            return false;
+
+        rasters.put(key, raster);
+        currentBytes += bytes(raster);
+        trim();
+        return true;
+    }
+
+    /**
+     * Discard the owner's raster
+     * @param key the owner's key
+     */
+    public static synchronized void remove(Object key) {
+        BufferedImage i = rasters.remove(key);
+        if (i != null)
+            currentBytes -= bytes(i);
+    }
+
+    private static long bytes(BufferedImage i) {
+        return 4L * i.getWidth() * i.getHeight();
+    }
+
+    private static void trim() {
+        Iterator<BufferedImage> it = rasters.values().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            currentBytes -= bytes(it.next());
+            it.remove();
+        }
+    }
+
+}
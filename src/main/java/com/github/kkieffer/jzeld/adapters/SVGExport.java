@@ -2,10 +2,12 @@
 package com.github.kkieffer.jzeld.adapters;
 
 import com.github.kkieffer.jzeld.ZCanvas;
+import com.github.kkieffer.jzeld.jfr.SVGExportEvent;
 import java.awt.RenderingHints;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
@@ -32,6 +34,9 @@ public class SVGExport {
      */
     public static void toSVG(ZCanvas c, Writer w) throws UnsupportedEncodingException, SVGGraphics2DIOException {
         
+        SVGExportEvent event = new SVGExportEvent();
+        event.begin();
+        
         // Get a DOMImplementation.
         DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
 
@@ -56,7 +61,12 @@ public class SVGExport {
 
 
         boolean useCSS = true; // we want to use CSS style attributes
-        g2d.stream(w, useCSS);
+        CountingWriter counter = new CountingWriter(w);
+        g2d.stream(counter, useCSS);
+        
+        event.elementCount = c.getNumElements();
+        event.characters = counter.count;
+        event.commit();
     
     }
     
@@ -75,4 +85,32 @@ public class SVGExport {
     }
     
     
+    //Counts the characters written, for the export event
+    private static class CountingWriter extends FilterWriter {
+        
+        private long count = 0;
+        
+        private CountingWriter(Writer w) {
+            super(w);
+        }
+        
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+        
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            super.write(cbuf, off, len);
+            count += len;
+        }
+        
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            super.write(str, off, len);
+            count += len;
+        }
+    }
+    
 }
@@ -1,13 +1,16 @@
 
 package com.github.kkieffer.jzeld.adapters;
 
+import com.github.kkieffer.jzeld.CanvasTask;
 import com.github.kkieffer.jzeld.ZCanvas;
 import com.github.kkieffer.jzeld.attributes.PaintAttributes;
+import com.github.kkieffer.jzeld.element.ZAbstractShape.ComputeProgress;
 import com.github.kkieffer.jzeld.element.ZElement;
 import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
 import com.github.kkieffer.jzeld.element.ZGroupedElement;
 import com.github.kkieffer.jzeld.element.ZImage;
 import com.github.kkieffer.jzeld.element.ZShape;
+import com.github.kkieffer.jzeld.jfr.SVGImportEvent;
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
@@ -30,6 +33,7 @@ import java.net.URL;
 import java.text.AttributedCharacterIterator;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.zip.GZIPInputStream;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -90,7 +94,8 @@ public class SVGImport {
     private final URL url;  
     private AlphaComposite currentAlphaComposite;
     private AffineTransform currentTransform;
-    private final ZCanvas canvas;
+    private final Rectangle2D canvasBounds;
+    private final ComputeProgress progress;
     private final ParseErrorList parseErrors = new ParseErrorList();
     private BridgeContext bridge;
     private int svgElements = 0;
@@ -103,11 +108,59 @@ public class SVGImport {
      * @throws MalformedURLException 
      */
     public static String[] fromFile(ZCanvas canvas, File f, boolean renderAll) throws IOException, ParserConfigurationException, SAXException, TransformerException {
-        SVGImport svgImport = new SVGImport(canvas, f.toURI().toURL() );
-        svgImport.parse(renderAll);
+        SVGImportEvent event = new SVGImportEvent();
+        event.begin();
+        
+        SVGImport svgImport = new SVGImport(canvas, f.toURI().toURL(), null);
+        canvas.addElement(svgImport.parse(renderAll));
+        
+        event.file = f.getPath();
+        event.bytes = f.length();
+        event.elementCount = svgImport.svgElements;
+        event.commit();
         return svgImport.getErrors();
     }
     
+    /**
+     * Import elements from an SVG file, as fromFile(), on a background thread.  The elements are added to the canvas on the event
+     * dispatch thread when complete.
+     * @param canvas the canvas to place the elements
+     * @param f the .svg file
+     * @param renderAll true to render the whole file into a single image
+     * @return the started task, which completes with a list of errors that occurred
+     * @throws MalformedURLException if the file can't be converted to a URL
+     */
+    public static CanvasTask<String[]> fromFileAsync(final ZCanvas canvas, final File f, final boolean renderAll) throws MalformedURLException {
+        
+        final URL url = f.toURI().toURL();
+        final SVGImportEvent event = new SVGImportEvent();
+        event.begin();
+        
+        return new CanvasTask<String[]>("Import " + f.getName()) {
+            
+            private final SVGImport svgImport = new SVGImport(canvas, url, this);
+            private ZElement topElement;
+            
+            @Override
+            protected String[] compute() throws Exception {
+                topElement = svgImport.parse(renderAll);
+                return svgImport.getErrors();
+            }
+
+            @Override
+            protected String[] finish(String[] errors) {
+                canvas.addElement(topElement);
+                
+                event.file = f.getPath();
+                event.bytes = f.length();
+                event.elementCount = svgImport.svgElements;
+                event.commit();
+                return errors;
+            }
+            
+        }.start();
+    }
+    
     /**
      * Import elements from an SVG URL, adding them to the specified canvas
      * @param canvas the canvas to place the elements
@@ -116,8 +169,8 @@ public class SVGImport {
      * @throws MalformedURLException 
      */
     public static String[] fromURL(ZCanvas canvas, URL url, boolean renderAll) throws IOException, ParserConfigurationException, SAXException, TransformerException {
-        SVGImport svgImport = new SVGImport(canvas, url);
-        svgImport.parse(renderAll);
+        SVGImport svgImport = new SVGImport(canvas, url, null);
+        canvas.addElement(svgImport.parse(renderAll));
         return svgImport.getErrors();
     }
  
@@ -128,9 +181,19 @@ public class SVGImport {
     }
     
     //Private constructor - use factory methods above
-    private SVGImport(ZCanvas canvas, URL url) {
+    private SVGImport(ZCanvas canvas, URL url, ComputeProgress progress) {
         this.url = url;
-        this.canvas = canvas;
+        this.canvasBounds = canvas.getCanvasBounds();
+        this.progress = progress;
+    }
+
+    //Report progress, and stop if cancelled
+    private void checkpoint(float percent) {
+        if (progress == null)
+            return;
+        if (progress.isCancelled())
+            throw new CancellationException("SVG import cancelled");
+        progress.progress(percent);
     }
 
  
@@ -149,11 +212,15 @@ public class SVGImport {
             }
         });
         
+        InputStream in = url.openStream();
+        if (progress != null)  //report progress through the file
+            in = new CanvasTask.ProgressInputStream(in, url.openConnection().getContentLengthLong(), progress, 0.0f, 30.0f);
+        
         InputSource input;
         if (url.toString().endsWith(".svgz")) 
-            input = new InputSource(new GZIPInputStream(url.openStream()));
+            input = new InputSource(new GZIPInputStream(in));
         else 
-            input = new InputSource(url.openStream());
+            input = new InputSource(in);
         
         SAXSource source = new SAXSource(reader, input);
         
@@ -170,7 +237,7 @@ public class SVGImport {
     }
 
 
-    private void parse(boolean renderAll) throws IOException, ParserConfigurationException, SAXException, TransformerException {
+    private ZElement parse(boolean renderAll) throws IOException, ParserConfigurationException, SAXException, TransformerException {
 
         UserAgentAdapter ua = new UserAgentAdapter();
         DocumentLoader loader = new DocumentLoader(ua);
@@ -179,11 +246,11 @@ public class SVGImport {
         ua.setBridgeContext(bridge);
         
         Document svgDoc = loader.loadDocument(url.toString(), getInputStream());
+        checkpoint(40.0f);
         new GVTBuilder().build(bridge, svgDoc);
+        checkpoint(60.0f);
 
-        parseNodes(renderAll);
-            
-        
+        return parseNodes(renderAll);
     }
     
     private String getIDString(GraphicsNode n) {
@@ -198,7 +265,7 @@ public class SVGImport {
     }
 
  
-    private void parseNodes(boolean renderAll) throws IOException {
+    private ZElement parseNodes(boolean renderAll) throws IOException {
         
         
         GraphicsNode root = bridge.getGraphicsNode(bridge.getDocument());
@@ -224,15 +291,13 @@ public class SVGImport {
         topElement.reposition(0, 0, 1.0, 1.0);  //move to origin
 
         Rectangle2D groupBounds = topElement.getBounds2D();
-        Rectangle2D canvasBounds = canvas.getCanvasBounds();
         
         //Scale to maximally fit canvas
         double scale = Math.min(canvasBounds.getWidth()/groupBounds.getWidth(), canvasBounds.getHeight()/groupBounds.getHeight());
         
         topElement.scaleSize(scale, scale);
         
-        canvas.addElement(topElement);
-        
+        return topElement;
     }
     
     
@@ -259,6 +324,7 @@ public class SVGImport {
      */
     private void parseGraphicsNode(GraphicsNode node, ArrayList<ZElement> parentElements) {
         
+        checkpoint(60.0f + 40.0f * svgElements / (svgElements + 100.0f));  //the node count is unknown, approach 100
    
         //Get the current alpha and transform for this node
         currentAlphaComposite = SVGImportUtils.getGlobalAlphaComposite(node);        
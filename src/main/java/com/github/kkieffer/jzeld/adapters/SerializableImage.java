@@ -11,9 +11,11 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.imageio.ImageIO;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import sun.awt.image.ToolkitImage;
 
 /**
@@ -85,8 +87,10 @@ public class SerializableImage implements Serializable {
     }
     
     
+    private static final AtomicLong nextImageId = new AtomicLong();
+    
     transient private Image image; //marked transient for Serializable - custom read/write object will restore it from bytes
-
+    transient private long imageId = nextImageId.incrementAndGet();  //identifies the image content, shared by exact copies
     
     public SerializableImage() {}
     
@@ -97,6 +101,7 @@ public class SerializableImage implements Serializable {
     
     public SerializableImage(SerializableImage i) {
         this.image = copyImage((BufferedImage)i.image);
+        this.imageId = i.imageId;  //exact copy, same content
     }
     
     private void writeObject(ObjectOutputStream out) throws IOException {
@@ -111,6 +116,7 @@ public class SerializableImage implements Serializable {
         boolean imageExists = in.readBoolean();
         if (imageExists)
             image = ImageIO.read(in);
+        imageId = nextImageId.incrementAndGet();
     }
     
     
@@ -121,8 +127,19 @@ public class SerializableImage implements Serializable {
     @XmlElement (name = "Image")
     public void setImage(Image i) {
         this.image = i;
+        imageId = nextImageId.incrementAndGet();
     } 
     
+    /**
+     * An identifier for the image content.  Exact copies made with the copy constructor share the same id, so derived images (such
+     * as mipmap levels) can be shared between them.  Setting a new image assigns a new id.
+     * @return the image id
+     */
+    @XmlTransient
+    public long getImageId() {
+        return imageId;
+    }
+    
     public Image getImageCopy() {
         return copyImage((BufferedImage)image);
     }
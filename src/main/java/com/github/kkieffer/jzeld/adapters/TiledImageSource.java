@@ -0,0 +1,374 @@
+
+package com.github.kkieffer.jzeld.adapters;
+
+import com.github.kkieffer.jzeld.ZRenderingHints;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * An image that is decoded on demand, in tiles, rather than held in memory.  Only the tiles that intersect the visible region are
+ * decoded, and at the resolution required for the current scale, using ImageReadParam source regions and power of two subsampling.
+ * Decoded tiles are kept in a shared, memory-bounded LRU cache.
+ * <p>
+ * The image is read either from a file (only the path is stored) or from an embedded copy of the encoded image file bytes, which
+ * is stored when saved.  The source is immutable, so element copies may share it.
+ * <p>
+ * The decoder holds the file open while in use; close() releases it, and it is reopened if the source is painted again.  Tiles are
+ * identified by the content of the source, the file's path and modification time or the embedded bytes, so a deserialized or
+ * reloaded copy of a source reuses the tiles already decoded.
+ *
+ * @author kkieffer
+ */
+@XmlRootElement(name = "TiledImageSource")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class TiledImageSource implements Serializable {
+
+    private static final int TILE_SIZE = 512;  //tile dimensions, in subsampled pixels
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final class TileKey {
+
+        private final long sourceId;
+        private final int subsampling;
+        private final int tileX;
+        private final int tileY;
+
+        private TileKey(long sourceId, int subsampling, int tileX, int tileY) {
+            this.sourceId = sourceId;
+            this.subsampling = subsampling;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey))
+                return false;
+            TileKey k = (TileKey)o;
+            return sourceId == k.sourceId && subsampling == k.subsampling && tileX == k.tileX && tileY == k.tileY;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceId, subsampling, tileX, tileY);
+        }
+    }
+
+    private static final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true);  //access order for LRU
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long currentBytes = 0;
+
+
+    private String file;  //path to the image file, or null if embedded
+    private byte[] data;  //the encoded image file, or null if read from a file
+
+    private transient long sourceId;  //identifies the content, for the tile cache, zero until computed
+    private transient ImageReader reader;
+    private transient ImageInputStream stream;
+    private transient int width;
+    private transient int height;
+
+
+    private TiledImageSource() {}
+
+    private TiledImageSource(String file, byte[] data) throws IOException {
+        this.file = file;
+        this.data = data;
+        open();  //check that the image can be read
+    }
+
+    /**
+     * Create a tiled source that reads from an image file.  Only the path is saved, so the file must remain available.
+     * @param f the image file
+     * @return the new source
+     * @throws IOException if the file cannot be read, or no ImageReader supports its format
+     */
+    public static TiledImageSource fromFile(File f) throws IOException {
+        return new TiledImageSource(f.getAbsolutePath(), null);
+    }
+
+    /**
+     * Create a tiled source that reads from an encoded image file (PNG, JPEG, TIFF, etc) held in memory.  The bytes are saved with the element.
+     * @param encoded the encoded image file contents
+     * @return the new source
+     * @throws IOException if no ImageReader supports the format
+     */
+    public static TiledImageSource fromBytes(byte[] encoded) throws IOException {
+        return new TiledImageSource(null, encoded.clone());
+    }
+
+    /**
+     * Create a tiled source that embeds a copy of an image file.
+     * @param f the image file
+     * @return the new source
+     * @throws IOException if the file cannot be read, or no ImageReader supports its format
+     */
+    public static TiledImageSource embedFile(File f) throws IOException {
+        return new TiledImageSource(null, Files.readAllBytes(f.toPath()));
+    }
+
+
+    /**
+     * Sets the maximum amount of memory decoded tiles may occupy, for all sources.
+     * @param bytes the maximum bytes
+     */
+    public static synchronized void setMaxBytes(long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("Max bytes cannot be negative");
+        maxBytes = bytes;
+        trim();
+    }
+
+    public static synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+
+    //Identify the source by its content, so copies, including those deserialized or loaded from a saved canvas, share tiles
+    private synchronized long getSourceId() {
+        if (sourceId != 0)
+            return sourceId;
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            if (file != null) {
+                File f = new File(file);
+                md.update(file.getBytes(StandardCharsets.UTF_8));
+                md.update(ByteBuffer.allocate(16).putLong(f.lastModified()).putLong(f.length()).array());  //a changed file is a new source
+            }
+            else
+                md.update(data);
+            sourceId = ByteBuffer.wrap(md.digest()).getLong();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);  //every Java platform supports SHA-256
+        }
+        if (sourceId == 0)
+            sourceId = 1;
+        return sourceId;
+    }
+
+
+    //Open the reader if not open.  Must be called with the lock on this source held.
+    private void open() throws IOException {
+        if (reader != null)
+            return;
+
+        ImageInputStream in = ImageIO.createImageInputStream(file != null ? new File(file) : new ByteArrayInputStream(data));
+        if (in == null)
+            throw new IOException("Unable to open image " + (file != null ? file : "data"));
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            in.close();
+            throw new IOException("No reader for image " + (file != null ? file : "data"));
+        }
+
+        stream = in;
+        reader = readers.next();
+        reader.setInput(stream, true, true);
+        try {
+            width = reader.getWidth(0);
+            height = reader.getHeight(0);
+        } catch (IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Release the decoder and close the file.  Tiles already decoded remain cached, and the source is reopened if painted again.
+     */
+    public synchronized void close() {
+        if (reader != null) {
+            reader.dispose();
+            reader = null;
+        }
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ex) {}  //nothing more to release
+            stream = null;
+        }
+    }
+
+
+    public synchronized int getWidth() {
+        if (width == 0) {  //not yet read, once known, there's no need to open the decoder
+            try {
+                open();
+            } catch (IOException ex) {
+                return 0;
+            }
+        }
+        return width;
+    }
+
+    public synchronized int getHeight() {
+        if (height == 0) {  //not yet read, once known, there's no need to open the decoder
+            try {
+                open();
+            } catch (IOException ex) {
+                return 0;
+            }
+        }
+        return height;
+    }
+
+    /**
+     * The file this source reads from
+     * @return the file, or null if the image is embedded
+     */
+    public File getFile() {
+        return file == null ? null : new File(file);
+    }
+
+
+    /**
+     * Decode the whole image, subsampled so that neither dimension exceeds the maximum.
+     * @param maxDimension the largest width or height desired
+     * @return the decoded image
+     * @throws IOException if the image cannot be read
+     */
+    public synchronized BufferedImage readImage(int maxDimension) throws IOException {
+        open();
+        int sub = 1;
+        while (width / sub > maxDimension || height / sub > maxDimension)
+            sub *= 2;
+
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(sub, sub, 0, 0);
+        return reader.read(0, param);
+    }
+
+
+    private BufferedImage getTile(int sub, int tileX, int tileY) throws IOException {
+
+        TileKey key = new TileKey(getSourceId(), sub, tileX, tileY);
+        synchronized (TiledImageSource.class) {
+            BufferedImage tile = tiles.get(key);
+            if (tile != null)
+                return tile;
+        }
+
+        BufferedImage tile;
+        synchronized (this) {
+            open();
+            int span = TILE_SIZE * sub;  //tile size in source pixels
+            int x = tileX * span;
+            int y = tileY * span;
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(x, y, Math.min(span, width - x), Math.min(span, height - y)));
+            param.setSourceSubsampling(sub, sub, 0, 0);
+            tile = reader.read(0, param);
+        }
+
+        synchronized (TiledImageSource.class) {
+            BufferedImage existing = tiles.get(key);  //another thread may have decoded it meanwhile
+            if (existing != null)
+                return existing;
+            
+            long bytes = 4L * tile.getWidth() * tile.getHeight();
+            if (bytes <= maxBytes) {
+                tiles.put(key, tile);
+                currentBytes += bytes;
+                trim();
+            }
+        }
+        return tile;
+    }
+
+
+    private static void trim() {
+        Iterator<Map.Entry<TileKey, BufferedImage>> it = tiles.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            BufferedImage i = it.next().getValue();
+            currentBytes -= 4L * i.getWidth() * i.getHeight();
+            it.remove();
+        }
+    }
+
+
+    /**
+     * Paint the image, scaled to fill the rectangle from 0,0 to width,height.  Only the tiles intersecting the graphics clip are drawn,
+     * at the coarsest subsampling that still provides at least one image pixel per device pixel.
+     * @param g graphics to draw on
+     * @param w the width to draw the image, in graphics coordinates
+     * @param h the height to draw the image, in graphics coordinates
+     * @throws IOException if the image cannot be read
+     */
+    public void paint(Graphics2D g, double w, double h) throws IOException {
+
+        int imgW = getWidth();
+        int imgH = getHeight();
+        if (imgW <= 0 || imgH <= 0 || w <= 0 || h <= 0)
+            return;
+
+        //Choose the subsampling from the device pixel size of the image
+        AffineTransform t = g.getTransform();
+        double devW = w * Math.hypot(t.getScaleX(), t.getShearY());
+        double devH = h * Math.hypot(t.getShearX(), t.getScaleY());
+        double reduction = Math.min(imgW / devW, imgH / devH);
+        int sub = 1;
+        while (reduction >= 2.0) {
+            reduction /= 2.0;
+            sub *= 2;
+        }
+
+        //Find the visible part of the image, in source pixels
+        Rectangle2D visible = new Rectangle2D.Double(0, 0, w, h);
+        Rectangle clip = g.getClipBounds();
+        if (clip != null)
+            Rectangle2D.intersect(visible, clip, visible);
+        if (visible.isEmpty())
+            return;
+
+        double sx = imgW / w;
+        double sy = imgH / h;
+        int span = TILE_SIZE * sub;
+        int firstX = (int)(visible.getMinX() * sx) / span;
+        int lastX = Math.min((int)Math.ceil(visible.getMaxX() * sx) - 1, imgW - 1) / span;
+        int firstY = (int)(visible.getMinY() * sy) / span;
+        int lastY = Math.min((int)Math.ceil(visible.getMaxY() * sy) - 1, imgH - 1) / span;
+
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, ZRenderingHints.isDraft(g) ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+
+                BufferedImage tile = getTile(sub, tx, ty);
+
+                //Each tile pixel covers sub x sub source pixels
+                AffineTransform at = AffineTransform.getTranslateInstance(tx * span / sx, ty * span / sy);
+                at.scale(sub / sx, sub / sy);
+                g.drawImage(tile, at, null);
+            }
+        }
+
+    }
+
+}
@@ -1,10 +1,13 @@
 
 package com.github.kkieffer.jzeld.attributes;
 
+import com.github.kkieffer.jzeld.ZCanvasMetrics;
 import com.github.kkieffer.jzeld.adapters.JAXBAdapter;
+import com.github.kkieffer.jzeld.adapters.MipmapCache;
 import com.github.kkieffer.jzeld.adapters.SerializableImage;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.LinearGradientPaint;
 import java.awt.MultipleGradientPaint.CycleMethod;
 import java.awt.Paint;
@@ -14,7 +17,12 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -48,12 +56,80 @@ public class PaintAttributes implements Serializable {
     private float imgWidth;
     private float imgHeight;
     
+    private static final int MAX_CACHED_PAINTS = 4;  //an element is rarely painted at more than a few sizes (canvas, thumbnail, print)
+    
+    //Pool of identical attributes, shared across elements (and their undo copies) so they also share the cached Paints
+    private static final Map<PaintAttributes, WeakReference<PaintAttributes>> internPool = new WeakHashMap<>();
+    
     //Cached values below to avoid creating new Paint unless the attributes change
-    private transient Paint paint = null;
-    private transient Double width = null;
-    private transient Double height = null;
-    private transient Boolean flipHoriz = null;
-    private transient Boolean flipVert = null;
+    private transient Map<PaintKey, Paint> paintCache;
+    private transient float[][] conicalDist;   //sorted distributions for each flip combination, indexed by flipIndex()
+    private transient Color[][] conicalColors;
+    
+    /**
+     * Key for the Paint cache - the Paint depends only on the size and flip of the element, and for patterns, the unit size and 
+     * the screen the pattern image was converted for
+     */
+    private static final class PaintKey {
+        
+        private final double width;
+        private final double height;
+        private final double unitSize;
+        private final boolean flipH;
+        private final boolean flipV;
+        private final GraphicsConfiguration gc;
+        
+        private PaintKey(double width, double height, double unitSize, boolean flipH, boolean flipV, GraphicsConfiguration gc) {
+            this.width = width;
+            this.height = height;
+            this.unitSize = unitSize;
+            this.flipH = flipH;
+            this.flipV = flipV;
+            this.gc = gc;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PaintKey))
+                return false;
+            PaintKey k = (PaintKey)o;
+            return width == k.width && height == k.height && unitSize == k.unitSize && flipH == k.flipH && flipV == k.flipV && Objects.equals(gc, k.gc);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Double.hashCode(width);
+            hash = 31 * hash + Double.hashCode(height);
+            hash = 31 * hash + Double.hashCode(unitSize);
+            hash = 31 * hash + (flipH ? 1 : 0);
+            hash = 31 * hash + (flipV ? 2 : 0);
+            hash = 31 * hash + Objects.hashCode(gc);
+            return hash;
+        }
+    }
+    
+    
+    /**
+     * Returns the canonical instance of the provided paint attributes.  PaintAttributes are immutable, so elements holding equal attributes 
+     * can share a single instance, along with its cached Paints.
+     * @param p the attributes to intern, may be null
+     * @return a shared instance equal to p, or null if p is null
+     */
+    public static PaintAttributes intern(PaintAttributes p) {
+        if (p == null)
+            return null;
+        
+        synchronized (internPool) {
+            WeakReference<PaintAttributes> ref = internPool.get(p);
+            PaintAttributes existing = ref == null ? null : ref.get();
+            if (existing != null)
+                return existing;
+            
+            internPool.put(p, new WeakReference<>(p));
+            return p;
+        }
+    }
+    
     
     private PaintAttributes() {}
     
@@ -88,7 +164,6 @@ public class PaintAttributes implements Serializable {
             cycleMethod = src.cycleMethod;
         }
         
-        paint = null; 
     }
     
     public PaintType getType() {
@@ -156,18 +231,37 @@ public class PaintAttributes implements Serializable {
     
     public void applyPaintAttribute(Graphics2D g2d, double width, double height, double unitSize, boolean flipH, boolean flipV) {
         
-        if (paint != null) {  //existing paint exists, nothing changed
-            if (width == this.width && height == this.height && flipH == this.flipHoriz && flipV == this.flipVert) {
-                g2d.setPaint(paint);
-                return;
-            }         
+        //Only patterns depend on the unit size and the device, leave them out of the key for the gradients so they hit more often
+        boolean pattern = type == PaintType.PATTERN;
+        GraphicsConfiguration gc = pattern ? MipmapCache.getScreenConfiguration(g2d) : null;
+        PaintKey key = new PaintKey(width, height, pattern ? unitSize : 0, flipH, flipV, gc);
+        
+        Paint paint;
+        boolean hit;
+        synchronized (this) {
+            if (paintCache == null) {
+                paintCache = new LinkedHashMap<PaintKey, Paint>(MAX_CACHED_PAINTS + 1, 1.0f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<PaintKey, Paint> eldest) {
+                        return size() > MAX_CACHED_PAINTS;
+                    }
+                };
+            }
+            
+            paint = paintCache.get(key);
+            hit = paint != null;
+            if (!hit) {  //not painted at this size before
+                paint = createPaint(width, height, unitSize, flipH, flipV, gc);
+                paintCache.put(key, paint);
+            }
         }
+        ZCanvasMetrics.getShared().recordGradientCache(hit);
         
-        //Refresh paint
-        this.width = width;
-        this.height = height;
-        this.flipHoriz = flipH;
-        this.flipVert = flipV;
+        g2d.setPaint(paint);
+    }
+    
+    
+    private Paint createPaint(double width, double height, double unitSize, boolean flipHoriz, boolean flipVert, GraphicsConfiguration gc) {
               
         float w = (float)width;
         float h = (float)height;
@@ -179,8 +273,8 @@ public class PaintAttributes implements Serializable {
                 Point2D.Float theStart = new Point2D.Float(flipHoriz ? 1.0f-start.x : start.x, flipVert ? 1.0f-start.y : start.y);
                 Point2D.Float theEnd = new Point2D.Float(flipHoriz ? 1.0f-finish.x : finish.x, flipVert ? 1.0f-finish.y : finish.y);
              
-                paint = new LinearGradientPaint(w * theStart.x, h * theStart.y, w * theEnd.x, h * theEnd.y, dist, colors, cycleMethod);
-                break;
+                return new LinearGradientPaint(w * theStart.x, h * theStart.y, w * theEnd.x, h * theEnd.y, dist, colors, cycleMethod);
+                
             case RADIAL:
                                 
                 float radiusVal = 0.0f;
@@ -203,56 +297,105 @@ public class PaintAttributes implements Serializable {
                 Point2D.Float theFocus = focus == null ? theCenter : new Point2D.Float(flipHoriz ? 1.0f-focus.x : focus.x, flipVert ? 1.0f-focus.y : focus.y);
 
 
-                paint = new RadialGradientPaint(w * theCenter.x, h * theCenter.y, radiusVal, w * theFocus.x, h * theFocus.y, dist, colors, cycleMethod);
-                break;
+                return new RadialGradientPaint(w * theCenter.x, h * theCenter.y, radiusVal, w * theFocus.x, h * theFocus.y, dist, colors, cycleMethod);
                 
             case CONICAL:
                 theCenter = new Point2D.Float(w * (flipHoriz ? 1.0f-center.x : center.x), h * (flipVert ? 1.0f-center.y : center.y));
                 
-                //To handle horizontal flips, each dist (angle) gets negated, which flips left to right.  For vertical flips, each angle is subtracted from 180 degrees (0.5).  Then
-                //any negative value or > 1.0 is reset to its correct position on the 0->1 circle.
-                float[] distFlip = Arrays.copyOf(dist, dist.length);
-                for (int i=0; i<distFlip.length; i++) {
-                    if (flipHoriz)
-                        distFlip[i] = -distFlip[i];
-                    if (flipVert)
-                        distFlip[i] = 0.5f - distFlip[i];
-                    
-                    if (distFlip[i] < 0.0f)
-                        distFlip[i] = 1.0f + distFlip[i];
-                    else if (distFlip[i] > 1.0f)
-                        distFlip[i] -= 1.0f;
-                    
+                //The sorted distributions don't depend on size, so only sort once for each flip combination
+                int flipIndex = (flipHoriz ? 1 : 0) + (flipVert ? 2 : 0);
+                if (conicalDist == null) {
+                    conicalDist = new float[4][];
+                    conicalColors = new Color[4][];
                 }
+                if (conicalDist[flipIndex] == null)
+                    sortConical(flipHoriz, flipVert, flipIndex);
                 
-                Color[] colorFlip = Arrays.copyOf(colors, colors.length);
-
-                //ConicalGradientPaint doesn't like out of order dist arrays, so resort them according to ascending dist values                          
-                //Use Bubble Sort algorithm, and when a dist value moves indicies, move the cooresponding Color
-                for (int n = 0; n < distFlip.length; n++) {
-                    for (int m = 0; m < distFlip.length-1 - n; m++) {
-                        if (distFlip[m] > distFlip[m+1]) {
-                            float swapDist = distFlip[m];
-                            distFlip[m] = distFlip[m + 1];
-                            distFlip[m + 1] = swapDist;
-                            Color swapColor = colorFlip[m];
-                            colorFlip[m] = colorFlip[m + 1];
-                            colorFlip[m + 1] = swapColor;
-                        }
-                    }
-                }
-                
-                
-                paint = new ConicalGradientPaint(theCenter, distFlip, colorFlip);
-                break;
+                return new ConicalGradientPaint(theCenter, conicalDist[flipIndex], conicalColors[flipIndex]);
     
             case PATTERN:
-                                
-                paint = new TexturePaint((BufferedImage)patternImage.getImage(), new Rectangle2D.Double(0, 0, imgWidth * unitSize * (flipHoriz ? -1 : 1), imgHeight * unitSize * (flipVert ? -1 : 1)));
-                break;
                 
+                //On screen, use a copy of the image in the display format so the texture isn't converted on every fill
+                return new TexturePaint((BufferedImage)MipmapCache.getCompatibleImage(patternImage, gc), new Rectangle2D.Double(0, 0, imgWidth * unitSize * (flipHoriz ? -1 : 1), imgHeight * unitSize * (flipVert ? -1 : 1)));
+                
+            default:
+                throw new RuntimeException("Unhandled paint type " + type);
         }
-        g2d.setPaint(paint);
+    }
+    
+    
+    private void sortConical(boolean flipHoriz, boolean flipVert, int flipIndex) {
+        
+        //To handle horizontal flips, each dist (angle) gets negated, which flips left to right.  For vertical flips, each angle is subtracted from 180 degrees (0.5).  Then
+        //any negative value or > 1.0 is reset to its correct position on the 0->1 circle.
+        float[] distFlip = Arrays.copyOf(dist, dist.length);
+        for (int i=0; i<distFlip.length; i++) {
+            if (flipHoriz)
+                distFlip[i] = -distFlip[i];
+            if (flipVert)
+                distFlip[i] = 0.5f - distFlip[i];
+
+            if (distFlip[i] < 0.0f)
+                distFlip[i] = 1.0f + distFlip[i];
+            else if (distFlip[i] > 1.0f)
+                distFlip[i] -= 1.0f;
+
+        }
+
+        Color[] colorFlip = Arrays.copyOf(colors, colors.length);
+
+        //ConicalGradientPaint doesn't like out of order dist arrays, so resort them according to ascending dist values                          
+        //Use Bubble Sort algorithm, and when a dist value moves indicies, move the cooresponding Color
+        for (int n = 0; n < distFlip.length; n++) {
+            for (int m = 0; m < distFlip.length-1 - n; m++) {
+                if (distFlip[m] > distFlip[m+1]) {
+                    float swapDist = distFlip[m];
+                    distFlip[m] = distFlip[m + 1];
+                    distFlip[m + 1] = swapDist;
+                    Color swapColor = colorFlip[m];
+                    colorFlip[m] = colorFlip[m + 1];
+                    colorFlip[m + 1] = swapColor;
+                }
+            }
+        }
+        
+        conicalDist[flipIndex] = distFlip;
+        conicalColors[flipIndex] = colorFlip;
+    }
+    
+    
+    /**
+     * Attributes are equal if they would produce the same Paint.  Pattern attributes are only equal if they share the same image.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof PaintAttributes))
+            return false;
+        
+        PaintAttributes p = (PaintAttributes)o;
+        if (type != p.type)
+            return false;
+        
+        if (type == PaintType.PATTERN)
+            return patternImage.getImage() == p.patternImage.getImage() && imgWidth == p.imgWidth && imgHeight == p.imgHeight;
+        
+        return cycleMethod == p.cycleMethod && radiusRelative == p.radiusRelative && radius == p.radius && 
+               Objects.equals(start, p.start) && Objects.equals(finish, p.finish) && Objects.equals(center, p.center) && Objects.equals(focus, p.focus) &&
+               Arrays.equals(dist, p.dist) && Arrays.equals(colors, p.colors);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Objects.hashCode(type);
+        if (type == PaintType.PATTERN)
+            return 31 * hash + System.identityHashCode(patternImage.getImage());
+        
+        hash = 31 * hash + Objects.hash(cycleMethod, radiusRelative, radius, start, finish, center, focus);
+        hash = 31 * hash + Arrays.hashCode(dist);
+        hash = 31 * hash + Arrays.hashCode(colors);
+        return hash;
     }
     
     
@@ -4,8 +4,10 @@ package com.github.kkieffer.jzeld.draw;
 import com.github.kkieffer.jzeld.ZCanvas;
 import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
 import com.github.kkieffer.jzeld.element.ZShape;
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Shape;
@@ -16,14 +18,19 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
  * This abstract class can be used to help draw shapes with a boundary and no fill.  The subclass can call addPoint() to add new 
  * mouse points to the shape, and then create the shape and add it to the ZCanvas.  Points are connected by straight lines.
  * If a null point is added, it becomes a gap in the drawing between the points on other side of it.
+ * <p>
+ * While drawing, the segments between the points are drawn once into an overlay image at the device resolution, as connected paths so
+ * the joins match the finished shape, so each paint only copies the overlay and draws the line to the mouse. drawClientDirtyRegion()
+ * reports just the area the newest segment and the line to the mouse cover, so the canvas doesn't have to repaint everything as each
+ * point is added.  The line to the mouse is assumed to stay within the bounds of the last point and the mouse.
  * @author kkieffer
  */
 public abstract class BoundaryDraw implements DrawClient, KeyListener {
@@ -77,7 +84,20 @@ public abstract class BoundaryDraw implements DrawClient, KeyListener {
     }
     
         
+    private static final int MAX_OVERLAY_PIXELS = 4096 * 4096;  //larger than this, draw the preview path directly
+    
     protected ArrayList<Point2D> mousePoints = new ArrayList<>();
+    private final Path2D.Double preview = new Path2D.Double();  //the mouse points so far, extended as they are added
+    private boolean previewMove = true;  //the next point starts a new subpath
+    private Rectangle2D pointBounds;  //bounds of all the mouse points
+    
+    private BufferedImage overlay;  //the segments drawn so far, in device pixels
+    private Rectangle2D overlayBounds;  //the area of the canvas the overlay covers
+    private double overlayScale;  //overlay pixels per canvas pixel
+    private BasicStroke overlayStroke;
+    private Color overlayColor;
+    private int overlayCount;  //leading mouse points whose segments are drawn in the overlay
+    private Rectangle2D painted;  //area of the newest segment and the line to the mouse at the last paint
     protected final ZCanvas canvas;
     protected final boolean close;
     protected float strokeWidth;
@@ -154,6 +174,21 @@ public abstract class BoundaryDraw implements DrawClient, KeyListener {
      */
     protected void addPoint(Point2D p) {
         mousePoints.add(p);
+        
+        if (p == null)
+            previewMove = true;
+        else if (previewMove) {
+            preview.moveTo(p.getX(), p.getY());
+            previewMove = false;
+        } else
+            preview.lineTo(p.getX(), p.getY());
+        
+        if (p != null) {
+            if (pointBounds == null)
+                pointBounds = new Rectangle2D.Double(p.getX(), p.getY(), 0, 0);
+            else
+                pointBounds.add(p);
+        }
     }
     
     
@@ -169,22 +204,153 @@ public abstract class BoundaryDraw implements DrawClient, KeyListener {
         
         Graphics2D g2d = (Graphics2D)g;
         
-        g2d.setStroke(new BasicStroke(strokeWidth, lineStyle.getCapType(), lineStyle.getJoinType()));
+        BasicStroke stroke = new BasicStroke(strokeWidth, lineStyle.getCapType(), lineStyle.getJoinType());
+        g2d.setStroke(stroke);
         g2d.setColor(lineColor);
         
-        //Draw lines interconnecting the first point to the last point
-        Point2D previous = null;
-        Iterator<Point2D> it = mousePoints.iterator();
-        while (it.hasNext()) {
-            Point2D curr = it.next();
-            if (previous != null && curr != null)
-                g2d.draw(new Line2D.Double(previous.getX(), previous.getY(), curr.getX(), curr.getY()));
-            previous = curr;
-        }
+        int n = mousePoints.size();
+        
+        //Copy the segments drawn so far, or if there's no overlay, draw them all. The overlay is opaque, and drawn with the line's
+        //alpha, so a translucent line doesn't blend twice where segments overlap
+        if (updateOverlay(g2d, stroke, n)) {
+            AffineTransform t = g2d.getTransform();
+            Composite c = g2d.getComposite();
+            Point2D corner = t.transform(new Point2D.Double(overlayBounds.getX(), overlayBounds.getY()), null);
+            g2d.setTransform(AffineTransform.getTranslateInstance(Math.round(corner.getX()), Math.round(corner.getY())));
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, lineColor.getAlpha() / 255.0f));
+            g2d.drawImage(overlay, 0, 0, null);
+            g2d.setComposite(c);
+            g2d.setTransform(t);
+        } 
+        else
+            g2d.draw(preview);
         
+        Point2D previous = n == 0 ? null : mousePoints.get(n-1);
         drawToMouse(g2d, previous, currentMouse);
         
+        painted = getLiveBounds(currentMouse);
+    }
+    
+    @Override
+    public Rectangle2D drawClientDirtyRegion(Point2D currentMouse) {
+        Rectangle2D live = getLiveBounds(currentMouse);
+        if (painted == null)
+            return live;
+        if (live == null)
+            return painted;
+        
+        Rectangle2D dirty = painted.getBounds2D();
+        dirty.add(live);
+        return dirty;
+    }
+    
+    //The segment from the second to last point to the last point, or null if it is not a segment
+    private Line2D getNewestSegment() {
+        int n = mousePoints.size();
+        if (n < 2)
+            return null;
+        
+        Point2D a = mousePoints.get(n-2);
+        Point2D b = mousePoints.get(n-1);
+        return a == null || b == null ? null : new Line2D.Double(a, b);
+    }
+    
+    //The area covered by the newest segment and the line to the mouse, grown by the stroke, or null if there's neither
+    private Rectangle2D getLiveBounds(Point2D currentMouse) {
+        
+        Rectangle2D live = null;
+        Line2D newest = getNewestSegment();
+        if (newest != null)
+            live = newest.getBounds2D();
+        
+        Point2D last = mousePoints.isEmpty() ? null : mousePoints.get(mousePoints.size()-1);
+        if (last != null && currentMouse != null) {
+            Rectangle2D toMouse = new Rectangle2D.Double(last.getX(), last.getY(), 0, 0);
+            toMouse.add(currentMouse);
+            if (live == null)
+                live = toMouse;
+            else
+                live.add(toMouse);
+        }
+        
+        if (live == null)
+            return null;
+        
+        double grow = strokeWidth + 1;  //caps and antialiasing
+        live.setRect(live.getX() - grow, live.getY() - grow, live.getWidth() + 2*grow, live.getHeight() + 2*grow);
+        return live;
+    }
+    
+    /**
+     * Bring the overlay up to date with the segments between the first count points, recreating it if the device scale or stroke
+     * changed, or if the points outgrew it.
+     * @return true if the overlay can be used, false if the transform isn't a plain scale or the overlay would be too large
+     */
+    private boolean updateOverlay(Graphics2D g2d, BasicStroke stroke, int count) {
+        
+        AffineTransform t = g2d.getTransform();
+        if (t.getShearX() != 0 || t.getShearY() != 0 || t.getScaleX() != t.getScaleY() || t.getScaleX() <= 0 || pointBounds == null) {
+            overlay = null;
+            return false;
+        }
+        double scale = t.getScaleX();
+        
+        double grow = strokeWidth + 1;
+        Rectangle2D needed = new Rectangle2D.Double(pointBounds.getX() - grow, pointBounds.getY() - grow, pointBounds.getWidth() + 2*grow, pointBounds.getHeight() + 2*grow);
+        
+        if (overlay == null || scale != overlayScale || !stroke.equals(overlayStroke) || !lineColor.equals(overlayColor) || !overlayBounds.contains(needed)) {
+            
+            //Leave room to grow, so the overlay is recreated only occasionally as the drawing extends
+            double pad = Math.max(needed.getWidth(), needed.getHeight()) / 2 + 64 / scale;
+            
+            //Align the corner to a device pixel
+            double x = Math.floor((needed.getX() - pad) * scale) / scale;
+            double y = Math.floor((needed.getY() - pad) * scale) / scale;
+            int w = (int)Math.ceil((needed.getMaxX() + pad - x) * scale);
+            int h = (int)Math.ceil((needed.getMaxY() + pad - y) * scale);
+            
+            if ((long)w * h > MAX_OVERLAY_PIXELS) {
+                overlay = null;
+                return false;
+            }
+            
+            overlay = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+            overlayBounds = new Rectangle2D.Double(x, y, w / scale, h / scale);
+            overlayScale = scale;
+            overlayStroke = stroke;
+            overlayColor = lineColor;
+            overlayCount = 0;
+        }
+        
+        if (overlayCount >= count)
+            return true;
+        
+        Graphics2D og = overlay.createGraphics();
+        og.setRenderingHints(g2d.getRenderingHints());
+        og.scale(scale, scale);
+        og.translate(-overlayBounds.getX(), -overlayBounds.getY());
+        og.setStroke(stroke);
+        og.setColor(new Color(lineColor.getRed(), lineColor.getGreen(), lineColor.getBlue()));  //opaque, so redrawn parts don't darken
+        
+        //Draw the new points as one path, starting from the last segment already drawn so the join with it is drawn too
+        Path2D.Double path = new Path2D.Double();
+        boolean move = true;
+        for (int i = Math.max(overlayCount - 2, 0); i < count; i++) {
+            Point2D p = mousePoints.get(i);
+            if (p == null)
+                move = true;
+            else if (move) {
+                path.moveTo(p.getX(), p.getY());
+                move = false;
+            } 
+            else
+                path.lineTo(p.getX(), p.getY());
+        }
+        og.draw(path);
+        og.dispose();
         
+        overlayCount = count;
+        return true;
     }
 
     /**
@@ -200,6 +366,7 @@ public abstract class BoundaryDraw implements DrawClient, KeyListener {
      */
     @Override
     public void drawStop() {
+        overlay = null;
         this.drawComplete();  
         this.canvas.removeKeyListener(this);
     }
@@ -5,6 +5,7 @@ import java.awt.Graphics;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A DrawClient is an object that can draw on the ZCanvas to create new elements. The draw client is passed to the ZCanvas's drawOn() 
@@ -28,6 +29,16 @@ public interface DrawClient {
      * @param currentMouse the current location of the mouse
      */
     public void drawClientPaint(Graphics g, Point2D currentMouse);
+    
+    /**
+     * After a mouse event, the ZCanvas asks for the area that must be repainted to show what changed since the last paint.  The
+     * default returns null, repainting the whole canvas.
+     * @param currentMouse the current location of the mouse
+     * @return the area on the canvas, in the same coordinates as the mouse, or null to repaint everything
+     */
+    public default Rectangle2D drawClientDirtyRegion(Point2D currentMouse) {
+        return null;
+    }
 
     /**
      * The mouse was clicked on the canvas.
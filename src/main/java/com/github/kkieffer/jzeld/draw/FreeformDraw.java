@@ -6,21 +6,137 @@ import com.github.kkieffer.jzeld.element.ZElement;
 import java.awt.Color;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * A drawing object that creates a freeform drawing while holding the mouse down and dragging - straight lines connected the mouse points 
+ * A drawing object that creates a freeform drawing while holding the mouse down and dragging - straight lines connected the mouse points
  * together. When the mouse is released, the freeform drawing resumes from the location the mouse is pressed and dragged at.
  * If the close parameter is specified, the shape is closed by drawing a line from the last point to the first.
- * 
+ * <p>
+ * Mouse points closer than the capture tolerance to the last kept point are dropped as they arrive.  When the drawing completes, each
+ * stroke is simplified with the Ramer-Douglas-Peucker algorithm, and if a curve tolerance is set, fitted with cubic Bezier curves.
+ * All tolerances are in canvas units.
+ *
  * @author kkieffer
  */
 public class FreeformDraw extends BoundaryDraw {
 
+    public static final double DEFAULT_CAPTURE_TOLERANCE = 0.01;
+    public static final double DEFAULT_SIMPLIFY_TOLERANCE = 0.005;
+
+    private double captureTolerance = DEFAULT_CAPTURE_TOLERANCE;
+    private double simplifyTolerance = DEFAULT_SIMPLIFY_TOLERANCE;
+    private double curveTolerance = 0;  //no curve fitting
+
+    private Point2D skipped;  //the latest point dropped by the capture tolerance, kept if the stroke ends there
+
     public FreeformDraw(ZCanvas canvas, boolean close, float strokeWidth, Color lineColor, ZElement.StrokeStyle lineStyle) {
         super(canvas, close, strokeWidth, lineColor, lineStyle);
     }
 
+    /**
+     * Set the distance a new mouse point must be from the last kept point to be kept
+     * @param units the distance in canvas units, 0 to keep all points
+     */
+    public void setCaptureTolerance(double units) {
+        captureTolerance = units;
+    }
+
+    public double getCaptureTolerance() {
+        return captureTolerance;
+    }
+
+    /**
+     * Set the maximum distance from the drawn points to the simplified lines
+     * @param units the distance in canvas units, 0 to not simplify
+     */
+    public void setSimplifyTolerance(double units) {
+        simplifyTolerance = units;
+    }
+
+    public double getSimplifyTolerance() {
+        return simplifyTolerance;
+    }
+
+    /**
+     * Set the maximum distance from the simplified points to fitted Bezier curves. When zero, the points are connected by lines.
+     * @param units the distance in canvas units, or 0 to not fit curves
+     */
+    public void setCurveTolerance(double units) {
+        curveTolerance = units;
+    }
+
+    public double getCurveTolerance() {
+        return curveTolerance;
+    }
+
+    @Override
+    protected void addPoint(Point2D p) {
+
+        if (p != null && !mousePoints.isEmpty()) {
+            Point2D last = mousePoints.get(mousePoints.size()-1);
+            if (last != null && last.distance(p) < captureTolerance * canvas.getScale()) {
+                skipped = p;
+                return;
+            }
+        }
+
+        if (p == null && skipped != null)  //keep where the stroke ended
+            super.addPoint(skipped);
+        skipped = null;
+
+        super.addPoint(p);
+    }
+
+    @Override
+    protected Path2D getPath() {
+
+        if (skipped != null) {  //completed mid-stroke
+            mousePoints.add(new Point2D.Double(skipped.getX() / canvas.getScale(), skipped.getY() / canvas.getScale()));
+            skipped = null;
+        }
+
+        Path2D path = new Path2D.Double();
+
+        //Simplify each stroke, between the null gaps
+        ArrayList<Point2D> stroke = new ArrayList<>();
+        for (int i=0; i<=mousePoints.size(); i++) {
+            Point2D p = i < mousePoints.size() ? mousePoints.get(i) : null;
+            if (p != null) {
+                stroke.add(p);
+                continue;
+            }
+
+            if (!stroke.isEmpty())
+                appendStroke(path, PathSimplifier.simplify(stroke, simplifyTolerance));
+            stroke.clear();
+        }
+
+        if (path.getCurrentPoint() == null)
+            return null;
+
+        if (close)
+            path.closePath();
+
+        return path;
+    }
+
+    private void appendStroke(Path2D path, List<Point2D> points) {
+
+        Point2D first = points.get(0);
+        path.moveTo(first.getX(), first.getY());
+
+        if (curveTolerance > 0)
+            PathSimplifier.appendCurves(path, points, curveTolerance);
+        else {
+            for (int i=1; i<points.size(); i++)
+                path.lineTo(points.get(i).getX(), points.get(i).getY());
+        }
+    }
+
     @Override
     public void drawClientMouseClicked(Point2D mouse, MouseEvent e) {
     }
@@ -39,9 +155,9 @@ public class FreeformDraw extends BoundaryDraw {
     public void drawClientMouseDragged(Point2D mouse, MouseEvent e) {
         this.addPoint(mouse);
     }
-    
+
     @Override
     public void drawClientMouseWheelMoved(Point2D scaledMouse, MouseWheelEvent e) {  //no op
     }
-    
+
 }
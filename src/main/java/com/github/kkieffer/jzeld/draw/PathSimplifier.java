@@ -0,0 +1,274 @@
+
+package com.github.kkieffer.jzeld.draw;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Methods to reduce captured mouse points to a simpler path.  simplify() removes points with the Ramer-Douglas-Peucker algorithm,
+ * keeping the polyline within a tolerance of the original.  appendCurves() fits a chain of cubic Bezier curves through the points
+ * with Schneider's algorithm ("An Algorithm for Automatically Fitting Digitized Curves", Graphics Gems, 1990), splitting where a
+ * single curve can't stay within the tolerance.
+ *
+ * @author kkieffer
+ */
+public final class PathSimplifier {
+
+    private static final int MAX_REPARAMETERIZE = 4;  //Newton-Raphson passes before splitting
+
+    private PathSimplifier() {}
+
+    /**
+     * Simplify a polyline with the Ramer-Douglas-Peucker algorithm
+     * @param points the points, none null
+     * @param tolerance the maximum distance of any removed point from the simplified polyline
+     * @return the kept points, including the first and last
+     */
+    public static List<Point2D> simplify(List<Point2D> points, double tolerance) {
+
+        int n = points.size();
+        if (n < 3 || tolerance <= 0)
+            return new ArrayList<>(points);
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n-1] = true;
+
+        //Spans left to split, as first and last index pairs, without recursion so long strokes can't overflow the stack
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+
+        double tolerance2 = tolerance * tolerance;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            Point2D a = points.get(first);
+            Point2D b = points.get(last);
+
+            int farthest = -1;
+            double max = tolerance2;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(points.get(i), a, b);
+                if (d > max) {
+                    max = d;
+                    farthest = i;
+                }
+            }
+
+            if (farthest < 0)
+                continue;
+
+            keep[farthest] = true;
+            if (top + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+
+        ArrayList<Point2D> kept = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            if (keep[i])
+                kept.add(points.get(i));
+        return kept;
+    }
+
+    private static double segmentDistanceSq(Point2D p, Point2D a, Point2D b) {
+        double ex = b.getX() - a.getX();
+        double ey = b.getY() - a.getY();
+        double fx = p.getX() - a.getX();
+        double fy = p.getY() - a.getY();
+        double ee = ex*ex + ey*ey;
+        double t = ee > 0 ? Math.max(0, Math.min(1, (ex*fx + ey*fy) / ee)) : 0;
+        double dx = fx - t*ex;
+        double dy = fy - t*ey;
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Fit cubic Bezier curves through the points and append them to a path. The path must have a current point at the first point,
+     * for instance from a moveTo().
+     * @param path the path to append to
+     * @param points the points, none null
+     * @param tolerance the maximum distance of any point from the fitted curves
+     */
+    public static void appendCurves(Path2D path, List<Point2D> points, double tolerance) {
+
+        //Remove repeated points, which have no tangent
+        ArrayList<Point2D> d = new ArrayList<>(points.size());
+        for (Point2D p : points)
+            if (d.isEmpty() || !p.equals(d.get(d.size()-1)))
+                d.add(p);
+
+        if (d.size() < 2)
+            return;
+
+        double[] tHat1 = normalize(d.get(1).getX() - d.get(0).getX(), d.get(1).getY() - d.get(0).getY());
+        int n = d.size();
+        double[] tHat2 = normalize(d.get(n-2).getX() - d.get(n-1).getX(), d.get(n-2).getY() - d.get(n-1).getY());
+
+        fitCubic(path, d, 0, n - 1, tHat1, tHat2, tolerance * tolerance);
+    }
+
+    //Fit a curve to points first to last with the given end tangents, splitting in two where it can't fit
+    private static void fitCubic(Path2D path, List<Point2D> d, int first, int last, double[] tHat1, double[] tHat2, double error) {
+
+        Point2D p0 = d.get(first);
+        Point2D p3 = d.get(last);
+
+        if (last - first == 1) {  //two points, use a straight curve
+            double dist = p0.distance(p3) / 3.0;
+            path.curveTo(p0.getX() + tHat1[0]*dist, p0.getY() + tHat1[1]*dist, p3.getX() + tHat2[0]*dist, p3.getY() + tHat2[1]*dist, p3.getX(), p3.getY());
+            return;
+        }
+
+        double[] u = chordLengthParameterize(d, first, last);
+        double[] bez = generateBezier(d, first, last, u, tHat1, tHat2);
+
+        int[] split = new int[1];
+        double maxError = computeMaxError(d, first, last, bez, u, split);
+        if (maxError < error) {
+            path.curveTo(bez[2], bez[3], bez[4], bez[5], bez[6], bez[7]);
+            return;
+        }
+
+        if (maxError < error * 4.0) {  //close, try improving the parameterization
+            for (int i = 0; i < MAX_REPARAMETERIZE; i++) {
+                u = reparameterize(d, first, last, u, bez);
+                bez = generateBezier(d, first, last, u, tHat1, tHat2);
+                maxError = computeMaxError(d, first, last, bez, u, split);
+                if (maxError < error) {
+                    path.curveTo(bez[2], bez[3], bez[4], bez[5], bez[6], bez[7]);
+                    return;
+                }
+            }
+        }
+
+        //Split at the point of greatest error and fit each side
+        int s = split[0];
+        Point2D before = d.get(s - 1);
+        Point2D after = d.get(s + 1);
+        double[] tHatCenter = normalize(before.getX() - after.getX(), before.getY() - after.getY());
+        fitCubic(path, d, first, s, tHat1, tHatCenter, error);
+        fitCubic(path, d, s, last, new double[]{-tHatCenter[0], -tHatCenter[1]}, tHat2, error);
+    }
+
+    //Least squares control points for the given parameters, as x0,y0,x1,y1,x2,y2,x3,y3
+    private static double[] generateBezier(List<Point2D> d, int first, int last, double[] u, double[] tHat1, double[] tHat2) {
+
+        Point2D p0 = d.get(first);
+        Point2D p3 = d.get(last);
+
+        double c00 = 0, c01 = 0, c11 = 0, x0 = 0, x1 = 0;
+
+        for (int i = 0; i <= last - first; i++) {
+            double t = u[i];
+            double mt = 1 - t;
+            double b0 = mt*mt*mt, b1 = 3*t*mt*mt, b2 = 3*t*t*mt, b3 = t*t*t;
+
+            double a1x = tHat1[0]*b1, a1y = tHat1[1]*b1;
+            double a2x = tHat2[0]*b2, a2y = tHat2[1]*b2;
+
+            c00 += a1x*a1x + a1y*a1y;
+            c01 += a1x*a2x + a1y*a2y;
+            c11 += a2x*a2x + a2y*a2y;
+
+            Point2D p = d.get(first + i);
+            double tx = p.getX() - (p0.getX()*(b0 + b1) + p3.getX()*(b2 + b3));
+            double ty = p.getY() - (p0.getY()*(b0 + b1) + p3.getY()*(b2 + b3));
+
+            x0 += a1x*tx + a1y*ty;
+            x1 += a2x*tx + a2y*ty;
+        }
+
+        double det = c00*c11 - c01*c01;
+        double alpha1 = det == 0 ? 0 : (x0*c11 - x1*c01) / det;
+        double alpha2 = det == 0 ? 0 : (c00*x1 - c01*x0) / det;
+
+        //If alpha is negative or tiny the fit is degenerate, fall back to the Wu/Barsky heuristic
+        double segLength = p0.distance(p3);
+        double epsilon = 1.0e-6 * segLength;
+        if (alpha1 < epsilon || alpha2 < epsilon)
+            alpha1 = alpha2 = segLength / 3.0;
+
+        return new double[] {p0.getX(), p0.getY(),
+                             p0.getX() + tHat1[0]*alpha1, p0.getY() + tHat1[1]*alpha1,
+                             p3.getX() + tHat2[0]*alpha2, p3.getY() + tHat2[1]*alpha2,
+                             p3.getX(), p3.getY()};
+    }
+
+    //Improve each parameter with a Newton-Raphson step toward the closest point on the curve
+    private static double[] reparameterize(List<Point2D> d, int first, int last, double[] u, double[] bez) {
+        double[] uPrime = new double[u.length];
+        for (int i = 0; i < u.length; i++)
+            uPrime[i] = newtonRaphson(bez, d.get(first + i), u[i]);
+        return uPrime;
+    }
+
+    private static double newtonRaphson(double[] q, Point2D p, double u) {
+
+        double mt = 1 - u;
+
+        //Q(u), Q'(u), Q''(u)
+        double qx = mt*mt*mt*q[0] + 3*u*mt*mt*q[2] + 3*u*u*mt*q[4] + u*u*u*q[6];
+        double qy = mt*mt*mt*q[1] + 3*u*mt*mt*q[3] + 3*u*u*mt*q[5] + u*u*u*q[7];
+
+        double q1x = 3*(mt*mt*(q[2]-q[0]) + 2*u*mt*(q[4]-q[2]) + u*u*(q[6]-q[4]));
+        double q1y = 3*(mt*mt*(q[3]-q[1]) + 2*u*mt*(q[5]-q[3]) + u*u*(q[7]-q[5]));
+
+        double q2x = 6*(mt*(q[4] - 2*q[2] + q[0]) + u*(q[6] - 2*q[4] + q[2]));
+        double q2y = 6*(mt*(q[5] - 2*q[3] + q[1]) + u*(q[7] - 2*q[5] + q[3]));
+
+        double dx = qx - p.getX();
+        double dy = qy - p.getY();
+        double numerator = dx*q1x + dy*q1y;
+        double denominator = q1x*q1x + q1y*q1y + dx*q2x + dy*q2y;
+
+        if (denominator == 0)
+            return u;
+        return u - numerator / denominator;
+    }
+
+    private static double[] chordLengthParameterize(List<Point2D> d, int first, int last) {
+        double[] u = new double[last - first + 1];
+        for (int i = first + 1; i <= last; i++)
+            u[i - first] = u[i - first - 1] + d.get(i).distance(d.get(i - 1));
+        double total = u[last - first];
+        for (int i = 1; i < u.length; i++)
+            u[i] /= total;
+        return u;
+    }
+
+    //The greatest squared distance of a point from the curve, and where it is
+    private static double computeMaxError(List<Point2D> d, int first, int last, double[] bez, double[] u, int[] split) {
+
+        split[0] = (last - first + 1) / 2 + first;
+        double max = 0;
+        for (int i = first + 1; i < last; i++) {
+            double t = u[i - first];
+            double mt = 1 - t;
+            double x = mt*mt*mt*bez[0] + 3*t*mt*mt*bez[2] + 3*t*t*mt*bez[4] + t*t*t*bez[6];
+            double y = mt*mt*mt*bez[1] + 3*t*mt*mt*bez[3] + 3*t*t*mt*bez[5] + t*t*t*bez[7];
+            double dist = d.get(i).distanceSq(x, y);
+            if (dist >= max) {
+                max = dist;
+                split[0] = i;
+            }
+        }
+        return max;
+    }
+
+    private static double[] normalize(double x, double y) {
+        double len = Math.hypot(x, y);
+        return len == 0 ? new double[] {0, 0} : new double[] {x / len, y / len};
+    }
+
+}
@@ -5,7 +5,12 @@ import com.github.kkieffer.jzeld.attributes.CustomStroke;
 import com.github.kkieffer.jzeld.attributes.ShadowAttributes;
 import com.github.kkieffer.jzeld.attributes.PaintAttributes;
 import com.github.kkieffer.jzeld.adapters.JAXBAdapter.ColorAdapter;
+import com.github.kkieffer.jzeld.CanvasTask;
 import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.ZCanvasMetrics;
+import com.github.kkieffer.jzeld.ZRenderingHints;
+import com.github.kkieffer.jzeld.geometry.AreaEngine;
+import com.github.kkieffer.jzeld.geometry.GeometryEngine;
 import com.jhlabs.image.ShadowFilter;
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
@@ -18,6 +23,7 @@ import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
@@ -25,6 +31,8 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -81,6 +89,7 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
     protected ShadowAttributes shadowAttributes = null;
     
     private transient BufferedImage shadowImage = null;
+    private transient HitPath hitPath = null;  //flattened abstract shape, for hit testing
     
     protected ZAbstractShape(double x, double y, double width, double height, double rotation, boolean canSelect, boolean canResize, boolean canMove, float borderWidth, Color borderColor, Float[] dashPattern, Color fillColor, StrokeStyle outlineStyle) {
         super(x, y, width, height, rotation, canSelect, canResize, canMove);
@@ -91,10 +100,10 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
     protected ZAbstractShape(ZAbstractShape src, boolean forNew) {
         super(src, forNew);
         setAttributes(src.borderThickness, src.borderColor, src.dashPattern, src.backgroundColor, src.borderStyle);
-        paintAttr = src.paintAttr == null ? null : new PaintAttributes(src.paintAttr);
+        paintAttr = PaintAttributes.intern(src.paintAttr);  //immutable, so copies share the same instance
         shadowAttributes = src.shadowAttributes == null ? null : new ShadowAttributes(src.shadowAttributes);
         customStroke = src.customStroke == null ? null : src.customStroke.copyOf();
-        strokeAttr = src.strokeAttr == null ? null : new PaintAttributes(src.strokeAttr);
+        strokeAttr = PaintAttributes.intern(src.strokeAttr);
         shadowImage = null;
     }
     
@@ -264,7 +273,7 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
      */
     @Override
     public void setPaintAttributes(PaintAttributes p) {
-        paintAttr = p;
+        paintAttr = PaintAttributes.intern(p);
         changed();
     }
     
@@ -279,7 +288,7 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
      * @param p the paint attributes.  To remove, use null
      */
     public void setStrokeAttributes(PaintAttributes p) {
-        strokeAttr = p;
+        strokeAttr = PaintAttributes.intern(p);
         changed();
     }
     
@@ -301,6 +310,7 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
     @Override
     public void changed() {
         shadowImage = null;
+        hitPath = null;
         super.changed();
     }
     
@@ -332,27 +342,24 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
      * @return 
      */
     public Shape getShape() {
+        return getShapeTransform(getBounds2D()).createTransformedShape(getAbstractShape());  //gets the abstract shape (placed at 0,0) and places it
+    }
+    
+    //The transform from the abstract shape to the canvas
+    private AffineTransform getShapeTransform(Rectangle2D bounds) {
         
-        Shape s = getAbstractShape();  //gets the abstract shape (placed at 0,0)
-        Rectangle2D bounds = getBounds2D();
-        
-        //Move to its center
-        AffineTransform ctr = AffineTransform.getTranslateInstance(-bounds.getWidth()/2, -bounds.getHeight()/2);
-        s = ctr.createTransformedShape(s);
-   
-        //Shear it
-        AffineTransform shear = AffineTransform.getShearInstance(this.getShearX(), this.getShearY());
-        s = shear.createTransformedShape(s);
+        //Move to its position
+        AffineTransform t = AffineTransform.getTranslateInstance(bounds.getWidth()/2 + bounds.getX(), bounds.getHeight()/2  + bounds.getY());
         
         //Rotate it
-        AffineTransform rotate = AffineTransform.getRotateInstance(Math.toRadians(this.getRotation()));
-        s = rotate.createTransformedShape(s);
-          
-        //Move to its position
-        AffineTransform pos = AffineTransform.getTranslateInstance(bounds.getWidth()/2 + bounds.getX(), bounds.getHeight()/2  + bounds.getY());
-        s = pos.createTransformedShape(s);
+        t.rotate(Math.toRadians(this.getRotation()));
+        
+        //Shear it
+        t.shear(this.getShearX(), this.getShearY());
         
-        return s;
+        //Move to its center
+        t.translate(-bounds.getWidth()/2, -bounds.getHeight()/2);
+        return t;
     }
     
     public Shape getShape(double scale) {
@@ -360,7 +367,7 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
         return AffineTransform.getScaleInstance(scale, scale).createTransformedShape(s);
     }
        
-    private double integrate(Area a, double resolution) {
+    private static double integrate(Area a, double resolution) {
 
         double area = 0.0;
         
@@ -389,18 +396,124 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
 
     public interface ComputeProgress {
         void progress(float percent);
+        
+        /**
+         * Polled during long computations, which stop with a CancellationException when this returns true
+         * @return true to cancel the computation
+         */
+        public default boolean isCancelled() {
+            return false;
+        }
     }
     
     /**
-     * Compute the area of the shape using double-piecewise integration
+     * Compute the exact area of the shape.  The shape is first resolved into an Area, which applies the winding rule and
+     * removes self-intersections, leaving outer boundaries and holes of opposite direction. The signed area enclosed by each
+     * line, quadratic and cubic segment is then integrated in closed form (Green's theorem), so no flattening is needed.
+     * @return the area, in square units
+     */
+    public final double computeArea() {
+        return computeArea(getShape());
+    }
+
+    /**
+     * Compute the exact area enclosed by a shape, see computeArea()
+     * @param s the shape
+     * @return the area, in square units of the shape
+     */
+    public static double computeArea(Shape s) {
+
+        PathIterator it = new Area(s).getPathIterator(null);
+
+        double[] p = new double[6];
+        double startX = 0, startY = 0;  //start of the subpath
+        double x0 = 0, y0 = 0;  //current point
+        double twiceArea = 0.0;  //sum of the cross products, twice the signed area
+
+        while (!it.isDone()) {
+
+            switch (it.currentSegment(p)) {
+
+                case PathIterator.SEG_MOVETO:
+                    startX = x0 = p[0];
+                    startY = y0 = p[1];
+                    break;
+
+                case PathIterator.SEG_LINETO:
+                    twiceArea += cross(x0, y0, p[0], p[1]);
+                    x0 = p[0];
+                    y0 = p[1];
+                    break;
+
+                case PathIterator.SEG_QUADTO:
+                    twiceArea += (2*cross(x0, y0, p[0], p[1]) + 2*cross(p[0], p[1], p[2], p[3]) + cross(x0, y0, p[2], p[3])) / 3.0;
+                    x0 = p[2];
+                    y0 = p[3];
+                    break;
+
+                case PathIterator.SEG_CUBICTO:
+                    twiceArea += (6*cross(x0, y0, p[0], p[1]) + 3*cross(x0, y0, p[2], p[3]) + cross(x0, y0, p[4], p[5]) +
+                                  3*cross(p[0], p[1], p[2], p[3]) + 3*cross(p[0], p[1], p[4], p[5]) + 6*cross(p[2], p[3], p[4], p[5])) / 10.0;
+                    x0 = p[4];
+                    y0 = p[5];
+                    break;
+
+                case PathIterator.SEG_CLOSE:
+                    twiceArea += cross(x0, y0, startX, startY);
+                    x0 = startX;
+                    y0 = startY;
+                    break;
+            }
+            it.next();
+        }
+
+        return Math.abs(twiceArea) / 2.0;
+    }
+
+    private static double cross(double x0, double y0, double x1, double y1) {
+        return x0*y1 - x1*y0;
+    }
+
+    /**
+     * Compute the area of the shape using double-piecewise integration. This is much slower than computeArea(), and is
+     * retained for comparison.
      * @param resolution the thickness of the integration slice, smaller numbers are more accurate but take longer
      * @return the area, in square units
      */
     public final double computeArea(double resolution) {
+        return computeArea(getShape(), resolution, null);
+    }
+    
+    /**
+     * Compute the area of the shape using double-piecewise integration, on a background thread
+     * @param resolution the thickness of the integration slice, smaller numbers are more accurate but take longer
+     * @return the started task, which completes with the area in square units
+     */
+    public final CanvasTask<Double> computeAreaAsync(final double resolution) {
+        
+        final Shape shape = getShape();  //the shape as it is now
+        
+        return new CanvasTask<Double>("Compute Area") {
+            @Override
+            protected Double compute() {
+                return computeArea(shape, resolution, this);
+            }
+        }.start();
+    }
+    
+    /**
+     * Compute the area of a shape using double-piecewise integration, see computeArea(resolution)
+     * @param s the shape
+     * @param resolution the thickness of the integration slice
+     * @param progress receives the percent complete and is polled for cancellation, can be null
+     * @return the area, in square units of the shape
+     * @throws CancellationException if the progress reports it was cancelled
+     */
+    public static double computeArea(Shape s, double resolution, ComputeProgress progress) {
         
         double area = 0.0;
         
-        Area a = new Area(getShape());
+        Area a = new Area(s);
       
         Rectangle2D bounds = a.getBounds2D();
         if (bounds.getWidth() <= 0 || bounds.getHeight() <= 0)
@@ -411,6 +524,12 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
         
         //Intersect shape with the horizontal slice
         do {
+            if (progress != null) {
+                if (progress.isCancelled())
+                    throw new CancellationException("Area computation cancelled");
+                progress.progress((float)(100.0 * (intersect.getY() - bounds.getY()) / bounds.getHeight()));
+            }
+            
             Area piece = new Area(intersect);
             piece.intersect(new Area(a));
             
@@ -472,9 +591,11 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
     }
     
     /**
-     * Determines if a point (plus some margin) intersects or is within the shape boundaries.
+     * Determines if a point (plus some margin) is on or within the shape.  The point hits if it is within half the margin of the
+     * outline, or inside a closed or filled part of the shape, so open paths like lines only hit near the line.  The point is
+     * transformed into the shape's own coordinates and tested against a cached, flattened copy of the shape.
      * @param p the point to check
-     * @param margin the square margin around the point, which is checked for intersection with the shape
+     * @param margin the width of the square margin around the point, half of which is the distance the point may be from the outline
      * @param scale value to which the point and margin are scaled (divided) by
      * @return true if the point plus its margin is enclosed by or intersect the shape boundaries
      */
@@ -484,11 +605,180 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
         double y = p.getY()/scale;
         double b = margin/scale;
         
-        //Create a square bounds around the point
-        Rectangle2D rect = new Rectangle2D.Double(x-b/2, y-b/2, b, b);
-        return getShape().intersects(rect);
+        Rectangle2D bounds = getBounds2D();
+        AffineTransform t = getShapeTransform(bounds);
+        
+        Point2D local;
+        try {
+            local = t.inverseTransform(new Point2D.Double(x, y), null);
+        } catch (NoninvertibleTransformException ex) {  //degenerate, check the square bounds around the point against the shape
+            Rectangle2D rect = new Rectangle2D.Double(x-b/2, y-b/2, b, b);
+            return getShape().intersects(rect);
+        }
+        
+        if (hitPath == null || hitPath.width != bounds.getWidth() || hitPath.height != bounds.getHeight())
+            hitPath = new HitPath(getAbstractShape(), bounds.getWidth(), bounds.getHeight(), hasFill() && (getFillColor() != null || getPaintAttributes() != null));
+
+        return hitPath.hits(local.getX(), local.getY(), b/2, t);
     } 
     
+    /**
+     * A shape flattened into polylines, in the shape's own coordinates, that tests for hits within a distance measured on the canvas
+     */
+    private static final class HitPath {
+        
+        private static final double FLATNESS = 0.001;  //units
+        
+        private final double width, height;  //the size of the element the path was made for
+        private final int windingRule;
+        private final Rectangle2D bounds;
+        private double[] points = new double[64];  //x,y pairs
+        private int[] subpaths = new int[8];  //start point index of each subpath, and the end of the last
+        private boolean[] encloses = new boolean[8];  //whether each subpath encloses its interior
+        private int subpathCount;
+        
+        private HitPath(Shape s, double width, double height, boolean filled) {
+            
+            this.width = width;
+            this.height = height;
+            
+            PathIterator it = new FlatteningPathIterator(s.getPathIterator(null), FLATNESS, 16);
+            windingRule = it.getWindingRule();
+            
+            double[] coords = new double[6];
+            int count = 0;
+            while (!it.isDone()) {
+                switch (it.currentSegment(coords)) {
+                    case PathIterator.SEG_MOVETO:
+                        count = endSubpath(count, filled);
+                        startSubpath(count);
+                        count = addPoint(count, coords[0], coords[1]);
+                        break;
+                    case PathIterator.SEG_LINETO:
+                        if (subpathCount == 0)
+                            startSubpath(count);
+                        count = addPoint(count, coords[0], coords[1]);
+                        break;
+                    case PathIterator.SEG_CLOSE:
+                        if (subpathCount > 0 && count > subpaths[subpathCount-1]) {
+                            int start = subpaths[subpathCount-1];
+                            count = addPoint(count, points[2*start], points[2*start+1]);
+                            encloses[subpathCount-1] = true;
+                            count = endSubpath(count, filled);
+                            startSubpath(count);  //a segment after the close starts from its first point
+                            count = addPoint(count, points[2*start], points[2*start+1]);
+                        }
+                        break;
+                }
+                it.next();
+            }
+            count = endSubpath(count, filled);
+            subpaths[subpathCount] = count;
+            
+            bounds = s.getBounds2D();
+        }
+        
+        private int addPoint(int count, double x, double y) {
+            if (2*count + 2 > points.length)
+                points = Arrays.copyOf(points, points.length * 2);
+            points[2*count] = x;
+            points[2*count+1] = y;
+            return count + 1;
+        }
+        
+        private void startSubpath(int count) {
+            if (subpathCount + 2 > subpaths.length) {
+                subpaths = Arrays.copyOf(subpaths, subpaths.length * 2);
+                encloses = Arrays.copyOf(encloses, encloses.length * 2);
+            }
+            subpaths[subpathCount] = count;
+            encloses[subpathCount] = false;
+            subpathCount++;
+        }
+        
+        //Drop a subpath with no segments, and let an open one enclose if the shape is filled. Returns the point count.
+        private int endSubpath(int count, boolean filled) {
+            if (subpathCount == 0)
+                return count;
+            int start = subpaths[subpathCount-1];
+            if (count - start < 2) {
+                subpathCount--;
+                return start;
+            }
+            if (filled)
+                encloses[subpathCount-1] = true;
+            return count;
+        }
+        
+        /**
+         * Check for a hit
+         * @param x the point in the path coordinates
+         * @param y the point in the path coordinates
+         * @param tolerance the distance on the canvas the point may be from the path
+         * @param t the transform from the path to the canvas, which sets how distance is measured
+         * @return true if the point is within tolerance of the path, or inside an enclosing subpath
+         */
+        private boolean hits(double x, double y, double tolerance, AffineTransform t) {
+            
+            //Distances on the canvas, in path coordinates, come from the metric G = L'L of the linear part L of the transform
+            double g00 = t.getScaleX()*t.getScaleX() + t.getShearY()*t.getShearY();
+            double g01 = t.getScaleX()*t.getShearX() + t.getShearY()*t.getScaleY();
+            double g11 = t.getShearX()*t.getShearX() + t.getScaleY()*t.getScaleY();
+            
+            //Bounding box check, grown by the tolerance stretched by the least singular value of L
+            double half = (g00 + g11) / 2;
+            double minStretch = half - Math.sqrt((g00 - g11) * (g00 - g11) / 4 + g01 * g01);
+            if (minStretch > 0) {
+                double grow = tolerance / Math.sqrt(minStretch);
+                if (x < bounds.getMinX() - grow || x > bounds.getMaxX() + grow || y < bounds.getMinY() - grow || y > bounds.getMaxY() + grow)
+                    return false;
+            }
+            
+            double tolerance2 = tolerance * tolerance;
+            int winding = 0;
+            
+            for (int sp = 0; sp < subpathCount; sp++) {
+                
+                int start = subpaths[sp];
+                int end = subpaths[sp+1];
+                
+                for (int i = start; i < end - 1; i++) {
+                    
+                    double ax = points[2*i], ay = points[2*i+1];
+                    double bx = points[2*i+2], by = points[2*i+3];
+                    
+                    //Closest point on the segment, in the canvas metric
+                    double ex = bx - ax, ey = by - ay;
+                    double fx = x - ax, fy = y - ay;
+                    double ee = g00*ex*ex + 2*g01*ex*ey + g11*ey*ey;
+                    double s = ee > 0 ? (g00*ex*fx + g01*(ex*fy + ey*fx) + g11*ey*fy) / ee : 0;
+                    s = Math.max(0, Math.min(1, s));
+                    double dx = fx - s*ex, dy = fy - s*ey;
+                    if (g00*dx*dx + 2*g01*dx*dy + g11*dy*dy <= tolerance2)
+                        return true;
+                    
+                    if (encloses[sp])
+                        winding += crossing(ax, ay, bx, by, x, y);
+                }
+                
+                if (encloses[sp])  //implicitly closed
+                    winding += crossing(points[2*(end-1)], points[2*(end-1)+1], points[2*start], points[2*start+1], x, y);
+            }
+            
+            return windingRule == PathIterator.WIND_EVEN_ODD ? (winding & 1) != 0 : winding != 0;
+        }
+        
+        //The winding contribution of a segment for a ray from the point to the right
+        private static int crossing(double ax, double ay, double bx, double by, double x, double y) {
+            if (ay <= y) {
+                if (by > y && (bx - ax) * (y - ay) - (x - ax) * (by - ay) > 0)
+                    return 1;
+            } else if (by <= y && (bx - ax) * (y - ay) - (x - ax) * (by - ay) < 0)
+                return -1;
+            return 0;
+        }
+    }
+    
     /**
      * Combine this shape with the provided list of ZAbstractShapes. The 
      * @param operation the merge operation
@@ -496,42 +786,59 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
      * @return the combined shape, or null if combine resulted in shape with no area
      */
     public final Shape combineWith(CombineOperation operation, ArrayList<ZAbstractShape> shapes) {
+        return combineWith(operation, shapes, null);
+    }
+    
+    /**
+     * Combine this shape with the provided list of ZAbstractShapes, using the default AreaEngine
+     * @param operation the merge operation
+     * @param shapes the elements whose shapes are combined
+     * @param progress receives the percent complete and is polled for cancellation, possibly from other threads. Can be null.
+     * @return the combined shape, or null if combine resulted in shape with no area
+     * @throws CancellationException if the progress reports it was cancelled
+     */
+    public final Shape combineWith(CombineOperation operation, ArrayList<ZAbstractShape> shapes, ComputeProgress progress) {
+        return combineWith(operation, shapes, AreaEngine.getShared(), progress);
+    }
+    
+    /**
+     * Combine this shape with the provided list of ZAbstractShapes
+     * @param operation the merge operation
+     * @param shapes the elements whose shapes are combined
+     * @param engine the geometry engine that combines the shapes, not used to Append
+     * @param progress receives the percent complete and is polled for cancellation, possibly from other threads. Can be null.
+     * @return the combined shape, or null if combine resulted in shape with no area
+     * @throws CancellationException if the progress reports it was cancelled
+     */
+    public final Shape combineWith(CombineOperation operation, ArrayList<ZAbstractShape> shapes, GeometryEngine engine, ComputeProgress progress) {
         
-        Shape refShape = getShape();  //reference shape
-        Area a = new Area(refShape);
-        Path2D path = new Path2D.Double(refShape);
+        ArrayList<Shape> others = new ArrayList<>(shapes.size());
+        for (ZAbstractShape zShape : shapes)
+            others.add(zShape.getShape());
         
-        for (ZAbstractShape zShape : shapes) {
-            
-            Shape from = zShape.getShape();
-
-            switch (operation) {
-                case Join:
-                    a.add(new Area(from));
-                    break;
-                case Subtract:
-                    a.subtract(new Area(from));
-                    break;
-                case Intersect:
-                    a.intersect(new Area(from));
-                    break;
-                case Exclusive_Join:
-                    a.exclusiveOr(new Area(from));
-                    break;
-                case Append:
-                    path.append(from, false);
-                    break;
-            }
-        }
+        return combine(operation, getShape(), others, engine, progress);
+    }
+    
+    /**
+     * Combine a reference shape with a list of other shapes. Does not access any element, so may be called from any thread.
+     * @param operation the merge operation
+     * @param refShape the reference shape
+     * @param others the shapes combined with the reference
+     * @param engine the geometry engine that combines the shapes, not used to Append
+     * @param progress receives the percent complete and is polled for cancellation, possibly from other threads. Can be null.
+     * @return the combined shape, or null if combine resulted in shape with no area
+     * @throws CancellationException if the progress reports it was cancelled
+     */
+    public static Shape combine(CombineOperation operation, Shape refShape, List<Shape> others, GeometryEngine engine, ComputeProgress progress) {
         
-        if (operation == CombineOperation.Append)
+        if (operation == CombineOperation.Append) {
+            Path2D path = new Path2D.Double(refShape);
+            for (Shape s : others)
+                path.append(s, false);
             return path;
+        }
         
-        
-        if (a.isEmpty())
-            return null;
-               
-        return a;
+        return engine.combine(operation, refShape, others, progress);
     }
     
 
@@ -682,11 +989,13 @@ public abstract class ZAbstractShape extends ZElement implements ShadowAttribute
         if (!isVisible())
             return;
         
-        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        boolean draft = ZRenderingHints.isDraft(g);  //the canvas is interacting, favor speed
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, draft ? RenderingHints.VALUE_RENDER_SPEED : RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, draft ? RenderingHints.VALUE_ANTIALIAS_OFF : RenderingHints.VALUE_ANTIALIAS_ON);
 
         //If the element has a shadow, create the shadow image (if needed), and place it at the desired offset
-        if (shadowAttributes != null && shadowAttributes.isEnabled()) {
+        if (shadowAttributes != null && shadowAttributes.isEnabled() && ZRenderingHints.isShadowsOn(g)) {
+            ZCanvasMetrics.getShared().recordShadowCache(shadowImage != null);
             if (shadowImage == null) 
                 createShadow(unitSize, width, height);
             
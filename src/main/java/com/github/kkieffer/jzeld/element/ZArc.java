@@ -108,6 +108,11 @@ public class ZArc extends ZRectangle {
         return new ZArc(this, forNew);
     }
     
+    @Override
+    protected double[] getPolygonParameters(double width, double height, double scale) {
+        return new double[] {startAngle, arcAngle, type.ordinal()};
+    }
+    
     @Override
     protected Shape getPolygon(double width, double height, double scale) {
         return new Arc2D.Double(0, 0, width, height, -startAngle, -arcAngle, type.typeVal);
@@ -123,6 +123,14 @@ public class ZBlockArrow extends ZPolygon {
         
     }
     
+    @Override
+    protected double[] getPolygonParameters(double width, double height, double scale) {
+        if (headWidth*scale > width)
+            headWidth = width/scale;  //limit the head here too, as getPolygon() isn't called for a shared polygon
+        
+        return new double[] {shaftPercent, headWidth*scale};
+    }
+    
     @Override
     protected Shape getPolygon(double width, double height, double scale) {
           
@@ -3,11 +3,17 @@ package com.github.kkieffer.jzeld.element;
 
 import com.github.kkieffer.jzeld.adapters.JAXBAdapter.FontAdapter;
 import com.github.kkieffer.jzeld.UnitMeasure;
+import com.github.kkieffer.jzeld.adapters.MipmapCache;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
 import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -38,6 +44,14 @@ public final class ZCanvasRuler extends ZRectangle {
     
     private int majorValOffset = 0;
     
+    //The rendered ruler strip, redrawn only when the zoom, length, offset or ruler attributes change
+    private transient BufferedImage strip;
+    private transient double stripUnitSize;
+    private transient double stripWidth;
+    private transient double stripHeight;
+    private transient double stripScaleX;
+    private transient double stripScaleY;
+    
     protected ZCanvasRuler() {}
     
     /**
@@ -64,6 +78,7 @@ public final class ZCanvasRuler extends ZRectangle {
     
     public void setMajorValOffset(int offset) {
         this.majorValOffset = offset;
+        strip = null;
     }
     
     public int getMajorValOffset() {
@@ -95,6 +110,12 @@ public final class ZCanvasRuler extends ZRectangle {
         g.setColor(c);  //back to original
     }
     
+    @Override
+    public void changed() {
+        strip = null;
+        super.changed();
+    }
+    
     @Override
     public void paint(Graphics2D g, double unitSize, double width, double height) {
         if (!isVisible())
@@ -103,6 +124,43 @@ public final class ZCanvasRuler extends ZRectangle {
         width =  isHoriz ? width : fixedWidth;  //horizontal ruler uses the canvas width, vertical uses the fixed width
         height = !isHoriz ? height : fixedWidth;  //horizontal ruler uses the fixedWidth, vertical uses the canvas height
         
+        GraphicsConfiguration gc = MipmapCache.getScreenConfiguration(g);
+        if (gc == null) {
+            paintRuler(g, unitSize, width, height);
+            return;
+        }
+        
+        //Render the ruler into a strip image at the device resolution, and reuse it until something changes
+        AffineTransform t = g.getTransform();
+        double scaleX = Math.abs(t.getScaleX());
+        double scaleY = Math.abs(t.getScaleY());
+        
+        if (strip == null || stripUnitSize != unitSize || stripWidth != width || stripHeight != height || stripScaleX != scaleX || stripScaleY != scaleY) {
+            
+            //Always render the strip, painting the ruler directly costs as much, and the strip is reused by the following paints
+            int pixelWidth = Math.max(1, (int)Math.ceil(width * scaleX));
+            int pixelHeight = Math.max(1, (int)Math.ceil(height * scaleY));
+            
+            strip = gc.createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT);
+            Graphics2D sg = strip.createGraphics();
+            sg.scale(scaleX, scaleY);
+            paintRuler(sg, unitSize, width, height);
+            sg.dispose();
+            
+            stripUnitSize = unitSize;
+            stripWidth = width;
+            stripHeight = height;
+            stripScaleX = scaleX;
+            stripScaleY = scaleY;
+        }
+        
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(strip, AffineTransform.getScaleInstance(1.0/scaleX, 1.0/scaleY), null);
+    }
+    
+    
+    private void paintRuler(Graphics2D g, double unitSize, double width, double height) {
+        
         super.paint(g, unitSize, width, height);
         
         FontMetrics fontMetrics = g.getFontMetrics(labelFont);
@@ -87,6 +87,11 @@ public class ZCrescent extends ZRectangle {
         return new ZCrescent(this, forNew);
     }
     
+    @Override
+    protected double[] getPolygonParameters(double width, double height, double scale) {
+        return new double[] {amount};
+    }
+    
     @Override
     protected Shape getPolygon(double width, double height, double scale) {
         Arc2D hemi = new Arc2D.Double(0, 0, width, height, -90, -180, Arc2D.CHORD); //hemisphere
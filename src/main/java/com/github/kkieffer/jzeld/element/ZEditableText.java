@@ -4,7 +4,11 @@ package com.github.kkieffer.jzeld.element;
 
 import com.github.kkieffer.jzeld.attributes.TextAttributes;
 import com.github.kkieffer.jzeld.adapters.JAXBAdapter.ColorAdapter;
+import com.github.kkieffer.jzeld.TickScheduler;
 import com.github.kkieffer.jzeld.ZCanvas;
+import com.github.kkieffer.jzeld.ZRenderingHints;
+import com.github.kkieffer.jzeld.adapters.MipmapCache;
+import com.github.kkieffer.jzeld.adapters.RasterCache;
 import com.github.kkieffer.jzeld.attributes.CustomStroke;
 import com.github.kkieffer.jzeld.attributes.PaintAttributes;
 import com.github.kkieffer.jzeld.attributes.TextAttributes.HorizontalJustify;
@@ -16,22 +20,24 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
 import java.awt.Stroke;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Transparency;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationTargetException;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 import javax.swing.JTextPane;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 import javax.swing.UIDefaults;
 import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
@@ -110,7 +116,16 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
     
     transient private boolean isSelected;
     
-    transient private Timer timer;
+    transient private TickScheduler.TickListener caretTick;
+    
+    //Rendered text, kept in the shared RasterCache under this key, reused when not editing until the element changes or is drawn at a different size or scale
+    transient private Object textImageKey;
+    transient private double textImageWidth;
+    transient private double textImageHeight;
+    transient private double textImageScaleX;
+    transient private double textImageScaleY;
+    
+    private static final int CARET_REPAINT_PERIOD = 20;  //milliseconds
     
 
     private void setup() {
@@ -156,12 +171,13 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
         textPanel.setFocusTraversalKeysEnabled(false);
         textWidget.setCaretColor(textAttributes.fontColor);
 
-        timer = new Timer(20, new ActionListener() {  //needed to flash the caret
+        caretTick = new TickScheduler.TickListener() {  //needed to flash the caret, registered only while editing
             @Override
-            public void actionPerformed(ActionEvent e) {
+            public boolean tick(long now) {
                 textWidget.getParent().repaint();
+                return true;
             }
-        });
+        };
     }
     
     protected ZEditableText() {}
@@ -382,6 +398,12 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
         return false;
     }
     
+    @Override
+    public void changed() {
+        RasterCache.remove(getTextImageKey());
+        super.changed();
+    }
+    
     @Override
     public void addedTo(ZCanvas c) {
         c.add(textPanel);
@@ -392,6 +414,8 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
     @Override
     public void removedFrom(ZCanvas c) {
         c.remove(textPanel);
+        TickScheduler.getShared().unregister(caretTick);
+        RasterCache.remove(getTextImageKey());
         canvas = null;
     }
     
@@ -523,7 +547,7 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
         isSelected = true;
         canvas.setCurrentCursor(Cursor.getPredefinedCursor(Cursor.TEXT_CURSOR)); 
         textWidget.requestFocusInWindow();  //show the caret, receive key presses
-        timer.start(); 
+        TickScheduler.getShared().register(caretTick, CARET_REPAINT_PERIOD); 
         return true;
     }
     
@@ -533,7 +557,7 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
         textWidget.setSelectionStart(0);
         textWidget.setSelectionEnd(0);
         textWidget.getParent().requestFocusInWindow(); //give away focus to remove caret
-        timer.stop();
+        TickScheduler.getShared().unregister(caretTick);
         validateSize();
     }
     
@@ -615,15 +639,100 @@ public class ZEditableText extends ZElement implements TextAttributes.TextInterf
          }
          
 
-        textWidget.setSize(new Dimension((int)width, (int)height));
-        
         g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, getOpacity()));
-        textWidget.paint(g);  //paint the widget
+        
+        //While editing, or when printing, paint the live text widget.  Otherwise draw the cached rendering of it
+        GraphicsConfiguration gc = MipmapCache.getScreenConfiguration(g);
+        if (isEditing() || gc == null || !paintTextImage(g, gc, width, height))
+            paintWidget(g, width, height);
+        
         g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));  //back to full opaque
      
         g.setTransform(af);
     }
     
-
+    
+    /**
+     * Paint the text widget.  Swing components may only be painted on the event dispatch thread, so when painted from another thread,
+     * such as a background print, the painting is handed to the event dispatch thread and this waits for it.
+     */
+    private void paintWidget(final Graphics2D g, final double width, final double height) {
+        
+        if (!SwingUtilities.isEventDispatchThread()) {
+            try {
+                SwingUtilities.invokeAndWait(new Runnable() {
+                    @Override
+                    public void run() {
+                        paintWidget(g, width, height);
+                    }
+                });
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (InvocationTargetException ex) {
+                throw new RuntimeException(ex.getCause());
+            }
+            return;
+        }
+        
+        textWidget.setSize(new Dimension((int)width, (int)height));
+        textWidget.paint(g);  //paint the widget
+    }
+    
+    private Object getTextImageKey() {
+        if (textImageKey == null)
+            textImageKey = new Object();
+        return textImageKey;
+    }
+    
+    /**
+     * Draw the text from an image rendered at the device resolution, rendering it first if needed.  When the paint has no time left to
+     * render it, the out of date image is stretched until a following paint, or if there is none, the text is painted directly.
+     * @return false if the image would be too large, or isn't available, and the text should be painted directly
+     */
+    private boolean paintTextImage(Graphics2D g, GraphicsConfiguration gc, double width, double height) {
+        
+        AffineTransform t = g.getTransform();
+        double scaleX = Math.hypot(t.getScaleX(), t.getShearY());
+        double scaleY = Math.hypot(t.getShearX(), t.getScaleY());
+        
+        int pixelWidth = (int)Math.ceil((int)width * scaleX);
+        int pixelHeight = (int)Math.ceil((int)height * scaleY);
+        
+        BufferedImage textImage = RasterCache.get(getTextImageKey());
+        boolean current = textImage != null && textImageWidth == width && textImageHeight == height && textImageScaleX == scaleX && textImageScaleY == scaleY;
+        boolean stretch = false;
+        
+        if (!current && !RasterCache.fits(pixelWidth, pixelHeight))
+            return false;
+        
+        if (!current && !ZRenderingHints.admitRaster(g)) {  //the canvas is short on time, painting the text would cost as much as rendering it
+            if (!ZRenderingHints.deferRaster(g))
+                return false;  //there's no following paint to render it in
+            if (textImage == null)
+                return false;  //nothing to stretch, paint the text rather than let new or edited text vanish
+            stretch = true;  //draw the out of date image until then, for instance the previous scale's while zooming
+        }
+        
+        if (!current && !stretch) {
+            
+            textImage = gc.createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT);
+            Graphics2D ig = textImage.createGraphics();
+            ig.scale(pixelWidth / (double)(int)width, pixelHeight / (double)(int)height);
+            paintWidget(ig, width, height);
+            ig.dispose();
+            
+            RasterCache.put(getTextImageKey(), textImage);
+            textImageWidth = width;
+            textImageHeight = height;
+            textImageScaleX = scaleX;
+            textImageScaleY = scaleY;
+        }
+        
+        //The image is at device resolution, so unless rotated or stretched, there's no need to interpolate
+        boolean rotated = t.getShearX() != 0 || t.getShearY() != 0;
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, rotated || stretch ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(textImage, AffineTransform.getScaleInstance((int)width / (double)textImage.getWidth(), (int)height / (double)textImage.getHeight()), null);
+        return true;
+    }
     
 }
@@ -80,6 +80,8 @@ public abstract class ZElement implements Serializable {
     private String className;  //needed to reload subclasses by classname
     
     transient private boolean hasChanges = false;  //marks any changes to the Element prior to saving
+    
+    transient private int changeCount = 0;  //incremented on each call to changed(), for caches of the element's appearance
   
     transient private boolean selected = false;
     
@@ -205,6 +207,17 @@ public abstract class ZElement implements Serializable {
      */
     public void changed() {
         hasChanges = true;
+        changeCount++;
+    }
+    
+    /**
+     * A counter that increases each time changed() is called.  Caches of the element's rendered appearance can compare it to 
+     * detect changes.  Moving, rotating, or shearing the element doesn't call changed(), as the element draws the same in its own coordinates.
+     * Elements containing others include the counts of the contained elements.
+     * @return the change count
+     */
+    public int getChangeCount() {
+        return changeCount;
     }
     
     
@@ -223,6 +236,7 @@ public abstract class ZElement implements Serializable {
     public void setOpacity(float o) {
         opacity = o;
         hasChanges = true;
+        changeCount++;
     }
     
     public float getOpacity() {
@@ -748,7 +762,7 @@ public abstract class ZElement implements Serializable {
      */
     public void flipHorizontal() {
         flipHoriz = !flipHoriz;
-        hasChanges = true;
+        changed();
     }
         
     
@@ -757,7 +771,7 @@ public abstract class ZElement implements Serializable {
      */
     public void flipVertical() {
         flipVert = !flipVert;
-        hasChanges = true;
+        changed();
     }    
     
     /**
@@ -113,6 +113,11 @@ public class ZEquilateralPolygon extends ZPolygon {
         return false;
     }
     
+    @Override
+    protected double[] getPolygonParameters(double width, double height, double scale) {
+        return new double[] {sides};
+    }
+    
     @Override
     protected Shape getPolygon(double width, double height, double scale) {
           
@@ -5,7 +5,7 @@ import com.github.kkieffer.jzeld.UnitMeasure;
 import com.github.kkieffer.jzeld.ZCanvas;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -26,6 +26,14 @@ public final class ZGrid extends ZLine {
     
     private transient ZCanvas canvas;
     
+    //All the gridlines as one path, rebuilt only when the grid dimensions or spacing change
+    private transient Path2D gridPath;
+    private transient double pathUnitSize;
+    private transient double pathWidth;
+    private transient double pathHeight;
+    private transient UnitMeasure pathUnit;
+    private transient int pathMajorTickStep;
+    
     protected ZGrid() {}
     
     /**
@@ -53,26 +61,41 @@ public final class ZGrid extends ZLine {
     
     @Override
     public void paint(Graphics2D g, double unitSize, double width, double height) {
-        setOutlineWidth(outlineWidth/(float)canvas.getZoomFactor());
+        borderThickness = outlineWidth/(float)canvas.getZoomFactor();  //keep the lines the same width at any zoom, set directly since this isn't a change to the grid
         super.paint(g, unitSize, width, height);
     }
     
     @Override
     protected void drawShape(Graphics2D g, double unitSize, double width, double height) {
         
-        double scale = majorTickStep * (double)unitSize / unit.getScale();
+        if (gridPath == null || pathUnitSize != unitSize || pathWidth != width || pathHeight != height || pathUnit != unit || pathMajorTickStep != majorTickStep) {
         
-        //Paint vertical gridlines
-        for (double i=0; i<width; i+=scale) {
-            int inc = (int)Math.round(i);
-            g.draw(new Line2D.Double(inc, 0, inc, height)); 
-        }
+            double scale = majorTickStep * (double)unitSize / unit.getScale();
+            Path2D.Double path = new Path2D.Double();
 
-        //Paint horizontal gridlines   
-        for (double j=0; j<height; j+=scale) {
-            int jnc = (int)Math.round(j);
-            g.draw(new Line2D.Double(0, jnc, width, jnc)); 
+            //Vertical gridlines
+            for (double i=0; i<width; i+=scale) {
+                int inc = (int)Math.round(i);
+                path.moveTo(inc, 0);
+                path.lineTo(inc, height);
+            }
+
+            //Horizontal gridlines   
+            for (double j=0; j<height; j+=scale) {
+                int jnc = (int)Math.round(j);
+                path.moveTo(0, jnc);
+                path.lineTo(width, jnc);
+            }
+            
+            gridPath = path;
+            pathUnitSize = unitSize;
+            pathWidth = width;
+            pathHeight = height;
+            pathUnit = unit;
+            pathMajorTickStep = majorTickStep;
         }
+        
+        g.draw(gridPath);
     }
 
     @Override
@@ -452,6 +452,18 @@ public final class ZGroupedElement extends ZElement implements TextAttributes.Te
         super.changed();
     }
     
+    /**
+     * The group's own count plus those of the grouped elements, so that a change made directly to a grouped element shows as a change to the group
+     * @return the change count
+     */
+    @Override
+    public int getChangeCount() {
+        int count = super.getChangeCount();
+        for (ZElement e : elements)
+            count += e.getChangeCount();
+        return count;
+    }
+    
     /**
      * Pass this on to all grouped elements
      * @param canvas
@@ -464,6 +476,19 @@ public final class ZGroupedElement extends ZElement implements TextAttributes.Te
         } 
     }
     
+    /**
+     * Pass this on to grouped symbol instances, including those in nested groups, so their symbols are added to the canvas's
+     * library. Other grouped elements were removed from the canvas when grouped, and aren't told.
+     * @param canvas
+     */
+    @Override
+    public void addedTo(ZCanvas canvas) {
+        for (ZElement e : elements) {
+            if (e instanceof ZSymbolInstance || e instanceof ZGroupedElement)
+                e.addedTo(canvas);
+        }
+    }
+    
     @Override
     public void flipHorizontal() {
 
@@ -1,15 +1,22 @@
 
 package com.github.kkieffer.jzeld.element;
 
+import com.github.kkieffer.jzeld.ZCanvas;
+import com.github.kkieffer.jzeld.ZRenderingHints;
+import com.github.kkieffer.jzeld.adapters.MipmapCache;
 import com.github.kkieffer.jzeld.adapters.SerializableImage;
+import com.github.kkieffer.jzeld.adapters.TiledImageSource;
 import static com.github.kkieffer.jzeld.element.ZShape.setClip;
 import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -27,7 +34,10 @@ public class ZImage extends ZRectangle {
     
     protected static final Color FILL_COLOR = new Color(255, 255, 255, 0);  //translucent white, default fill unless set explicitly
     
+    private static final int MAX_TILED_COPY_DIMENSION = 4096;  //largest image returned by getImage() for a tiled source
+    
     protected SerializableImage image;
+    protected TiledImageSource tiledSource;  //if not null, the image is painted from the tiled source rather than the in-memory image
     
     protected ZImage() {}
     
@@ -65,13 +75,41 @@ public class ZImage extends ZRectangle {
             image = new SerializableImage();
     }
     
+    /**
+     * Create a ZImage that paints from a tiled image source.  Only the parts of the image that are visible are decoded, at the
+     * resolution required, so very large images don't need to be held in memory.
+     * @param x the x coordinate, upper left x, in units
+     * @param y the y coordinate, upper left y, in units
+     * @param width the width of the object in units
+     * @param height the height of the object in units
+     * @param rotation desired rotation of the component in degrees, clockwise
+     * @param canSelect if the object can be selected by the ZCanvas mouse click
+     * @param canResize if the object can be resized by the mouse drag
+     * @param canMove if the object can be moved by the mouse drag
+     * @param borderWidth unit width of the border, use zero for no border
+     * @param borderColor color of the border, which can be null only if the borderWidth is zero
+     * @param dashPattern the dash pattern of the border, null for solid
+     * @param borderStyle style of the border
+     * @param source the tiled image source
+     * @return the new ZImage
+     */
+    public static ZImage createTiledImage(double x, double y, double width, double height, double rotation, boolean canSelect, boolean canResize, boolean canMove, float borderWidth, Color borderColor, Float[] dashPattern, StrokeStyle borderStyle, TiledImageSource source) {
+        if (source == null)
+            throw new IllegalArgumentException("Tiled image source cannot be null");
+        
+        ZImage i = new ZImage(x, y, width, height, rotation, canSelect, canResize, canMove, borderWidth, borderColor, dashPattern, FILL_COLOR, borderStyle, null);
+        i.tiledSource = source;
+        return i;
+    }
+    
     public ZImage(ZImage copy, boolean forNew) {
         super(copy, forNew);
         this.flipHoriz = copy.flipHoriz;
         this.flipVert = copy.flipVert;
         
-        //Copy image
+        //Copy image (the copy keeps the image id, so mipmap levels are shared)
         this.image = new SerializableImage(copy.image);
+        this.tiledSource = copy.tiledSource;  //immutable, shared along with its decoded tiles
     }
     
     @Override
@@ -95,17 +133,41 @@ public class ZImage extends ZRectangle {
      */
     public void setImage(BufferedImage i) {
         image.setImage(i);
+        tiledSource = null;
         changed();
     }
     
     /**
-     * Retrieves a copy of the image from this element.  
+     * Retrieves a copy of the image from this element.  If the element uses a tiled image source, the image is decoded and may be subsampled
+     * to limit its size.
      * @return a copy of the image
      */
     public Image getImage() {
+        if (tiledSource != null) {
+            try {
+                return tiledSource.readImage(MAX_TILED_COPY_DIMENSION);
+            } catch (IOException ex) {
+                System.err.println(ex);
+                return null;
+            }
+        }
         return image.getImageCopy();
     }
     
+    /**
+     * Get the tiled image source
+     * @return the source, or null if the element holds its image in memory
+     */
+    public TiledImageSource getTiledImageSource() {
+        return tiledSource;
+    }
+    
+    @Override
+    public void removedFrom(ZCanvas canvas) {
+        if (tiledSource != null)
+            tiledSource.close();  //release the file, it is reopened if the element is added back, for instance by an undo
+    }
+    
 
     
     @Override
@@ -116,19 +178,44 @@ public class ZImage extends ZRectangle {
     /**
      * Draw the image on the graphics. This allows subclass overriding to modify the image or change rendering
      * @param g graphics to draw on
-     * @param img the loaded image
+     * @param img the loaded image, or a reduced resolution copy of it when drawing small on screen
      * @param x the x coordinate
      * @param y the y coordinate
      * @param width the image width
      * @param height the image height
      */
     protected void paintImage(Graphics2D g, Image img, final int x, final int y, final int width, final int height) {      
-        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        boolean draft = ZRenderingHints.isDraft(g);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, draft ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, draft ? RenderingHints.VALUE_RENDER_SPEED : RenderingHints.VALUE_RENDER_QUALITY);
         g.drawImage(img, x, y, width, height, null);
     }
     
     
+    /**
+     * Get the image to render at the specified size.  When drawing to the screen, this is a reduced resolution copy of the image from the
+     * MipmapCache that is no smaller than the device pixel size, or a full size copy in the display's format.  For printers and other 
+     * devices, the original image is used.
+     * @param g the graphics the image will be drawn on
+     * @param width the width of the image, in graphics coordinates
+     * @param height the height of the image, in graphics coordinates
+     * @return the image to draw
+     */
+    protected Image getRenderImage(Graphics2D g, double width, double height) {
+        
+        GraphicsConfiguration gc = MipmapCache.getScreenConfiguration(g);
+        if (gc == null)
+            return image.getImage();
+        
+        //Determine the size in device pixels, from the scale of the current transform (includes zoom and any display scaling)
+        AffineTransform t = g.getTransform();
+        double scaleX = Math.hypot(t.getScaleX(), t.getShearY());
+        double scaleY = Math.hypot(t.getShearX(), t.getScaleY());
+        
+        return MipmapCache.getImage(image, Math.abs(width) * scaleX, Math.abs(height) * scaleY, gc);
+    }
+    
+    
     @Override
     public void paint(Graphics2D g, double unitSize, double width, double height) {
              
@@ -139,14 +226,28 @@ public class ZImage extends ZRectangle {
            
         Shape origClip = setClip(g, scaledClip);
                
-        if (image != null) {
+        if (tiledSource != null) {
+            AffineTransform orig = g.getTransform();
+            g.translate(flipHoriz ? width : 0, flipVert ? height : 0);
+            g.scale(flipHoriz ? -1 : 1, flipVert ? -1 : 1);
+            
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, getOpacity()));
+            try {
+                tiledSource.paint(g, width, height);
+            } catch (IOException ex) {
+                System.err.println(ex);  //print exception but continue painting the rest of the canvas
+            }
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+            g.setTransform(orig);
+        }
+        else if (image != null) {
             int x = flipHoriz ? (int)width : 0;
             int w = flipHoriz ? (int)-width : (int)width;
             int y = flipVert ? (int)height : 0;
             int h = flipVert ? (int)-height : (int)height;
 
             g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, getOpacity()));
-            paintImage(g, image.getImage(), x, y, w, h);
+            paintImage(g, getRenderImage(g, width, height), x, y, w, h);
             g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
         }
         
@@ -1,6 +1,8 @@
 package com.github.kkieffer.jzeld.element;
 
 
+import com.github.kkieffer.jzeld.ZCanvasMetrics;
+import com.github.kkieffer.jzeld.adapters.GeometryCache;
 import com.github.kkieffer.jzeld.adapters.ShapeAdapter;
 import com.github.kkieffer.jzeld.attributes.Clippable;
 import static com.github.kkieffer.jzeld.element.ZShape.setClip;
@@ -9,6 +11,7 @@ import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -118,18 +121,49 @@ public abstract class ZPolygon extends ZAbstractShape implements Clippable {
     
     protected abstract Shape getPolygon(double width, double height, double scale);
     
+    /**
+     * Get the parameters, other than the size, that getPolygon() generates the polygon from. Polygons of the same class, parameters
+     * and size are then generated once and shared through the GeometryCache. Subclasses that override getPolygon() with parameters
+     * of their own must override this to add them, or return null.
+     * @param width the width of the polygon
+     * @param height the height of the polygon
+     * @param scale the scale of the polygon
+     * @return the parameters, or null if the polygon isn't shared (the default)
+     */
+    protected double[] getPolygonParameters(double width, double height, double scale) {
+        return null;
+    }
+    
     private Shape getTransformedPolygon(double width, double height, double scale) {
         
-        Shape polygon = getPolygon(width, height, scale);
+        double[] parameters = getPolygonParameters(width, height, scale);
         
+        AffineTransform flip = null;
         if (flipHoriz || flipVert) {
-            AffineTransform scaleInstance = AffineTransform.getScaleInstance(flipHoriz ? -1.0 : 1.0, flipVert ? -1.0 : 1.0);  //scaling negative creates a mirror image the other direction
-            polygon = scaleInstance.createTransformedShape(polygon);
-            scaledClip = scaleInstance.createTransformedShape(scaledClip);
-            
-            AffineTransform translateInstance = AffineTransform.getTranslateInstance(flipHoriz ? width : 0, flipVert ? height : 0);  //move back to where it was
-            polygon = translateInstance.createTransformedShape(polygon);
-            scaledClip = translateInstance.createTransformedShape(scaledClip);
+            flip = AffineTransform.getTranslateInstance(flipHoriz ? width : 0, flipVert ? height : 0);  //move back to where it was
+            flip.scale(flipHoriz ? -1.0 : 1.0, flipVert ? -1.0 : 1.0);  //scaling negative creates a mirror image the other direction
+            scaledClip = flip.createTransformedShape(scaledClip);
+        }
+        
+        if (parameters == null) {
+            Shape polygon = getPolygon(width, height, scale);
+            return flip == null ? polygon : flip.createTransformedShape(polygon);
+        }
+        
+        double[] values = Arrays.copyOf(parameters, parameters.length + 4);
+        values[parameters.length] = width;
+        values[parameters.length + 1] = height;
+        values[parameters.length + 2] = flipHoriz ? 1 : 0;
+        values[parameters.length + 3] = flipVert ? 1 : 0;
+        GeometryCache.Key key = new GeometryCache.Key(getClass(), values);
+        
+        Shape polygon = GeometryCache.get(key);
+        ZCanvasMetrics.getShared().recordGeometryCache(polygon != null);
+        if (polygon == null) {  //not generated at this size before
+            polygon = getPolygon(width, height, scale);
+            if (flip != null)
+                polygon = flip.createTransformedShape(polygon);
+            polygon = GeometryCache.put(key, polygon);
         }
         return polygon;
     }
@@ -99,6 +99,11 @@ public class ZRoundedRectangle extends ZRectangle {
         return radius;
     }
      
+    @Override
+    protected double[] getPolygonParameters(double width, double height, double scale) {
+        return new double[] {scale*radius};
+    }
+    
     @Override
     protected Shape getPolygon(double width, double height, double scale) {
         return new RoundRectangle2D.Double(0, 0, width, height, scale*radius*2, scale*radius*2);
@@ -1,6 +1,7 @@
 
 package com.github.kkieffer.jzeld.element;
 
+import com.github.kkieffer.jzeld.adapters.GeometryCache;
 import com.github.kkieffer.jzeld.adapters.ShapeAdapter;
 import com.github.kkieffer.jzeld.attributes.Clippable;
 import com.github.kkieffer.jzeld.attributes.CustomStroke;
@@ -198,8 +199,8 @@ public class ZShape extends ZAbstractShape implements Clippable {
                     s.getBounds2D().getHeight() == 0 ? MIN_SHAPE_DIMENSION : s.getBounds2D().getHeight(), 
                     rotation, canSelect, canResize, canMove, borderWidth, borderColor, dashPattern, fillColor, borderStyle);        
         this.shape = s;
-        this.paintAttr = pA;
-        this.strokeAttr = sA;
+        this.paintAttr = PaintAttributes.intern(pA);
+        this.strokeAttr = PaintAttributes.intern(sA);
         this.customStroke = cS;        
     }
     
@@ -209,7 +210,7 @@ public class ZShape extends ZAbstractShape implements Clippable {
         this.scaleBorderWithShape = src.scaleBorderWithShape;
          
         //Make a copy of the shape
-        this.shape = ShapeAdapter.copyOf(src.shape);
+        this.shape = GeometryCache.isShared(src.shape) ? src.shape : ShapeAdapter.copyOf(src.shape);  //shared shapes can't change
 
         if (src.clippingShape != null)
             this.clippingShape = ShapeAdapter.copyOf(src.clippingShape);
@@ -241,7 +242,7 @@ public class ZShape extends ZAbstractShape implements Clippable {
     
     @Override
     protected Shape getAbstractShape() {
-        return ShapeAdapter.copyOf(shape);
+        return GeometryCache.isShared(shape) ? shape : ShapeAdapter.copyOf(shape);
     }
     
     /**
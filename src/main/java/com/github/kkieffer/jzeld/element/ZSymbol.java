@@ -0,0 +1,292 @@
+
+package com.github.kkieffer.jzeld.element;
+
+import com.github.kkieffer.jzeld.ZRenderingHints;
+import com.github.kkieffer.jzeld.adapters.MipmapCache;
+import com.github.kkieffer.jzeld.adapters.RasterCache;
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.UUID;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A ZSymbol is a shared definition of content that is placed on the canvas many times, such as a logo.  The definition is stored once,
+ * in the canvas's symbol library, and each placement is a ZSymbolInstance that refers to it and holds only its own position, size,
+ * rotation, shear, flips and opacity.  Changing the definition changes every instance.
+ * <p>
+ * On screen, instances draw the definition from images rendered at the device resolution, shared by all instances of the same
+ * size, so the definition is only rendered once for each size.  The images are kept in the RasterCache, so they count toward
+ * its memory limit with the other rasters.  When printing, the definition is painted directly.
+ * The symbol's area is the bounds of the definition; anything drawn outside them, like a rotated element's corners or its shadow,
+ * is clipped in the shared images.
+ *
+ * @author kkieffer
+ */
+@XmlRootElement(name = "ZSymbol")
+@XmlAccessorType(XmlAccessType.FIELD)
+public final class ZSymbol implements Serializable {
+
+    private static final int MAX_SYMBOL_IMAGE_PIXELS = 2048 * 2048;  //larger than this, paint a translucent symbol directly
+
+    private static final class ImageKey {
+        private final String id;
+        private final int width, height;
+        private final int redefinitions, changeCount;
+
+        private ImageKey(String id, int width, int height, int redefinitions, int changeCount) {
+            this.id = id;
+            this.width = width;
+            this.height = height;
+            this.redefinitions = redefinitions;
+            this.changeCount = changeCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ImageKey))
+                return false;
+            ImageKey k = (ImageKey)o;
+            return id.equals(k.id) && width == k.width && height == k.height && redefinitions == k.redefinitions && changeCount == k.changeCount;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, width, height, redefinitions, changeCount);
+        }
+    }
+
+    @XmlID
+    @XmlAttribute(name = "id")
+    private String id;  //the UUID, as a string for JAXB references
+
+    @XmlAttribute(name = "name")
+    private String name;
+
+    @XmlElement(name="ZElement")
+    private volatile ZElement definition;
+
+    transient private int redefinitions;  //incremented when the definition is replaced
+    transient private HashSet<ImageKey> imageKeys;  //the images rendered of the current definition, which the RasterCache may have discarded
+
+    private ZSymbol() {}
+
+    /**
+     * Create a symbol. The definition is copied, further changes to the element don't change the symbol.
+     * @param name a name for the symbol, for display
+     * @param definition the element drawn by the symbol's instances
+     */
+    public ZSymbol(String name, ZElement definition) {
+        if (definition == null)
+            throw new IllegalArgumentException("Symbol definition cannot be null");
+
+        this.id = UUID.randomUUID().toString();
+        this.name = name;
+        this.definition = definition.copyOf(false);
+    }
+
+    public UUID getUUID() {
+        return UUID.fromString(id);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the element the symbol draws. Changes made to it show in every instance.
+     * @return the definition
+     */
+    public ZElement getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Replace the definition, changing every instance. The element is copied.
+     * @param e the new definition
+     */
+    public synchronized void setDefinition(ZElement e) {
+        if (e == null)
+            throw new IllegalArgumentException("Symbol definition cannot be null");
+
+        definition = e.copyOf(false);
+        redefinitions++;
+        discardImages();
+    }
+
+    /**
+     * Discard the symbol's shared images, for instance when it is removed from the symbol library
+     */
+    public synchronized void discardImages() {
+        if (imageKeys == null)
+            return;
+
+        for (ImageKey k : imageKeys)
+            RasterCache.remove(k);
+        imageKeys = null;
+    }
+
+    /**
+     * Get the natural size of the symbol, the size of its definition
+     * @return the bounds, in units, with the origin at 0,0
+     */
+    public Rectangle2D getBounds2D() {
+        Rectangle2D b = definition.getBounds2D();
+        return new Rectangle2D.Double(0, 0, b.getWidth(), b.getHeight());
+    }
+
+    /**
+     * Paint the symbol, stretched to fill the area from 0,0 to width,height
+     * @param g the graphics to paint on
+     * @param unitSize the number of pixels per unit
+     * @param width the width to fill, in pixels
+     * @param height the height to fill, in pixels
+     * @param opacity the opacity of the whole symbol, from 0 to 1
+     */
+    public void paint(Graphics2D g, double unitSize, double width, double height, float opacity) {
+
+        AffineTransform t = g.getTransform();
+        double scaleX = Math.hypot(t.getScaleX(), t.getShearY());
+        double scaleY = Math.hypot(t.getShearX(), t.getScaleY());
+
+        int pixelWidth = (int)Math.ceil(width * scaleX);
+        int pixelHeight = (int)Math.ceil(height * scaleY);
+        boolean fits = pixelWidth > 0 && pixelHeight > 0 && (long)pixelWidth * pixelHeight <= MAX_SYMBOL_IMAGE_PIXELS;
+        boolean cacheable = RasterCache.fits(pixelWidth, pixelHeight);
+
+        //On screen, draw from the shared images. Elsewhere, paint directly, unless the symbol is translucent: the definition's
+        //elements set their own opacity, so it is first painted into an image that is then drawn translucent
+        GraphicsConfiguration gc = MipmapCache.getScreenConfiguration(g);
+        BufferedImage image = null;
+        if (cacheable && gc != null) {
+            image = getImage(g, gc, unitSize, width, height, pixelWidth, pixelHeight);
+            if (image == null && ZRenderingHints.deferRaster(g))  //out of time to render it, stretch another size, or else paint directly
+                image = getOtherImage();
+        }
+        if (image == null && fits && opacity < 1.0f)
+            image = renderImage(g, null, definition, unitSize, width, height, pixelWidth, pixelHeight);
+
+        if (image == null) {
+            paintDefinition(g, definition, unitSize, width, height);
+            return;
+        }
+
+        //The image is at device resolution, so unless rotated or another size, there's no need to interpolate
+        boolean stretched = t.getShearX() != 0 || t.getShearY() != 0 || image.getWidth() != pixelWidth || image.getHeight() != pixelHeight;
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, stretched ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        Composite origComposite = g.getComposite();
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+        g.drawImage(image, AffineTransform.getScaleInstance(width / image.getWidth(), height / image.getHeight()), null);
+        g.setComposite(origComposite);
+    }
+
+    //Paint the definition, its bounds mapped to the area
+    private static void paintDefinition(Graphics2D g, ZElement definition, double unitSize, double width, double height) {
+
+        Rectangle2D b = definition.getBounds2D(unitSize);
+        if (b.getWidth() <= 0 || b.getHeight() <= 0)
+            return;
+
+        AffineTransform orig = g.getTransform();
+        g.scale(width / b.getWidth(), height / b.getHeight());
+        g.translate(-b.getX(), -b.getY());
+        g.transform(definition.getElementTransform(unitSize, false));
+        g.translate(b.getX(), b.getY());
+        definition.paint(g, unitSize, b.getWidth(), b.getHeight());
+        g.setTransform(orig);
+    }
+
+    //Paint the definition into a new image of the pixel size, for screen if gc is not null
+    private static BufferedImage renderImage(Graphics2D g, GraphicsConfiguration gc, ZElement definition, double unitSize, double width, double height, int pixelWidth, int pixelHeight) {
+
+        BufferedImage image = gc != null ? gc.createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT) : new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D ig = image.createGraphics();
+        ig.setRenderingHints(g.getRenderingHints());
+        ig.setRenderingHint(ZRenderingHints.KEY_DRAFT, false);  //the image may be kept, so render it at full quality
+        ig.scale(pixelWidth / width, pixelHeight / height);
+        paintDefinition(ig, definition, unitSize, width, height);
+        ig.dispose();
+        return image;
+    }
+
+    /**
+     * Get the shared image of the symbol at the pixel size, rendering it if needed
+     * @return the image, or null if it isn't cached and the paint may not render a raster, see ZRenderingHints.admitRaster()
+     */
+    private BufferedImage getImage(Graphics2D g, GraphicsConfiguration gc, double unitSize, double width, double height, int pixelWidth, int pixelHeight) {
+
+        ZElement def;
+        ImageKey key;
+        synchronized (this) {
+            def = definition;
+            key = new ImageKey(id, pixelWidth, pixelHeight, redefinitions, def.getChangeCount());  //changes to the definition are picked up too
+        }
+
+        BufferedImage image = RasterCache.get(key);
+        if (image != null || !ZRenderingHints.admitRaster(g))  //when the canvas is short on time, don't spend it rendering the image
+            return image;
+
+        image = renderImage(g, gc, def, unitSize, width, height, pixelWidth, pixelHeight);
+
+        synchronized (this) {
+            if (key.redefinitions != redefinitions)  //redefined while rendering
+                return image;
+
+            //Drop the images of earlier changes to the definition, and forget the ones the cache discarded
+            if (imageKeys == null)
+                imageKeys = new HashSet<>();
+            for (Iterator<ImageKey> it = imageKeys.iterator(); it.hasNext(); ) {
+                ImageKey k = it.next();
+                if (k.changeCount != key.changeCount || !RasterCache.contains(k)) {
+                    RasterCache.remove(k);
+                    it.remove();
+                }
+            }
+
+            if (RasterCache.put(key, image))
+                imageKeys.add(key);
+        }
+        return image;
+    }
+
+    /**
+     * Get the largest shared image of the current definition, at any size
+     * @return the image, or null if none
+     */
+    private synchronized BufferedImage getOtherImage() {
+
+        if (imageKeys == null)
+            return null;
+
+        int changeCount = definition.getChangeCount();
+        BufferedImage largest = null;
+        for (ImageKey k : imageKeys) {
+            if (k.changeCount != changeCount || (largest != null && (long)k.width * k.height <= (long)largest.getWidth() * largest.getHeight()))
+                continue;
+            BufferedImage image = RasterCache.get(k);
+            if (image != null)
+                largest = image;
+        }
+        return largest;
+    }
+
+}
@@ -0,0 +1,125 @@
+
+package com.github.kkieffer.jzeld.element;
+
+import com.github.kkieffer.jzeld.ZCanvas;
+import static com.github.kkieffer.jzeld.element.ZShape.setClip;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A ZSymbolInstance places a ZSymbol on the canvas.  It holds only its position, size, rotation, shear, flips and opacity, and refers
+ * to the symbol by its id, so copying it, saving it, or saving it for undo doesn't copy the symbol's content.  The symbol is stretched
+ * to fill the instance's bounds.  Like a ZImage, the instance is a rectangle that may have a border and fill of its own.
+ * <p>
+ * When added to a canvas, alone or within a group, the symbol is added to the canvas's symbol library if it isn't there already.
+ *
+ * @author kkieffer
+ */
+@XmlRootElement(name = "ZSymbolInstance")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ZSymbolInstance extends ZRectangle {
+
+    protected static final Color FILL_COLOR = new Color(255, 255, 255, 0);  //transparent, so clicking anywhere on the instance selects it
+
+    @XmlIDREF
+    @XmlAttribute(name = "symbol")
+    private ZSymbol symbol;
+
+    protected ZSymbolInstance() {}
+
+    /**
+     * Create an instance at the symbol's size
+     * @param symbol the symbol to place
+     * @param x the x coordinate, upper left x, in units
+     * @param y the y coordinate, upper left y, in units
+     */
+    public ZSymbolInstance(ZSymbol symbol, double x, double y) {
+        this(symbol, x, y, symbol.getBounds2D().getWidth(), symbol.getBounds2D().getHeight(), 0.0, true, true, true);
+    }
+
+    /**
+     * Create an instance
+     * @param symbol the symbol to place
+     * @param x the x coordinate, upper left x, in units
+     * @param y the y coordinate, upper left y, in units
+     * @param width the width of the object in units
+     * @param height the height of the object in units
+     * @param rotation desired rotation of the component in degrees, clockwise
+     * @param canSelect if the object can be selected by the ZCanvas mouse click
+     * @param canResize if the object can be resized by the mouse drag
+     * @param canMove if the object can be moved by the mouse drag
+     */
+    public ZSymbolInstance(ZSymbol symbol, double x, double y, double width, double height, double rotation, boolean canSelect, boolean canResize, boolean canMove) {
+        super(x, y, width, height, rotation, canSelect, canResize, canMove, 0.0f, Color.BLACK, null, FILL_COLOR, StrokeStyle.SQUARE);
+        if (symbol == null)
+            throw new IllegalArgumentException("Symbol cannot be null");
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Width and height must be positive value");
+
+        this.symbol = symbol;
+    }
+
+    protected ZSymbolInstance(ZSymbolInstance copy, boolean forNew) {
+        super(copy, forNew);
+        this.symbol = copy.symbol;  //shared, not copied
+    }
+
+    @Override
+    public ZSymbolInstance copyOf(boolean forNew) {
+        return new ZSymbolInstance(this, forNew);
+    }
+
+    @Override
+    protected String getShapeSummary() {
+        return "A placement of a symbol.";
+    }
+
+    @Override
+    protected String getShapeDescription() {
+        return "Changing the symbol changes all of its placements.";
+    }
+
+    /**
+     * Get the symbol this instance places
+     * @return the symbol, or null if it was removed from the canvas before this instance was saved
+     */
+    public ZSymbol getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public void addedTo(ZCanvas canvas) {
+        if (symbol != null)
+            canvas.addSymbol(symbol);
+    }
+
+    @Override
+    public void paint(Graphics2D g, double unitSize, double width, double height) {
+
+        if (!isVisible())
+            return;
+
+        super.paint(g, unitSize, width, height);
+
+        if (symbol == null)
+            return;
+
+        Shape origClip = setClip(g, scaledClip);
+
+        AffineTransform orig = g.getTransform();
+        g.translate(flipHoriz ? width : 0, flipVert ? height : 0);
+        g.scale(flipHoriz ? -1 : 1, flipVert ? -1 : 1);
+        symbol.paint(g, unitSize, width, height, getOpacity());
+        g.setTransform(orig);
+
+        g.setClip(origClip);
+    }
+
+}
@@ -2,7 +2,9 @@
 package com.github.kkieffer.jzeld.element;
 
 import com.github.kkieffer.jzeld.ZCanvas;
+import com.github.kkieffer.jzeld.ZCanvasMetrics;
 import com.github.kkieffer.jzeld.adapters.DialogUtils;
+import com.github.kkieffer.jzeld.adapters.GeometryCache;
 import com.github.kkieffer.jzeld.attributes.PaintAttributes;
 import java.awt.BorderLayout;
 import java.awt.Color;
@@ -141,15 +143,23 @@ public class ZWave extends ZShape {
     
     protected void updateShape() {
         
-             
-        Shape wave = createWave(halfWaves);
-        
-        Rectangle2D bounds = wave.getBounds2D();  
         Rectangle2D currentSize = this.getBounds2D();
         
-        //Reset the shape to origin bounds, and scale it to the current shape bounds
-        wave = AffineTransform.getTranslateInstance(-bounds.getX(), -bounds.getY()).createTransformedShape(wave);
-        wave = AffineTransform.getScaleInstance(currentSize.getWidth()/bounds.getWidth(), currentSize.getHeight()/bounds.getHeight()).createTransformedShape(wave);
+        //Waves with the same number of half waves and size share one shape
+        GeometryCache.Key key = new GeometryCache.Key(ZWave.class, halfWaves, currentSize.getWidth(), currentSize.getHeight());
+        Shape wave = GeometryCache.get(key);
+        ZCanvasMetrics.getShared().recordGeometryCache(wave != null);
+        
+        if (wave == null) {
+            wave = createWave(halfWaves);
+
+            Rectangle2D bounds = wave.getBounds2D();  
+
+            //Reset the shape to origin bounds, and scale it to the current shape bounds, in one transform
+            AffineTransform fit = AffineTransform.getScaleInstance(currentSize.getWidth()/bounds.getWidth(), currentSize.getHeight()/bounds.getHeight());
+            fit.translate(-bounds.getX(), -bounds.getY());
+            wave = GeometryCache.put(key, fit.createTransformedShape(wave));
+        }
         
         super.setShape(wave);
     }
@@ -0,0 +1,162 @@
+
+package com.github.kkieffer.jzeld.geometry;
+
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.element.ZAbstractShape.ComputeProgress;
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The default geometry engine, using java.awt.geom.Area, which keeps curves exact.  Join and Exclusive Join are associative, so the
+ * shapes are combined in a balanced tree of pairs on the common fork-join pool, rather than one at a time into an ever larger area.
+ * Subtract unions the shapes that overlap the reference the same way and subtracts the union once.  Intersect stops as soon as
+ * the intersection is empty.
+ *
+ * @author kkieffer
+ */
+public final class AreaEngine implements GeometryEngine {
+    
+    private static final AreaEngine shared = new AreaEngine();
+    
+    /**
+     * Get the shared engine, which has no state
+     * @return the shared engine
+     */
+    public static AreaEngine getShared() {
+        return shared;
+    }
+    
+    private AreaEngine() {}
+    
+    
+    @Override
+    public Shape combine(CombineOperation operation, Shape ref, List<Shape> shapes, ComputeProgress progress) {
+        
+        Area a;
+        Rectangle2D refBounds = ref.getBounds2D();
+        
+        switch (operation) {
+            case Join:
+            case Exclusive_Join:
+                Shape[] all = new Shape[shapes.size() + 1];
+                all[0] = ref;
+                for (int i=0; i<shapes.size(); i++)
+                    all[i+1] = shapes.get(i);
+                
+                a = ForkJoinPool.commonPool().invoke(new AreaReduction(operation, all, 0, all.length, new ReductionProgress(all.length - 1, progress)));
+                break;
+            
+            case Subtract:
+                ArrayList<Shape> overlapping = new ArrayList<>(shapes.size());
+                for (Shape from : shapes) {
+                    if (from.getBounds2D().intersects(refBounds))  //can't remove anything if bounds don't overlap
+                        overlapping.add(from);
+                }
+                
+                a = new Area(ref);
+                if (!overlapping.isEmpty()) {
+                    Shape[] sub = overlapping.toArray(new Shape[overlapping.size()]);
+                    ReductionProgress p = new ReductionProgress(sub.length, progress);  //unions, plus the subtraction
+                    a.subtract(ForkJoinPool.commonPool().invoke(new AreaReduction(CombineOperation.Join, sub, 0, sub.length, p)));
+                    p.step();
+                }
+                break;
+                
+            case Intersect:
+                ReductionProgress p = new ReductionProgress(shapes.size(), progress);
+                for (Shape from : shapes) {  //check bounds first, any miss means nothing is left
+                    if (!from.getBounds2D().intersects(refBounds))
+                        return null;
+                }
+                a = new Area(ref);
+                for (Shape from : shapes) {
+                    p.checkCancelled();
+                    a.intersect(new Area(from));
+                    p.step();
+                    if (a.isEmpty())
+                        return null;
+                }
+                break;
+                
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+        
+        if (a.isEmpty())
+            return null;
+               
+        return a;
+    }
+    
+    
+    //Tracks completed steps of a combine, reporting to a ComputeProgress from any thread
+    static class ReductionProgress {
+        
+        private final AtomicInteger done = new AtomicInteger();
+        private final int total;
+        private final ComputeProgress progress;
+        
+        ReductionProgress(int total, ComputeProgress progress) {
+            this.total = Math.max(1, total);
+            this.progress = progress;
+        }
+        
+        void step() {
+            if (progress != null)
+                progress.progress(100.0f * done.incrementAndGet() / total);
+        }
+        
+        void checkCancelled() {
+            if (progress != null && progress.isCancelled())
+                throw new CancellationException("Combine cancelled");
+        }
+    }
+    
+    //Joins or exclusive-joins a range of shapes by recursively combining each half, which keeps the areas being combined similar in size
+    private static class AreaReduction extends RecursiveTask<Area> {
+        
+        private final CombineOperation operation;
+        private final Shape[] shapes;
+        private final int from, to;
+        private final ReductionProgress progress;
+        
+        private AreaReduction(CombineOperation operation, Shape[] shapes, int from, int to, ReductionProgress progress) {
+            this.operation = operation;
+            this.shapes = shapes;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+        }
+        
+        @Override
+        protected Area compute() {
+            
+            progress.checkCancelled();
+            
+            if (to - from == 1)
+                return new Area(shapes[from]);
+                
+            int mid = (from + to) >>> 1;
+            AreaReduction left = new AreaReduction(operation, shapes, from, mid, progress);
+            left.fork();
+            Area a = new AreaReduction(operation, shapes, mid, to, progress).compute();
+            Area b = left.join();
+            
+            progress.checkCancelled();
+            if (operation == CombineOperation.Exclusive_Join)
+                b.exclusiveOr(a);
+            else
+                b.add(a);
+            progress.step();
+            return b;
+        }
+    }
+    
+}
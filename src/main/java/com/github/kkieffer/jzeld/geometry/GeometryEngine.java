@@ -0,0 +1,29 @@
+
+package com.github.kkieffer.jzeld.geometry;
+
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.element.ZAbstractShape.ComputeProgress;
+import java.awt.Shape;
+import java.util.List;
+
+/**
+ * A boolean geometry engine, used to combine shapes.  AreaEngine, using java.awt.geom.Area, is the default.  PolygonClipEngine
+ * flattens curves and combines all the shapes in a single sweep, at the cost of replacing curves by lines.
+ *
+ * @author kkieffer
+ */
+public interface GeometryEngine {
+    
+    /**
+     * Combine a reference shape with a list of others.  The operation is applied to the reference and each shape in order,
+     * though engines may combine in any order that gives the same result.
+     * @param operation the operation, any but Append
+     * @param ref the reference shape
+     * @param shapes the shapes combined with the reference
+     * @param progress receives the percent complete and is polled for cancellation, possibly from other threads. Can be null.
+     * @return the combined shape, or null if the result has no area
+     * @throws java.util.concurrent.CancellationException if the progress reports it was cancelled
+     */
+    public Shape combine(CombineOperation operation, Shape ref, List<Shape> shapes, ComputeProgress progress);
+    
+}
@@ -0,0 +1,684 @@
+
+package com.github.kkieffer.jzeld.geometry;
+
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.element.ZAbstractShape.ComputeProgress;
+import java.awt.Shape;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A sweep-line polygon clipper in the style of Vatti's algorithm.  All shapes are flattened into line segments and combined in a
+ * single pass, however many there are, so joining thousands of shapes takes one sweep rather than thousands of pairwise Area operations.  Curves in
+ * the result are replaced by lines within the flattening tolerance.
+ * <p>
+ * The edges are snapped to an integer grid, stored in primitive double arrays, and split wherever they cross.  The plane is then
+ * swept in horizontal beams between successive vertex heights.  Within a beam no edges cross, so walking the edges left to right
+ * while counting the winding of each shape tells where the result is inside.  Edges where the result changes from outside to inside,
+ * and the horizontal steps where the inside intervals differ between one beam and the next, are the result boundary.  These are
+ * directed with the inside always on the same side and joined end to end into closed rings.  Working on the grid makes coincident
+ * edges compare exactly, so shared edges between shapes disappear from the result.
+ *
+ * @author kkieffer
+ */
+public class PolygonClipEngine implements GeometryEngine {
+
+    public static final double DEFAULT_FLATNESS = 0.001;
+
+    private static final double MAX_GRID = 1 << 25;  //grid coordinates stay below this, so products of two are exact in a double
+    private static final double GRID_PER_FLATNESS = 1000.0;  //grid steps per flattening tolerance, if the shapes are small enough
+
+    private final double flatness;
+
+    /**
+     * Create an engine with the default flattening tolerance, DEFAULT_FLATNESS
+     */
+    public PolygonClipEngine() {
+        this(DEFAULT_FLATNESS);
+    }
+
+    /**
+     * Create an engine
+     * @param flatness the maximum distance between a curve and the lines that replace it, in the units of the shapes
+     */
+    public PolygonClipEngine(double flatness) {
+        if (flatness <= 0)
+            throw new IllegalArgumentException("Flatness must be positive");
+        this.flatness = flatness;
+    }
+
+    public double getFlatness() {
+        return flatness;
+    }
+
+
+    @Override
+    public Shape combine(CombineOperation operation, Shape ref, List<Shape> shapes, ComputeProgress progress) {
+
+        Rectangle2D refBounds = ref.getBounds2D();
+        ArrayList<Shape> operands = new ArrayList<>(shapes.size() + 1);
+        operands.add(ref);
+
+        switch (operation) {
+            case Join:
+            case Exclusive_Join:
+                operands.addAll(shapes);
+                break;
+            case Subtract:
+                for (Shape s : shapes)
+                    if (s.getBounds2D().intersects(refBounds))  //can't remove anything if bounds don't overlap
+                        operands.add(s);
+                break;
+            case Intersect:
+                for (Shape s : shapes) {
+                    if (!s.getBounds2D().intersects(refBounds))  //any miss means nothing is left
+                        return null;
+                    operands.add(s);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+
+        Rectangle2D bounds = (Rectangle2D)refBounds.clone();
+        if (operation != CombineOperation.Intersect && operation != CombineOperation.Subtract)  //the result lies within the reference for these
+            for (Shape s : operands)
+                bounds.add(s.getBounds2D());
+
+        if (bounds.isEmpty())
+            return null;
+
+        Clipper c = new Clipper(operation, operands.size(), bounds, progress);
+        for (int i=0; i<operands.size(); i++) {
+            c.addShape(i, operands.get(i));
+            c.progress(10.0f * i / operands.size());
+        }
+
+        return c.execute();
+    }
+
+
+    /**
+     * The state of one combine.  Edges are kept with the lower end first (y1 < y2), the direction they had in the shape, and the
+     * operand (shape index) they came from.  Horizontal edges are dropped, since they don't change the winding within any beam.
+     */
+    private class Clipper {
+
+        private final CombineOperation operation;
+        private final int operandCount;
+        private final int[] windingRule;
+        private final ComputeProgress progress;
+
+        private final double originX, originY, step;
+
+        private double[] ex1 = new double[256], ey1 = new double[256], ex2 = new double[256], ey2 = new double[256];
+        private int[] edir = new int[256], eop = new int[256];
+        private int edgeCount;
+
+        private double[] sx0 = new double[256], sy0 = new double[256], sx1 = new double[256], sy1 = new double[256];
+        private int segmentCount;
+
+        private Clipper(CombineOperation operation, int operandCount, Rectangle2D bounds, ComputeProgress progress) {
+            this.operation = operation;
+            this.operandCount = operandCount;
+            this.progress = progress;
+            windingRule = new int[operandCount];
+
+            originX = bounds.getX();
+            originY = bounds.getY();
+            step = Math.max(flatness / GRID_PER_FLATNESS, Math.max(bounds.getWidth(), bounds.getHeight()) / MAX_GRID);
+        }
+
+        private void progress(float percent) {
+            if (progress == null)
+                return;
+            if (progress.isCancelled())
+                throw new CancellationException("Combine cancelled");
+            progress.progress(percent);
+        }
+
+
+        /* ------------- FLATTEN ---------------------- */
+
+        private void addShape(int op, Shape s) {
+
+            PathIterator it = new FlatteningPathIterator(s.getPathIterator(null), flatness);
+            windingRule[op] = it.getWindingRule();
+
+            double[] c = new double[6];
+            double startX = 0, startY = 0, lastX = 0, lastY = 0;
+
+            while (!it.isDone()) {
+                switch (it.currentSegment(c)) {
+                    case PathIterator.SEG_MOVETO:
+                        addEdge(lastX, lastY, startX, startY, op);  //implicitly close the last subpath
+                        startX = lastX = Math.rint((c[0] - originX) / step);
+                        startY = lastY = Math.rint((c[1] - originY) / step);
+                        break;
+                    case PathIterator.SEG_LINETO:
+                        double x = Math.rint((c[0] - originX) / step);
+                        double y = Math.rint((c[1] - originY) / step);
+                        addEdge(lastX, lastY, x, y, op);
+                        lastX = x;
+                        lastY = y;
+                        break;
+                    case PathIterator.SEG_CLOSE:
+                        addEdge(lastX, lastY, startX, startY, op);
+                        lastX = startX;
+                        lastY = startY;
+                        break;
+                }
+                it.next();
+            }
+            addEdge(lastX, lastY, startX, startY, op);
+        }
+
+        private void addEdge(double xa, double ya, double xb, double yb, int op) {
+            if (ya == yb)  //horizontal or empty
+                return;
+
+            if (edgeCount == ex1.length) {
+                int n = edgeCount * 2;
+                ex1 = Arrays.copyOf(ex1, n);
+                ey1 = Arrays.copyOf(ey1, n);
+                ex2 = Arrays.copyOf(ex2, n);
+                ey2 = Arrays.copyOf(ey2, n);
+                edir = Arrays.copyOf(edir, n);
+                eop = Arrays.copyOf(eop, n);
+            }
+
+            if (ya < yb) {
+                ex1[edgeCount] = xa; ey1[edgeCount] = ya; ex2[edgeCount] = xb; ey2[edgeCount] = yb;
+                edir[edgeCount] = 1;
+            } else {
+                ex1[edgeCount] = xb; ey1[edgeCount] = yb; ex2[edgeCount] = xa; ey2[edgeCount] = ya;
+                edir[edgeCount] = -1;
+            }
+            eop[edgeCount] = op;
+            edgeCount++;
+        }
+
+        //The x coordinate of an edge at height y, rounded to the grid.  Collinear edges give identical results.
+        private double xAt(int e, double y) {
+            if (y == ey1[e])
+                return ex1[e];
+            if (y == ey2[e])
+                return ex2[e];
+            return Math.rint((ex1[e] * (ey2[e] - y) + ex2[e] * (y - ey1[e])) / (ey2[e] - ey1[e]));
+        }
+
+
+        /* ------------- SPLIT AT CROSSINGS ---------------------- */
+
+        //Sweep down the edges in order of their top, testing each against those still active, and split both wherever they meet
+        private void splitCrossings() {
+
+            Integer[] order = sortByTop(edgeCount);
+
+            @SuppressWarnings("unchecked")
+            ArrayList<double[]>[] splits = new ArrayList[edgeCount];
+
+            int[] active = new int[64];
+            int activeCount = 0;
+
+            for (int k=0; k<order.length; k++) {
+
+                int e = order[k];
+
+                int n = 0;  //drop active edges that end above this one
+                for (int i=0; i<activeCount; i++)
+                    if (ey2[active[i]] > ey1[e])
+                        active[n++] = active[i];
+                activeCount = n;
+
+                double eMinX = Math.min(ex1[e], ex2[e]);
+                double eMaxX = Math.max(ex1[e], ex2[e]);
+
+                for (int i=0; i<activeCount; i++) {
+                    int a = active[i];
+                    if (Math.max(ex1[a], ex2[a]) < eMinX || Math.min(ex1[a], ex2[a]) > eMaxX)
+                        continue;
+                    intersect(e, a, splits);
+                }
+
+                if (activeCount == active.length)
+                    active = Arrays.copyOf(active, activeCount * 2);
+                active[activeCount++] = e;
+
+                if ((k & 0xFFF) == 0)
+                    progress(10.0f + 30.0f * k / order.length);
+            }
+
+            //Replace split edges by their pieces
+            int count = edgeCount;
+            for (int e=0; e<count; e++) {
+                if (splits[e] == null)
+                    continue;
+
+                ArrayList<double[]> points = splits[e];
+                points.sort(new java.util.Comparator<double[]>() {
+                    @Override
+                    public int compare(double[] p, double[] q) {
+                        return Double.compare(p[1], q[1]);
+                    }
+                });
+
+                double x = ex1[e], y = ey1[e];
+                double endX = ex2[e], endY = ey2[e];
+                boolean first = true;
+                for (double[] p : points) {
+                    if (p[1] == y)  //duplicate
+                        continue;
+                    if (first) {  //shorten the original edge to the first piece
+                        ex2[e] = p[0];
+                        ey2[e] = p[1];
+                        first = false;
+                    } else
+                        addPiece(x, y, p[0], p[1], e);
+                    x = p[0];
+                    y = p[1];
+                }
+                if (first) {
+                    ex2[e] = endX;
+                    ey2[e] = endY;
+                } else
+                    addPiece(x, y, endX, endY, e);
+            }
+        }
+
+        private void addPiece(double xa, double ya, double xb, double yb, int from) {
+            int op = eop[from];
+            int dir = edir[from];
+            addEdge(xa, ya, xb, yb, op);
+            edir[edgeCount - 1] = dir;
+        }
+
+        private void intersect(int p, int q, ArrayList<double[]>[] splits) {
+
+            double px = ex2[p] - ex1[p], py = ey2[p] - ey1[p];
+            double qx = ex2[q] - ex1[q], qy = ey2[q] - ey1[q];
+            double d = px * qy - py * qx;
+            double wx = ex1[q] - ex1[p], wy = ey1[q] - ey1[p];
+
+            if (d == 0) {
+                if (wx * py - wy * px != 0)  //parallel but not collinear
+                    return;
+
+                //Collinear: split each at the other's ends that lie inside it
+                addSplit(p, ex1[q], ey1[q], splits);
+                addSplit(p, ex2[q], ey2[q], splits);
+                addSplit(q, ex1[p], ey1[p], splits);
+                addSplit(q, ex2[p], ey2[p], splits);
+                return;
+            }
+
+            double t = (wx * qy - wy * qx) / d;
+            double u = (wx * py - wy * px) / d;
+            if (t < 0 || t > 1 || u < 0 || u > 1)
+                return;
+
+            double x = Math.rint(ex1[p] + t * px);
+            double y = Math.rint(ey1[p] + t * py);
+            addSplit(p, x, y, splits);
+            addSplit(q, x, y, splits);
+        }
+
+        //Split an edge at a point, if the point is strictly between its ends
+        private void addSplit(int e, double x, double y, ArrayList<double[]>[] splits) {
+            if (y <= ey1[e] || y >= ey2[e])
+                return;
+            if (splits[e] == null)
+                splits[e] = new ArrayList<>(2);
+            splits[e].add(new double[]{x, y});
+        }
+
+        private Integer[] sortByTop(int count) {
+            Integer[] order = new Integer[count];
+            for (int i=0; i<count; i++)
+                order[i] = i;
+            Arrays.sort(order, new java.util.Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(ey1[a], ey1[b]);
+                }
+            });
+            return order;
+        }
+
+
+        /* ------------- SWEEP ---------------------- */
+
+        private Shape execute() {
+
+            splitCrossings();
+
+            //Every edge end is a beam boundary
+            double[] levels = new double[edgeCount * 2];
+            for (int e=0; e<edgeCount; e++) {
+                levels[2*e] = ey1[e];
+                levels[2*e + 1] = ey2[e];
+            }
+            Arrays.sort(levels);
+            int levelCount = 0;
+            for (int i=0; i<levels.length; i++)
+                if (levelCount == 0 || levels[i] != levels[levelCount - 1])
+                    levels[levelCount++] = levels[i];
+
+            Integer[] order = sortByTop(edgeCount);
+            int next = 0;
+
+            //Active edges, kept in left to right order.  Edges don't cross within a beam, so the order carries from one beam to the next.
+            int[] active = new int[64];
+            double[] xb = new double[64], xt = new double[64];
+            int activeCount = 0;
+
+            int[] winding = new int[operandCount];
+            int[] touched = new int[64];
+
+            int[] segment = new int[edgeCount];  //the boundary segment last made from each edge, and the level where it ends
+            double[] segmentEnd = new double[edgeCount];
+            Arrays.fill(segment, -1);
+
+            double[] above = new double[16];  //inside toggles of the beam above the current level, at the level
+            int aboveCount = 0;
+            double[] below = new double[16];  //inside toggles of the beam below the current level, at the level
+            int belowCount;
+            double[] belowTop = new double[16];  //inside toggles of the beam below, at the next level
+            int belowTopCount;
+
+            for (int k=0; k<levelCount; k++) {
+
+                double y = levels[k];
+                double y2 = k < levelCount - 1 ? levels[k+1] : y;
+
+                int n = 0;
+                for (int i=0; i<activeCount; i++)
+                    if (ey2[active[i]] > y)
+                        active[n++] = active[i];
+                activeCount = n;
+
+                while (next < order.length && ey1[order[next]] == y) {
+                    if (activeCount == active.length) {
+                        active = Arrays.copyOf(active, activeCount * 2);
+                        xb = new double[activeCount * 2];
+                        xt = new double[activeCount * 2];
+                    }
+                    active[activeCount++] = order[next++];
+                }
+
+                belowCount = 0;
+                belowTopCount = 0;
+
+                if (activeCount > 0 && k < levelCount - 1) {
+
+                    //Position at the top and bottom of the beam, and restore the order with an insertion sort, fast since nearly sorted
+                    for (int i=0; i<activeCount; i++) {
+                        int e = active[i];
+                        double b = xAt(e, y);
+                        double t = xAt(e, y2);
+                        int j = i - 1;
+                        while (j >= 0 && (xb[j] > b || (xb[j] == b && xt[j] > t))) {
+                            active[j+1] = active[j];
+                            xb[j+1] = xb[j];
+                            xt[j+1] = xt[j];
+                            j--;
+                        }
+                        active[j+1] = e;
+                        xb[j+1] = b;
+                        xt[j+1] = t;
+                    }
+
+                    //Walk the edges left to right, in groups of coincident edges
+                    int insideCount = 0;
+                    boolean refInside = false;
+                    int touchedCount = 0;
+                    boolean inside = false;
+
+                    if (below.length < activeCount) {
+                        below = new double[activeCount * 2];
+                        belowTop = new double[activeCount * 2];
+                    }
+
+                    int i = 0;
+                    while (i < activeCount) {
+                        int first = active[i];
+                        double bx = xb[i], tx = xt[i];
+
+                        while (i < activeCount && xb[i] == bx && xt[i] == tx) {
+                            int e = active[i];
+                            int op = eop[e];
+                            boolean was = isInside(op, winding[op]);
+                            if (winding[op] == 0) {
+                                if (touchedCount == touched.length)
+                                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                                touched[touchedCount++] = op;
+                            }
+                            winding[op] += edir[e];
+                            boolean now = isInside(op, winding[op]);
+                            if (was != now) {
+                                insideCount += now ? 1 : -1;
+                                if (op == 0)
+                                    refInside = now;
+                            }
+                            i++;
+                        }
+
+                        boolean result = resultInside(insideCount, refInside);
+                        if (result != inside) {
+                            int s = segment[first];
+                            boolean extend = s >= 0 && segmentEnd[first] == y;
+                            if (result) {  //inside to the right, go up
+                                if (extend && sy1[s] < sy0[s]) {
+                                    sx0[s] = tx;
+                                    sy0[s] = y2;
+                                } else
+                                    s = addSegment(tx, y2, bx, y);
+                            } else {  //inside to the left, go down
+                                if (extend && sy1[s] > sy0[s]) {
+                                    sx1[s] = tx;
+                                    sy1[s] = y2;
+                                } else
+                                    s = addSegment(bx, y, tx, y2);
+                            }
+                            segment[first] = s;
+                            segmentEnd[first] = y2;
+
+                            below[belowCount++] = bx;
+                            belowTop[belowTopCount++] = tx;
+                            inside = result;
+                        }
+                    }
+
+                    for (int t=0; t<touchedCount; t++)
+                        winding[touched[t]] = 0;
+                }
+
+                addHorizontals(y, above, aboveCount, below, belowCount);
+
+                //The beam below becomes the beam above the next level
+                double[] swap = above;
+                above = belowTop;
+                aboveCount = belowTopCount;
+                belowTop = swap;
+                if (belowTop.length < above.length)
+                    belowTop = new double[above.length];
+
+                if ((k & 0xFF) == 0)
+                    progress(40.0f + 50.0f * k / levelCount);
+            }
+
+            return link();
+        }
+
+        private boolean isInside(int op, int winding) {
+            if (windingRule[op] == PathIterator.WIND_EVEN_ODD)
+                return (winding & 1) != 0;
+            else
+                return winding != 0;
+        }
+
+        private boolean resultInside(int insideCount, boolean refInside) {
+            switch (operation) {
+                case Join:
+                    return insideCount > 0;
+                case Intersect:
+                    return insideCount == operandCount;
+                case Subtract:
+                    return refInside && insideCount == 1;
+                default:
+                    return (insideCount & 1) != 0;
+            }
+        }
+
+        //At a level, the result boundary runs horizontally wherever the beam above and the beam below differ
+        private void addHorizontals(double y, double[] above, int aboveCount, double[] below, int belowCount) {
+
+            if (aboveCount == 0 && belowCount == 0)
+                return;
+
+            Arrays.sort(above, 0, aboveCount);
+            Arrays.sort(below, 0, belowCount);
+
+            int a = 0, b = 0;
+            boolean inAbove = false, inBelow = false;
+            double lastX = 0;
+
+            while (a < aboveCount || b < belowCount) {
+                double x = Math.min(a < aboveCount ? above[a] : Double.MAX_VALUE, b < belowCount ? below[b] : Double.MAX_VALUE);
+
+                if (inBelow && !inAbove && x > lastX)
+                    addSegment(lastX, y, x, y);  //inside below, go right
+                else if (inAbove && !inBelow && x > lastX)
+                    addSegment(x, y, lastX, y);  //inside above, go left
+
+                while (a < aboveCount && above[a] == x) {
+                    inAbove = !inAbove;
+                    a++;
+                }
+                while (b < belowCount && below[b] == x) {
+                    inBelow = !inBelow;
+                    b++;
+                }
+                lastX = x;
+            }
+        }
+
+        private int addSegment(double x0, double y0, double x1, double y1) {
+            if (segmentCount == sx0.length) {
+                int n = segmentCount * 2;
+                sx0 = Arrays.copyOf(sx0, n);
+                sy0 = Arrays.copyOf(sy0, n);
+                sx1 = Arrays.copyOf(sx1, n);
+                sy1 = Arrays.copyOf(sy1, n);
+            }
+            sx0[segmentCount] = x0;
+            sy0[segmentCount] = y0;
+            sx1[segmentCount] = x1;
+            sy1[segmentCount] = y1;
+            return segmentCount++;
+        }
+
+
+        /* ------------- LINK ---------------------- */
+
+        private long key(double x, double y) {
+            return ((long)x << 32) | (long)y;
+        }
+
+        //Join the boundary segments end to end into rings.  Every point has as many segments arriving as leaving, so the walk from
+        //any segment returns to its start.
+        private Shape link() {
+
+            HashMap<Long, int[]> starts = new HashMap<>(segmentCount * 2);  //segments leaving each point, count first
+            for (int s=0; s<segmentCount; s++) {
+                long k = key(sx0[s], sy0[s]);
+                int[] list = starts.get(k);
+                if (list == null) {
+                    list = new int[2];
+                    starts.put(k, list);
+                } else if (list[0] + 1 == list.length)
+                    starts.put(k, list = Arrays.copyOf(list, list.length * 2));
+                list[++list[0]] = s;
+            }
+
+            Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+            boolean[] used = new boolean[segmentCount];
+            double[] ring = new double[64];
+            boolean empty = true;
+
+            for (int s=0; s<segmentCount; s++) {
+                if (used[s])
+                    continue;
+
+                int n = 0;
+                ring[n++] = sx0[s];
+                ring[n++] = sy0[s];
+
+                int cur = s;
+                while (cur >= 0) {
+                    used[cur] = true;
+                    double x = sx1[cur], y = sy1[cur];
+                    if (x == ring[0] && y == ring[1])
+                        break;
+
+                    if (n + 2 > ring.length)
+                        ring = Arrays.copyOf(ring, ring.length * 2);
+                    ring[n++] = x;
+                    ring[n++] = y;
+
+                    cur = -1;
+                    int[] list = starts.get(key(x, y));
+                    if (list != null) {
+                        for (int i=1; i<=list[0]; i++) {
+                            if (!used[list[i]]) {
+                                cur = list[i];
+                                break;
+                            }
+                        }
+                    }
+                }
+
+                if (addRing(path, ring, n))
+                    empty = false;
+            }
+
+            progress(100.0f);
+            return empty ? null : path;
+        }
+
+        //Append a ring to the path without collinear points, returns false if nothing is left
+        private boolean addRing(Path2D.Double path, double[] ring, int n) {
+
+            int count = n / 2;
+            int kept = 0;
+            double[] out = new double[n];
+
+            for (int i=0; i<count; i++) {
+                double px = ring[2*((i + count - 1) % count)], py = ring[2*((i + count - 1) % count) + 1];
+                double x = ring[2*i], y = ring[2*i + 1];
+                double nx = ring[2*((i + 1) % count)], ny = ring[2*((i + 1) % count) + 1];
+                if ((x - px) * (ny - y) - (y - py) * (nx - x) == 0)  //straight through, or doubling back
+                    continue;
+                out[kept++] = x;
+                out[kept++] = y;
+            }
+
+            if (kept < 6)
+                return false;
+
+            path.moveTo(originX + out[0] * step, originY + out[1] * step);
+            for (int i=2; i<kept; i+=2)
+                path.lineTo(originX + out[i] * step, originY + out[i+1] * step);
+            path.closePath();
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A paint of a canvas.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Paint")
+@Label("Canvas Paint")
+@Description("A paint of a canvas")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class CanvasPaintEvent extends Event {
+
+    @Label("Elements Painted")
+    public int elementsPainted;  //elements painted
+
+    @Label("Elements Culled")
+    public int elementsCulled;  //elements skipped because they were outside the clip
+
+    @Label("Width")
+    public int width;  //canvas width, in pixels
+
+    @Label("Height")
+    public int height;  //canvas height, in pixels
+
+}
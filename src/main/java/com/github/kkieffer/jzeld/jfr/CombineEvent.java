@@ -0,0 +1,31 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Shapes combined into one.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Combine")
+@Label("Combine Elements")
+@Description("Shapes combined into one")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class CombineEvent extends Event {
+
+    @Label("Operation")
+    public String operation;  //the combine operation
+
+    @Label("Element Count")
+    public int elementCount;  //shapes combined, including the reference
+
+}
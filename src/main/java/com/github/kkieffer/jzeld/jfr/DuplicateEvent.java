@@ -0,0 +1,31 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Selected elements duplicated into a grid or around a center.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Duplicate")
+@Label("Duplicate Elements")
+@Description("Selected elements duplicated into a grid or around a center")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class DuplicateEvent extends Event {
+
+    @Label("Element Count")
+    public int elementCount;  //elements duplicated
+
+    @Label("Copy Count")
+    public int copyCount;  //copies added
+
+}
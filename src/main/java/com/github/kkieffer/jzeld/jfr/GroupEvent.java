@@ -0,0 +1,28 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Elements grouped into a ZGroupedElement.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Group")
+@Label("Group Elements")
+@Description("Elements grouped into a ZGroupedElement")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class GroupEvent extends Event {
+
+    @Label("Element Count")
+    public int elementCount;  //elements grouped
+
+}
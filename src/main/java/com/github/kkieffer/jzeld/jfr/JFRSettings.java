@@ -0,0 +1,57 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+
+/**
+ * Access to the Flight Recorder settings that enable the jZELD events.  All jZELD events are disabled by default, so they cost
+ * nothing unless a recording turns them on.  Either start the JVM with
+ * <pre>
+ *    -XX:StartFlightRecording:settings=default,settings=/path/to/jzeld.jfc
+ * </pre>
+ * (with jzeld.jfc extracted from the jar), or create a recording in code:
+ * <pre>
+ *    Recording r = new Recording(JFRSettings.getConfiguration());
+ *    r.start();
+ * </pre>
+ * The events require the jdk.jfr module, available from Java 8u262 and Java 11.
+ *
+ * @author kkieffer
+ */
+public final class JFRSettings {
+
+    /**
+     * Prefix of all jZELD event names
+     */
+    public static final String PREFIX = "com.github.kkieffer.jzeld.";
+
+    /**
+     * The bundled settings file, a resource in this package
+     */
+    public static final String SETTINGS_FILE = "jzeld.jfc";
+
+    private JFRSettings() {}
+
+    /**
+     * Read the bundled settings that enable all jZELD events
+     * @return the configuration
+     * @throws IOException if the settings could not be read
+     * @throws ParseException if the settings are not valid
+     */
+    public static Configuration getConfiguration() throws IOException, ParseException {
+        InputStream in = JFRSettings.class.getResourceAsStream(SETTINGS_FILE);
+        if (in == null)
+            throw new IOException("Missing " + SETTINGS_FILE);
+
+        try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Configuration.create(r);
+        }
+    }
+
+}
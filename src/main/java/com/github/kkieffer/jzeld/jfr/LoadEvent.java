@@ -0,0 +1,28 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A canvas unmarshalled with JAXB.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Load")
+@Label("Canvas Load")
+@Description("A canvas unmarshalled with JAXB")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class LoadEvent extends Event {
+
+    @Label("Element Count")
+    public int elementCount;  //canvas elements
+
+}
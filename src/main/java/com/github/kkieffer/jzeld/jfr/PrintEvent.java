@@ -0,0 +1,39 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A canvas printed to an image.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Print")
+@Label("Print To Image")
+@Description("A canvas printed to an image")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class PrintEvent extends Event {
+
+    @Label("Element Count")
+    public int elementCount;  //canvas elements
+
+    @Label("Width")
+    public int width;  //image width, in pixels
+
+    @Label("Height")
+    public int height;  //image height, in pixels
+
+    @Label("Image Size")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;  //image memory
+
+}
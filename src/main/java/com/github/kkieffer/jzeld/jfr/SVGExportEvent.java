@@ -0,0 +1,31 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A canvas exported to SVG.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "SVGExport")
+@Label("SVG Export")
+@Description("A canvas exported to SVG")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class SVGExportEvent extends Event {
+
+    @Label("Element Count")
+    public int elementCount;  //canvas elements
+
+    @Label("Characters")
+    public long characters;  //characters written
+
+}
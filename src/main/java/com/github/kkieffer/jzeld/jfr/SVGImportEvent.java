@@ -0,0 +1,36 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Elements imported from an SVG file.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "SVGImport")
+@Label("SVG Import")
+@Description("Elements imported from an SVG file")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class SVGImportEvent extends Event {
+
+    @Label("File")
+    public String file;  //the SVG file
+
+    @Label("Size")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;  //file size
+
+    @Label("Element Count")
+    public int elementCount;  //SVG elements converted
+
+}
@@ -0,0 +1,31 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A mouse selection (hit test) on the canvas.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "Select")
+@Label("Select Element")
+@Description("A mouse selection (hit test) on the canvas")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class SelectEvent extends Event {
+
+    @Label("Elements Tested")
+    public int elementsTested;  //elements tested before one was found
+
+    @Label("Found")
+    public boolean found;  //true if an element was selected
+
+}
@@ -0,0 +1,28 @@
+
+package com.github.kkieffer.jzeld.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A copy of the canvas elements pushed onto the undo stack.  Disabled unless turned on in the recording settings, see jzeld.jfc.
+ *
+ * @author kkieffer
+ */
+@Name(JFRSettings.PREFIX + "UndoSnapshot")
+@Label("Undo Snapshot")
+@Description("A copy of the canvas elements pushed onto the undo stack")
+@Category({"jZELD", "Canvas"})
+@Enabled(false)
+@StackTrace(false)
+public final class UndoSnapshotEvent extends Event {
+
+    @Label("Element Count")
+    public int elementCount;  //elements copied
+
+}
@@ -0,0 +1,260 @@
+package com.github.kkieffer.jzeld;
+
+import com.github.kkieffer.jzeld.ZCanvasMetrics.Histogram;
+import com.github.kkieffer.jzeld.element.ZElement;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+
+/**
+ * Headless load test: replays a script of interactions against a synthetic canvas and reports the latency of each kind of step.
+ * Each sample is one mouse event or canvas operation followed by a paint of a window sized view around the affected element,
+ * as the canvas would repaint on screen.  Run with
+ * <pre>
+ *    mvn -P loadtest
+ *    mvn -P loadtest -Dloadtest.elements=50000 -Dloadtest.mix=all -Dloadtest.script=select,drag,group,undo
+ * </pre>
+ * or directly with the arguments: elements rounds seed mix script
+ * @author kkieffer
+ */
+public class LoadTest {
+
+    public enum Step {SELECT, DRAG, ROTATE, GROUP, UNDO}
+
+    private static final int VIEW_WIDTH = 1400;
+    private static final int VIEW_HEIGHT = 800;
+    private static final int DRAG_MOVES = 10;
+    private static final int WHEEL_CLICKS = 5;
+    private static final int GROUP_SIZE = 3;
+
+    private final ZCanvas canvas;
+    private final Random random;
+    private final BufferedImage view = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+    private final EnumMap<Step, Histogram> latency = new EnumMap<>(Step.class);
+
+    private ZElement target;
+
+    public LoadTest(ZCanvas canvas, long seed) {
+        this.canvas = canvas;
+        random = new Random(seed);
+        for (Step s : Step.values())
+            latency.put(s, new Histogram());
+    }
+
+    public Histogram getLatency(Step s) {
+        return latency.get(s);
+    }
+
+    /**
+     * Run the script on the event dispatch thread
+     * @param script the steps, in order
+     * @param rounds the number of times to repeat the script
+     */
+    public void run(final Step[] script, final int rounds) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < rounds; i++)
+                    for (Step s : script)
+                        perform(s);
+            }
+        });
+    }
+
+    private void perform(Step s) {
+
+        switch (s) {
+            case SELECT:
+                target = pickElement();
+                long start = System.nanoTime();
+                canvas.selectNone();
+                click(target);
+                frame(s, start);
+                break;
+
+            case DRAG:
+                if (target == null)
+                    perform(Step.SELECT);
+                Point p = center(target);
+                start = System.nanoTime();
+                canvas.mousePressed(mouse(MouseEvent.MOUSE_PRESSED, p.x, p.y, InputEvent.BUTTON1_DOWN_MASK));
+                frame(s, start);
+                for (int i = 1; i <= DRAG_MOVES; i++) {
+                    start = System.nanoTime();
+                    canvas.mouseDragged(mouse(MouseEvent.MOUSE_DRAGGED, p.x + i * 2, p.y + i, InputEvent.BUTTON1_DOWN_MASK));
+                    frame(s, start);
+                }
+                start = System.nanoTime();
+                canvas.mouseReleased(mouse(MouseEvent.MOUSE_RELEASED, p.x + DRAG_MOVES * 2, p.y + DRAG_MOVES, 0));
+                frame(s, start);
+                break;
+
+            case ROTATE:
+                if (target == null)
+                    perform(Step.SELECT);
+                p = center(target);
+                canvas.getActionMap().get("ShiftPressed").actionPerformed(new ActionEvent(canvas, ActionEvent.ACTION_PERFORMED, "ShiftPressed"));
+                for (int i = 0; i < WHEEL_CLICKS; i++) {
+                    start = System.nanoTime();
+                    canvas.mouseWheelMoved(new MouseWheelEvent(canvas, MouseEvent.MOUSE_WHEEL, System.currentTimeMillis(), InputEvent.SHIFT_DOWN_MASK, p.x, p.y, 0, false,
+                                                               MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, 1));
+                    frame(s, start);
+                }
+                canvas.getActionMap().get("ShiftReleased").actionPerformed(new ActionEvent(canvas, ActionEvent.ACTION_PERFORMED, "ShiftReleased"));
+                break;
+
+            case GROUP:
+                target = pickElement();
+                ArrayList<ZElement> neighbors = nearest(target, GROUP_SIZE - 1);
+                start = System.nanoTime();
+                canvas.selectNone();
+                canvas.selectElement(target, false);
+                for (ZElement e : neighbors)
+                    canvas.selectElement(e, false);
+                canvas.groupSelectedElements();
+                frame(s, start);
+                target = canvas.getLastSelectedElement();
+                break;
+
+            case UNDO:
+                start = System.nanoTime();
+                canvas.undo();
+                frame(s, start);
+                target = null;  //may no longer be on the canvas
+                break;
+        }
+    }
+
+    private void click(ZElement e) {
+        Point p = center(e);
+        canvas.mouseMoved(mouse(MouseEvent.MOUSE_MOVED, p.x, p.y, 0));
+        canvas.mousePressed(mouse(MouseEvent.MOUSE_PRESSED, p.x, p.y, InputEvent.BUTTON1_DOWN_MASK));
+        canvas.mouseReleased(mouse(MouseEvent.MOUSE_RELEASED, p.x, p.y, 0));
+    }
+
+    //Paint the view centered on the target, and record the time since start
+    private void frame(Step s, long start) {
+
+        Graphics2D g = view.createGraphics();
+        if (target != null) {
+            Point p = center(target);
+            g.translate(VIEW_WIDTH/2 - p.x, VIEW_HEIGHT/2 - p.y);
+            g.clipRect(p.x - VIEW_WIDTH/2, p.y - VIEW_HEIGHT/2, VIEW_WIDTH, VIEW_HEIGHT);
+        } else
+            g.clipRect(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+
+        canvas.paintComponent(g);
+        g.dispose();
+
+        latency.get(s).record(System.nanoTime() - start);
+    }
+
+    private ZElement pickElement() {
+        ZElement[] all = canvas.getElementsByClass(ZElement.class);
+        return all[random.nextInt(all.length)];
+    }
+
+    //The n elements with centers nearest the element's center
+    private ArrayList<ZElement> nearest(ZElement e, int n) {
+
+        Point c = center(e);
+        ArrayList<ZElement> found = new ArrayList<>();
+        ArrayList<Double> distances = new ArrayList<>();
+
+        for (ZElement o : canvas.getElementsByClass(ZElement.class)) {
+            if (o == e)
+                continue;
+            double d = center(o).distance(c);
+            int i = 0;
+            while (i < distances.size() && distances.get(i) <= d)
+                i++;
+            if (i < n) {
+                found.add(i, o);
+                distances.add(i, d);
+                if (found.size() > n) {
+                    found.remove(n);
+                    distances.remove(n);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static Point center(ZElement e) {
+        Rectangle2D b = e.getBounds2D();
+        return new Point((int)(b.getCenterX() * 72), (int)(b.getCenterY() * 72));
+    }
+
+    private MouseEvent mouse(int id, int x, int y, int modifiers) {
+        return new MouseEvent(canvas, id, System.currentTimeMillis(), modifiers, x, y, id == MouseEvent.MOUSE_RELEASED ? 1 : 0, false, MouseEvent.BUTTON1);
+    }
+
+
+    private static Step[] parseScript(String script) {
+        String[] names = script.split(",");
+        Step[] steps = new Step[names.length];
+        for (int i = 0; i < names.length; i++)
+            steps[i] = Step.valueOf(names[i].trim().toUpperCase());
+        return steps;
+    }
+
+    /**
+     * Run the load test
+     * @param args elements (default 10000), rounds (default 20), seed, mix ("shapes" or "all"), script (comma separated steps)
+     */
+    public static void main(String[] args) throws Exception {
+
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : SyntheticCanvas.DEFAULT_SEED;
+        String mixName = args.length > 3 ? args[3] : "all";
+        Step[] script = parseScript(args.length > 4 ? args[4] : "select,drag,rotate,group,undo");
+
+        SyntheticCanvas.Mix mix;
+        if (mixName.equalsIgnoreCase("all"))
+            mix = SyntheticCanvas.Mix.all();
+        else if (mixName.equalsIgnoreCase("shapes"))
+            mix = SyntheticCanvas.Mix.shapes();
+        else
+            throw new IllegalArgumentException("Unknown mix: " + mixName);
+
+        long start = System.nanoTime();
+        ZCanvas canvas = SyntheticCanvas.create(seed, elements, mix);
+        int side = (int)Math.ceil(SyntheticCanvas.getSide(elements) * 72);
+        canvas.setSize(side, side);
+        System.out.printf("Created %d elements (%s mix, seed %d) in %.1f ms%n", elements, mixName, seed, (System.nanoTime() - start) / 1000000.0);
+
+        LoadTest test = new LoadTest(canvas, seed);
+        test.run(script, 2);  //warm up
+        for (Step s : Step.values())
+            test.getLatency(s).reset();
+
+        test.run(script, rounds);
+
+        System.out.printf("%-8s %8s %10s %10s %10s %10s%n", "Step", "Samples", "Mean ms", "p50 ms", "p95 ms", "p99 ms");
+        for (Step s : Step.values()) {
+            Histogram h = test.getLatency(s);
+            if (h.getCount() == 0)
+                continue;
+            System.out.printf("%-8s %8d %10.2f %10.2f %10.2f %10.2f%n", s.name().toLowerCase(), h.getCount(), h.getMean(), h.getPercentile(50), h.getPercentile(95), h.getPercentile(99));
+        }
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                canvas.dispose();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,355 @@
+package com.github.kkieffer.jzeld;
+
+import com.github.kkieffer.jzeld.ZCanvas.CanvasStore;
+import com.github.kkieffer.jzeld.attributes.Clippable;
+import com.github.kkieffer.jzeld.attributes.PaintAttributes;
+import com.github.kkieffer.jzeld.attributes.ShadowAttributes;
+import com.github.kkieffer.jzeld.attributes.TextAttributes;
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZBlockArrow;
+import com.github.kkieffer.jzeld.element.ZEditableText;
+import com.github.kkieffer.jzeld.element.ZElement;
+import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
+import com.github.kkieffer.jzeld.element.ZEquilateralPolygon;
+import com.github.kkieffer.jzeld.element.ZGroupedElement;
+import com.github.kkieffer.jzeld.element.ZImage;
+import com.github.kkieffer.jzeld.element.ZOval;
+import com.github.kkieffer.jzeld.element.ZRectangle;
+import com.github.kkieffer.jzeld.element.ZWave;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.MultipleGradientPaint;
+import java.awt.Point;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Random;
+
+/**
+ * Builds reproducible canvases of random elements, for benchmarks and load tests.  The same seed, element count and mix always
+ * produce the same canvas, so results can be compared across commits.  Elements are spread at a constant density, so larger
+ * canvases cover a larger area rather than piling up.
+ * @author kkieffer
+ */
+public class SyntheticCanvas {
+
+    public static final long DEFAULT_SEED = 42;
+
+    private static final double DENSITY = 4.0;  //elements per square unit
+    private static final double MAX_SIZE = 1.0;  //largest element dimension, in units
+
+    private static final Color[] COLORS = {Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW, Color.ORANGE, Color.CYAN, Color.MAGENTA, Color.GRAY};
+
+    /**
+     * The element types the generator can create
+     */
+    public enum ElementType {RECTANGLE, OVAL, POLYGON, WAVE, ARROW, IMAGE, TEXT, GROUP}
+
+    /**
+     * The proportions of element types and attributes in a generated canvas.  Each element type has a relative weight, and
+     * the gradient, shadow and clip fractions give the chance that a shape gets that attribute.
+     */
+    public static class Mix {
+
+        private final EnumMap<ElementType, Integer> weights = new EnumMap<>(ElementType.class);
+        private double gradientFraction = 0.3;
+        private double shadowFraction = 0.05;
+        private double clipFraction = 0.0;
+        private int groupDepth = 2;
+
+        /**
+         * Simple shapes only, with some gradients and shadows
+         * @return a new mix
+         */
+        public static Mix shapes() {
+            return new Mix().setWeight(ElementType.RECTANGLE, 1).setWeight(ElementType.OVAL, 1)
+                            .setWeight(ElementType.POLYGON, 1).setWeight(ElementType.ARROW, 1);
+        }
+
+        /**
+         * Every element type, including images, text, and nested groups, with gradients, shadows and clips
+         * @return a new mix
+         */
+        public static Mix all() {
+            return new Mix().setWeight(ElementType.RECTANGLE, 4).setWeight(ElementType.OVAL, 4)
+                            .setWeight(ElementType.POLYGON, 4).setWeight(ElementType.WAVE, 2)
+                            .setWeight(ElementType.ARROW, 2).setWeight(ElementType.IMAGE, 1)
+                            .setWeight(ElementType.TEXT, 1).setWeight(ElementType.GROUP, 1)
+                            .setClipFraction(0.05);
+        }
+
+        /**
+         * Set the relative weight of an element type
+         * @param t the type
+         * @param weight the weight, zero to exclude the type
+         * @return this mix
+         */
+        public Mix setWeight(ElementType t, int weight) {
+            if (weight < 0)
+                throw new IllegalArgumentException("Weight cannot be negative");
+            weights.put(t, weight);
+            return this;
+        }
+
+        public int getWeight(ElementType t) {
+            Integer w = weights.get(t);
+            return w == null ? 0 : w;
+        }
+
+        /**
+         * Set the fraction of shapes with a gradient fill, split between linear, radial and conical gradients 3:2:1
+         * @param f the fraction, from 0 to 1
+         * @return this mix
+         */
+        public Mix setGradientFraction(double f) {
+            gradientFraction = f;
+            return this;
+        }
+
+        public Mix setShadowFraction(double f) {
+            shadowFraction = f;
+            return this;
+        }
+
+        /**
+         * Set the fraction of shapes and groups clipped by an oval inset from their bounds
+         * @param f the fraction, from 0 to 1
+         * @return this mix
+         */
+        public Mix setClipFraction(double f) {
+            clipFraction = f;
+            return this;
+        }
+
+        /**
+         * Set how deep groups may nest.  Groups at the deepest level contain no further groups.
+         * @param depth the maximum depth, 1 for groups of ungrouped elements
+         * @return this mix
+         */
+        public Mix setGroupDepth(int depth) {
+            if (depth < 1)
+                throw new IllegalArgumentException("Group depth must be at least 1");
+            groupDepth = depth;
+            return this;
+        }
+
+        private ElementType choose(Random r, boolean allowGroup) {
+
+            int total = 0;
+            for (ElementType t : ElementType.values())
+                if (allowGroup || t != ElementType.GROUP)
+                    total += getWeight(t);
+            if (total == 0)
+                throw new IllegalArgumentException("Mix has no element types");
+
+            int pick = r.nextInt(total);
+            for (ElementType t : ElementType.values()) {
+                if (!allowGroup && t == ElementType.GROUP)
+                    continue;
+                pick -= getWeight(t);
+                if (pick < 0)
+                    return t;
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+
+    private SyntheticCanvas() {}
+
+    /**
+     * The width and height, in units, of the square area covered by a canvas with this many elements
+     * @param count the number of elements
+     * @return the side of the area, in units
+     */
+    public static double getSide(int count) {
+        return Math.max(1.0, Math.ceil(Math.sqrt(count / DENSITY)));
+    }
+
+    /**
+     * Create a canvas of random simple shapes
+     * @param seed the random seed
+     * @param count the number of elements
+     * @return the new canvas
+     */
+    public static ZCanvas create(long seed, int count) {
+        return create(seed, count, Mix.shapes());
+    }
+
+    /**
+     * Create a canvas of random elements
+     * @param seed the random seed
+     * @param count the number of top level elements
+     * @param mix the proportions of element types and attributes
+     * @return the new canvas
+     */
+    public static ZCanvas create(long seed, int count, Mix mix) {
+
+        int pixels = (int)Math.ceil(getSide(count) * 72);
+        ZCanvas c = new ZCanvas(Color.WHITE, new Font("SansSerif", Font.PLAIN, 12), UnitMeasure.inchUnit, Color.DARK_GRAY, 10, new Point(0, 0), new Dimension(pixels, pixels));
+
+        c.enableUndoContextSave(false);  //don't copy the canvas for every element added
+        for (ZElement e : createElements(seed, count, mix))
+            c.addElement(e);
+        c.enableUndoContextSave(true);
+
+        c.markAsSaved();
+        return c;
+    }
+
+    /**
+     * Create a canvas store of random elements, ready to marshal or to restore with ZCanvas.fromCanvasStore()
+     * @param seed the random seed
+     * @param count the number of top level elements
+     * @param mix the proportions of element types and attributes
+     * @return the store
+     */
+    public static CanvasStore createStore(long seed, int count, Mix mix) {
+        ZCanvas c = create(seed, count, mix);
+        CanvasStore s = c.getCanvasStore();
+        c.dispose();
+        return s;
+    }
+
+
+    /**
+     * Create a list of random simple shapes
+     * @param seed the random seed
+     * @param count the number of elements
+     * @return the elements
+     */
+    public static ArrayList<ZElement> createElements(long seed, int count) {
+        return createElements(seed, count, Mix.shapes());
+    }
+
+    /**
+     * Create a list of random elements
+     * @param seed the random seed
+     * @param count the number of top level elements
+     * @param mix the proportions of element types and attributes
+     * @return the elements
+     */
+    public static ArrayList<ZElement> createElements(long seed, int count, Mix mix) {
+
+        Random r = new Random(seed);
+        double side = getSide(count);
+
+        ArrayList<ZElement> elements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double w = 0.1 + r.nextDouble() * (MAX_SIZE - 0.1);
+            double h = 0.1 + r.nextDouble() * (MAX_SIZE - 0.1);
+            elements.add(createElement(r, mix, r.nextDouble() * (side - w), r.nextDouble() * (side - h), w, h, mix.groupDepth));
+        }
+
+        return elements;
+    }
+
+
+    private static ZElement createElement(Random r, Mix mix, double x, double y, double w, double h, int depth) {
+
+        double rotation = r.nextInt(4) == 0 ? r.nextDouble() * 360 : 0.0;
+        float border = r.nextInt(3);
+        Color fill = COLORS[r.nextInt(COLORS.length)];
+
+        ZElement e;
+        switch (mix.choose(r, depth > 0)) {
+            case RECTANGLE:
+                e = new ZRectangle(x, y, w, h, rotation, true, true, true, border, Color.BLACK, null, fill, StrokeStyle.SQUARE);
+                break;
+            case OVAL:
+                e = new ZOval(x, y, w, h, rotation, true, true, true, border, Color.BLACK, null, fill, StrokeStyle.SQUARE);
+                break;
+            case POLYGON:
+                e = new ZEquilateralPolygon(x, y, w, h, rotation, true, true, true, border, Color.BLACK, null, fill, StrokeStyle.SQUARE, 3 + r.nextInt(6));
+                break;
+            case WAVE:
+                ZWave wave = new ZWave(x, y, 2 + r.nextInt(6), rotation, true, true, true, border, Color.BLACK, null, fill, StrokeStyle.ROUNDED, null);
+                wave.setSize(w * 72, h * 72, 1, 72);
+                e = wave;
+                break;
+            case ARROW:
+                e = new ZBlockArrow(x, y, w, h, rotation, true, true, true, border, Color.BLACK, null, fill, StrokeStyle.SQUARE);
+                break;
+            case IMAGE:
+                e = new ZImage(x, y, w, h, rotation, true, true, true, border, Color.BLACK, null, null, StrokeStyle.SQUARE, createImage(r, w, h));
+                break;
+            case TEXT:
+                e = new ZEditableText(x, y, w, h, rotation, true, "Text " + r.nextInt(10000), border, Color.BLACK, fill, StrokeStyle.SQUARE,
+                                      new TextAttributes(TextAttributes.HorizontalJustify.LEFT, new Font("SansSerif", Font.PLAIN, 6 + r.nextInt(12)), Color.BLACK));
+                break;
+            case GROUP:
+                e = createGroup(r, mix, x, y, w, h, depth);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+
+        if (e instanceof ZAbstractShape && !(e instanceof ZImage) && r.nextDouble() < mix.gradientFraction) {
+            int paint = r.nextInt(6);
+            if (paint < 3)
+                ((ZAbstractShape)e).setPaintAttributes(createLinearPaint(r));
+            else if (paint < 5)
+                ((ZAbstractShape)e).setPaintAttributes(createRadialPaint(r));
+            else
+                ((ZAbstractShape)e).setPaintAttributes(createConicalPaint(r));
+        }
+
+        if (e instanceof ShadowAttributes.ShadowInterface && r.nextDouble() < mix.shadowFraction)
+            ((ShadowAttributes.ShadowInterface)e).setShadowAttributes(new ShadowAttributes(0.5f, Color.BLACK, 3 + r.nextInt(5), 0.05, 0.05));
+
+        if (e instanceof Clippable && r.nextDouble() < mix.clipFraction)
+            ((Clippable)e).setClippingShape(new Ellipse2D.Double(x + w * 0.1, y + h * 0.1, w * 0.8, h * 0.8));
+
+        return e;
+    }
+
+    //A group of two to four smaller elements filling the area, which may themselves be groups
+    private static ZGroupedElement createGroup(Random r, Mix mix, double x, double y, double w, double h, int depth) {
+
+        int count = 2 + r.nextInt(3);
+        ArrayList<ZElement> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double cw = w * (0.3 + r.nextDouble() * 0.7);
+            double ch = h * (0.3 + r.nextDouble() * 0.7);
+            children.add(createElement(r, mix, x + r.nextDouble() * (w - cw), y + r.nextDouble() * (h - ch), cw, ch, depth - 1));
+        }
+
+        return ZGroupedElement.createGroup(children, null, true);
+    }
+
+    //A small image of colored blocks, at about 72 pixels per unit
+    private static BufferedImage createImage(Random r, double w, double h) {
+
+        BufferedImage img = new BufferedImage(Math.max(1, (int)(w * 72)), Math.max(1, (int)(h * 72)), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        for (int y = 0; y < img.getHeight(); y += 8) {
+            for (int x = 0; x < img.getWidth(); x += 8) {
+                g.setColor(COLORS[r.nextInt(COLORS.length)]);
+                g.fillRect(x, y, 8, 8);
+            }
+        }
+        g.dispose();
+        return img;
+    }
+
+
+    public static PaintAttributes createLinearPaint(Random r) {
+        return PaintAttributes.createLinearPaintAttribute(new Point2D.Double(0, r.nextDouble()), new Point2D.Double(1, r.nextDouble()),
+                                    new float[]{0.0f, 1.0f}, new Color[]{COLORS[r.nextInt(COLORS.length)], COLORS[r.nextInt(COLORS.length)]}, MultipleGradientPaint.CycleMethod.NO_CYCLE);
+    }
+
+    public static PaintAttributes createRadialPaint(Random r) {
+        return PaintAttributes.createRadialPaintAttribute(new Point2D.Double(0.5, 0.5), null, 0.5f, PaintAttributes.RadiusRelative.SHORTEST,
+                                    new float[]{0.0f, 1.0f}, new Color[]{Color.WHITE, COLORS[r.nextInt(COLORS.length)]}, MultipleGradientPaint.CycleMethod.NO_CYCLE);
+    }
+
+    public static PaintAttributes createConicalPaint(Random r) {
+        return PaintAttributes.createConicalPaintAttribute(new Point2D.Double(0.5, 0.5), new float[]{0.0f, 0.5f, 1.0f},
+                                    new Color[]{COLORS[r.nextInt(COLORS.length)], Color.WHITE, COLORS[r.nextInt(COLORS.length)]});
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.github.kkieffer.jzeld;
+
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.attributes.TextAttributes;
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZEditableText;
+import com.github.kkieffer.jzeld.element.ZElement;
+import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
+import com.github.kkieffer.jzeld.element.ZOval;
+import com.github.kkieffer.jzeld.element.ZRectangle;
+import com.github.kkieffer.jzeld.element.ZSymbol;
+import com.github.kkieffer.jzeld.element.ZSymbolInstance;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Point;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of element membership on the canvas, and of operations that replace or duplicate elements
+ * @author kkieffer
+ */
+public class ZCanvasTest {
+
+    static ZCanvas newCanvas() {
+        return new ZCanvas(Color.WHITE, new Font("Dialog", Font.PLAIN, 10), UnitMeasure.inchUnit, Color.BLACK, 10, new Point(0, 0), new Dimension(700, 700));
+    }
+
+    static ZRectangle newRectangle(double x, double y) {
+        return new ZRectangle(x, y, 1, 1, 0, true, true, true, 1.0f, Color.BLACK, null, Color.RED, StrokeStyle.SQUARE);
+    }
+
+    @Test
+    public void addElementOnce() {
+        ZCanvas c = newCanvas();
+        ZRectangle r = newRectangle(1, 1);
+
+        assertTrue(c.addElement(r));
+        assertFalse(c.addElement(r));
+        assertEquals(1, c.getNumElements());
+        assertSame(r, c.getElementByUUID(r.getUUID()));
+
+        c.removeElement(r);
+        assertNull(c.getElementByUUID(r.getUUID()));
+        assertTrue(c.addElement(r));
+        assertEquals(1, c.getNumElements());
+    }
+
+    @Test
+    public void replaceElementUpdatesLookup() {
+        ZCanvas c = newCanvas();
+        ZRectangle replace = newRectangle(1, 1);
+        ZElement with = new ZOval(1, 1, 1, 1, 0, true, true, true, 1.0f, Color.BLACK, null, Color.RED, StrokeStyle.SQUARE);
+
+        c.addElement(newRectangle(3, 3));
+        c.addElement(replace);
+        assertTrue(c.replaceElement(replace, with));
+
+        assertSame(with, c.getElementByUUID(with.getUUID()));
+        assertNull(c.getElementByUUID(replace.getUUID()));
+
+        assertFalse(c.addElement(with));  //already on the canvas, in the replaced element's place
+        assertEquals(2, c.getNumElements());
+
+        assertFalse(c.replaceElement(replace, newRectangle(5, 5)));  //no longer on the canvas
+        assertTrue(c.addElement(replace));
+        assertEquals(3, c.getNumElements());
+    }
+
+    @Test
+    public void combineTwiceAsync() throws Exception {
+        ZCanvas c = newCanvas();
+        c.addElement(newRectangle(1, 1));
+        c.addElement(newRectangle(1.5, 1));
+
+        c.selectAll();
+        assertEquals(2, (int)c.combineSelectedElementsAsync(CombineOperation.Join).get());
+        assertEquals(1, c.getNumElements());
+
+        //The merged shape, swapped in by the first combine, combines again
+        c.addElement(newRectangle(2, 1));
+        c.selectAll();
+        assertEquals(2, (int)c.combineSelectedElementsAsync(CombineOperation.Join).get());
+        assertEquals(1, c.getNumElements());
+
+        ZAbstractShape merged = (ZAbstractShape)c.getElementsByClass(ZAbstractShape.class)[0];
+        assertEquals(2.0, merged.computeArea(), 1e-6);
+    }
+
+    @Test
+    public void printAsyncMatchesPrint() throws Exception {
+        ZCanvas c = newCanvas();
+        c.setPageSize(new Dimension(300, 200), ZCanvas.Orientation.LANDSCAPE);
+        for (ZElement e : SyntheticCanvas.createElements(5, 40))
+            c.addElement(e);
+        c.addElement(new ZEditableText(0.5, 0.5, 2, 0.5, 10, true, "Printed text", 1.0f, Color.BLACK, Color.WHITE, StrokeStyle.SQUARE,
+                                       new TextAttributes(TextAttributes.HorizontalJustify.LEFT, new Font("SansSerif", Font.PLAIN, 12), Color.BLUE)));
+
+        BufferedImage expected = c.printToImage(2, Color.WHITE);
+        BufferedImage actual = c.printToImageAsync(2, Color.WHITE).get();
+
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++)
+            for (int x = 0; x < expected.getWidth(); x++)
+                assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+    }
+
+    @Test
+    public void duplicateGridInstanced() {
+        ZCanvas c = newCanvas();
+        c.addElement(newRectangle(1, 1));
+        c.addElement(newRectangle(2, 1));
+        c.selectAll();
+
+        ZElement[] copies = c.duplicateSelected(3, 4, 2, 1.5, true);
+        assertEquals(11, copies.length);  //one instance per cell, for both elements
+        assertEquals(13, c.getNumElements());
+        assertEquals(1, c.getSymbols().size());
+
+        ZSymbol symbol = c.getSymbols().get(0);
+        for (ZElement e : copies)
+            assertSame(symbol, ((ZSymbolInstance)e).getSymbol());
+
+        Rectangle2D last = copies[copies.length-1].getBounds2D();
+        Rectangle2D first = copies[0].getBounds2D();
+        assertEquals(first.getX() + 4, last.getX(), 1e-9);  //the first copy is in the second column
+        assertEquals(first.getY() + 3, last.getY(), 1e-9);
+
+        c.undo();
+        assertEquals(2, c.getNumElements());
+    }
+
+    @Test
+    public void duplicateAlongPath() {
+        ZCanvas c = newCanvas();
+        c.addElement(newRectangle(1, 1));
+        c.selectAll();
+
+        //Evenly spaced from the start to the end of the path
+        ZElement[] copies = c.duplicateSelectedAlongPath(new Line2D.Double(2, 4, 6, 4), 5, false, false);
+        assertEquals(5, copies.length);
+        for (int i = 0; i < copies.length; i++) {
+            Rectangle2D b = copies[i].getBounds2D();
+            assertEquals(2 + i, b.getCenterX(), 1e-9);
+            assertEquals(4, b.getCenterY(), 1e-9);
+            assertEquals(0, copies[i].getRotation(), 1e-9);
+        }
+
+        //Turned to follow the path
+        c.selectNone();
+        c.selectElement(copies[0], false);
+        copies = c.duplicateSelectedAlongPath(new Line2D.Double(8, 1, 8, 5), 3, true, false);
+        assertEquals(3, copies.length);
+        assertEquals(8, copies[2].getBounds2D().getCenterX(), 1e-9);
+        assertEquals(5, copies[2].getBounds2D().getCenterY(), 1e-9);
+        assertEquals(90, copies[2].getRotation(), 1e-9);
+    }
+
+}
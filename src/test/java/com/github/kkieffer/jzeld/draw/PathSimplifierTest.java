@@ -0,0 +1,173 @@
+package com.github.kkieffer.jzeld.draw;
+
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that PathSimplifier keeps every point within tolerance and keeps the ends of the stroke
+ * @author kkieffer
+ */
+public class PathSimplifierTest {
+
+    private static final double FLATNESS = 1e-4;  //for measuring distance to fitted curves
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void simplifyWithinTolerance() {
+        for (double tolerance : new double[] {0.001, 0.01, 0.1, 0.5}) {
+            List<Point2D> points = stroke(7, 2000);
+            List<Point2D> kept = PathSimplifier.simplify(points, tolerance);
+
+            assertTrue(kept.size() < points.size());
+            assertSame(points.get(0), kept.get(0));
+            assertSame(points.get(points.size()-1), kept.get(kept.size()-1));
+
+            //The kept points are a subsequence, and each dropped point is near the segment across it
+            int k = 0;
+            for (int i = 0; i < points.size(); i++) {
+                if (points.get(i) == kept.get(k)) {
+                    k++;
+                    continue;
+                }
+                Line2D span = new Line2D.Double(kept.get(k-1), kept.get(k));
+                assertTrue("Point " + i + " off by " + span.ptSegDist(points.get(i)), span.ptSegDist(points.get(i)) <= tolerance + EPSILON);
+            }
+            assertEquals(kept.size(), k);
+        }
+    }
+
+    @Test
+    public void simplifyStraightLine() {
+        ArrayList<Point2D> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++)
+            points.add(new Point2D.Double(i * 0.1, i * 0.05));
+
+        List<Point2D> kept = PathSimplifier.simplify(points, 1e-6);
+        assertEquals(2, kept.size());
+        assertSame(points.get(0), kept.get(0));
+        assertSame(points.get(100), kept.get(1));
+    }
+
+    @Test
+    public void simplifyClosedLoop() {
+        ArrayList<Point2D> points = new ArrayList<>();
+        for (int i = 0; i <= 360; i++)  //the last point repeats the first
+            points.add(new Point2D.Double(Math.cos(Math.toRadians(i)), Math.sin(Math.toRadians(i))));
+
+        List<Point2D> kept = PathSimplifier.simplify(points, 0.01);
+        assertTrue(kept.size() > 4 && kept.size() < points.size());
+        assertSame(points.get(0), kept.get(0));
+        assertSame(points.get(360), kept.get(kept.size()-1));
+
+        Path2D p = new Path2D.Double();
+        p.moveTo(kept.get(0).getX(), kept.get(0).getY());
+        for (Point2D q : kept)
+            p.lineTo(q.getX(), q.getY());
+        for (Point2D q : points)
+            assertTrue(distance(p, q) <= 0.01 + EPSILON);
+    }
+
+    @Test
+    public void simplifyDegenerate() {
+        ArrayList<Point2D> two = new ArrayList<>();
+        two.add(new Point2D.Double(0, 0));
+        two.add(new Point2D.Double(1, 1));
+        assertEquals(two, PathSimplifier.simplify(two, 0.1));
+
+        List<Point2D> points = stroke(3, 50);
+        assertEquals(points, PathSimplifier.simplify(points, 0));  //no tolerance keeps everything
+
+        ArrayList<Point2D> same = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            same.add(new Point2D.Double(2, 3));
+        assertEquals(2, PathSimplifier.simplify(same, 0.1).size());
+    }
+
+    @Test
+    public void curvesWithinTolerance() {
+        for (double tolerance : new double[] {0.01, 0.05, 0.25}) {
+            List<Point2D> points = stroke(11, 1000);
+
+            Path2D path = new Path2D.Double();
+            path.moveTo(points.get(0).getX(), points.get(0).getY());
+            PathSimplifier.appendCurves(path, points, tolerance);
+
+            for (Point2D q : points)
+                assertTrue("Point " + q + " off by " + distance(path, q), distance(path, q) <= tolerance + FLATNESS);
+
+            Point2D last = points.get(points.size()-1);
+            assertEquals(last.getX(), path.getCurrentPoint().getX(), EPSILON);
+            assertEquals(last.getY(), path.getCurrentPoint().getY(), EPSILON);
+        }
+    }
+
+    @Test
+    public void curvesRepeatedPoints() {
+        ArrayList<Point2D> points = new ArrayList<>();
+        points.add(new Point2D.Double(0, 0));
+        points.add(new Point2D.Double(0, 0));
+        points.add(new Point2D.Double(1, 1));
+        points.add(new Point2D.Double(1, 1));
+        points.add(new Point2D.Double(2, 0));
+
+        Path2D path = new Path2D.Double();
+        path.moveTo(0, 0);
+        PathSimplifier.appendCurves(path, points, 0.01);
+        for (Point2D q : points)
+            assertTrue(distance(path, q) <= 0.01 + FLATNESS);
+        assertEquals(new Point2D.Double(2, 0), path.getCurrentPoint());
+
+        ArrayList<Point2D> one = new ArrayList<>();
+        one.add(new Point2D.Double(5, 5));
+        one.add(new Point2D.Double(5, 5));
+        path = new Path2D.Double();
+        path.moveTo(5, 5);
+        PathSimplifier.appendCurves(path, one, 0.01);  //nothing to fit
+        assertEquals(new Point2D.Double(5, 5), path.getCurrentPoint());
+    }
+
+
+    //A reproducible freehand stroke: a wandering path sampled densely, with a little jitter like mouse input
+    private static List<Point2D> stroke(long seed, int count) {
+        Random r = new Random(seed);
+        ArrayList<Point2D> points = new ArrayList<>(count);
+        double x = 0, y = 0, heading = 0;
+        for (int i = 0; i < count; i++) {
+            heading += (r.nextDouble() - 0.5) * 0.3;
+            x += Math.cos(heading) * 0.02 + (r.nextDouble() - 0.5) * 0.002;
+            y += Math.sin(heading) * 0.02 + (r.nextDouble() - 0.5) * 0.002;
+            points.add(new Point2D.Double(x, y));
+        }
+        return points;
+    }
+
+    //The distance from a point to the nearest part of a path, flattened
+    private static double distance(Path2D path, Point2D p) {
+        PathIterator it = new FlatteningPathIterator(path.getPathIterator(null), FLATNESS, 16);
+        double[] c = new double[6];
+        double lastX = 0, lastY = 0;
+        double min = Double.MAX_VALUE;
+        while (!it.isDone()) {
+            int type = it.currentSegment(c);
+            if (type == PathIterator.SEG_LINETO)
+                min = Math.min(min, Line2D.ptSegDist(lastX, lastY, c[0], c[1], p.getX(), p.getY()));
+            else if (type == PathIterator.SEG_MOVETO)
+                min = Math.min(min, p.distance(c[0], c[1]));
+            lastX = c[0];
+            lastY = c[1];
+            it.next();
+        }
+        return min;
+    }
+
+}
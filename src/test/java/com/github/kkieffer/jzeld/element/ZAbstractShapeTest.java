@@ -0,0 +1,182 @@
+package com.github.kkieffer.jzeld.element;
+
+import com.github.kkieffer.jzeld.element.ZElement.StrokeStyle;
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the shape geometry in ZAbstractShape
+ * @author kkieffer
+ */
+public class ZAbstractShapeTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final double BEZIER_CIRCLE_ERROR = 1e-3;  //relative area error of the four cubic approximation of an ellipse
+
+    @Test
+    public void rectangleArea() {
+        assertEquals(12.0, ZAbstractShape.computeArea(new Rectangle2D.Double(1, 2, 3, 4)), EPSILON);
+
+        Path2D rotated = new Path2D.Double(new Rectangle2D.Double(-5, -1, 10, 2), AffineTransform.getRotateInstance(Math.toRadians(33)));
+        assertEquals(20.0, ZAbstractShape.computeArea(rotated), EPSILON);
+    }
+
+    @Test
+    public void ellipseArea() {
+        double area = ZAbstractShape.computeArea(new Ellipse2D.Double(0, 0, 6, 2));
+        assertEquals(Math.PI * 3 * 1, area, Math.PI * 3 * BEZIER_CIRCLE_ERROR);
+    }
+
+    @Test
+    public void cubicArea() {
+        //Area under the cubic (0,0) (0,1) (1,1) (1,0) is the integral of 3t(1-t) * 6t(1-t) dt = 18/30
+        Path2D p = new Path2D.Double();
+        p.moveTo(0, 0);
+        p.curveTo(0, 1, 1, 1, 1, 0);
+        p.closePath();
+        assertEquals(0.6, ZAbstractShape.computeArea(p), EPSILON);
+
+        //Scaling scales the area by the determinant
+        p.transform(AffineTransform.getScaleInstance(2, 5));
+        assertEquals(6.0, ZAbstractShape.computeArea(p), EPSILON);
+    }
+
+    @Test
+    public void quadArea() {
+        //A parabolic segment has 2/3 of its bounding rectangle
+        Path2D p = new Path2D.Double();
+        p.moveTo(0, 0);
+        p.quadTo(1, 2, 2, 0);
+        p.closePath();
+        assertEquals(4.0 / 3.0, ZAbstractShape.computeArea(p), EPSILON);
+    }
+
+    @Test
+    public void windingRuleArea() {
+        Path2D evenOdd = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        evenOdd.append(new Rectangle2D.Double(0, 0, 10, 10), false);
+        evenOdd.append(new Rectangle2D.Double(2, 2, 4, 4), false);
+        assertEquals(100.0 - 16.0, ZAbstractShape.computeArea(evenOdd), EPSILON);
+
+        Path2D nonZero = new Path2D.Double(Path2D.WIND_NON_ZERO);
+        nonZero.append(new Rectangle2D.Double(0, 0, 4, 4), false);
+        nonZero.append(new Rectangle2D.Double(2, 2, 4, 4), false);
+        assertEquals(16.0 + 16.0 - 4.0, ZAbstractShape.computeArea(nonZero), EPSILON);
+    }
+
+    @Test
+    public void elementArea() {
+        ZRectangle r = new ZRectangle(0, 0, 3, 2, 45, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, StrokeStyle.SQUARE);
+        assertEquals(6.0, r.computeArea(), EPSILON);
+
+        ZOval o = new ZOval(0, 0, 4, 2, 0, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, StrokeStyle.SQUARE);
+        assertEquals(Math.PI * 2, o.computeArea(), Math.PI * 2 * BEZIER_CIRCLE_ERROR);
+    }
+
+    @Test
+    public void exactAreaMatchesIntegration() {
+        Ellipse2D e = new Ellipse2D.Double(0, 0, 1, 0.6);
+        assertEquals(ZAbstractShape.computeArea(e), ZAbstractShape.computeArea(e, 0.005, null), 0.01);
+    }
+
+    @Test
+    public void lineContains() {
+        ZLine line = new ZLine(1, 1, 4, 0, true, true, true, 1.0f, Color.BLACK, null, StrokeStyle.SQUARE);
+        double y = 1 + ZShape.MIN_SHAPE_DIMENSION/2;  //the line runs through the middle of its bounds
+
+        assertTrue(line.contains(new Point2D.Double(3, y), 0.01, 1.0));
+        assertTrue(line.contains(new Point2D.Double(3, y + 0.004), 0.01, 1.0));
+        assertFalse(line.contains(new Point2D.Double(3, y + 0.09), 0.01, 1.0));  //inside the bounds, but away from the line
+        assertTrue(line.contains(new Point2D.Double(3, y + 0.09), 0.2, 1.0));
+        assertTrue(line.contains(new Point2D.Double(5.004, y), 0.01, 1.0));  //just past the end
+        assertFalse(line.contains(new Point2D.Double(5.1, y), 0.01, 1.0));
+
+        //Scale divides the point and margin
+        assertTrue(line.contains(new Point2D.Double(300, 100*y + 0.4), 1.0, 100.0));
+        assertFalse(line.contains(new Point2D.Double(300, 100*y + 0.6), 1.0, 100.0));
+    }
+
+    @Test
+    public void openPathContains() {
+        Path2D vee = new Path2D.Double();
+        vee.moveTo(0, 0);
+        vee.lineTo(1, 2);
+        vee.lineTo(2, 0);
+
+        ZShape open = new ZShape(0, 0, vee, 0, true, true, true, 1.0f, Color.BLACK, null, null, null, null, null, StrokeStyle.SQUARE);
+        assertFalse(open.contains(new Point2D.Double(1, 0.5), 0.01, 1.0));  //between the arms
+        assertTrue(open.contains(new Point2D.Double(0.5, 1), 0.01, 1.0));
+
+        ZShape filled = new ZShape(0, 0, vee, 0, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, null, null, null, StrokeStyle.SQUARE);
+        assertTrue(filled.contains(new Point2D.Double(1, 0.5), 0.01, 1.0));  //a filled open path encloses
+    }
+
+    @Test
+    public void rotatedContains() {
+        ZRectangle r = new ZRectangle(0, 0, 4, 1, 30, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, StrokeStyle.SQUARE);
+        assertContainsMatchesShape(r);
+
+        ZOval o = new ZOval(0, 0, 4, 1, 70, true, true, true, 1.0f, Color.BLACK, null, null, StrokeStyle.SQUARE);
+        assertContainsMatchesShape(o);
+    }
+
+    @Test
+    public void shearedContains() {
+        ZRectangle r = new ZRectangle(0, 0, 2, 2, 0, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, StrokeStyle.SQUARE);
+        r.setShearX(0.75);
+        assertContainsMatchesShape(r);
+
+        ZRectangle both = new ZRectangle(0, 0, 3, 1, 20, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, StrokeStyle.SQUARE);
+        both.setShearX(-0.5);
+        both.setShearY(0.3);
+        assertContainsMatchesShape(both);
+    }
+
+    @Test
+    public void evenOddHoleContains() {
+        Path2D p = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        p.append(new Rectangle2D.Double(0, 0, 10, 10), false);
+        p.append(new Rectangle2D.Double(3, 3, 4, 4), false);
+
+        ZShape s = new ZShape(0, 0, p, 0, true, true, true, 1.0f, Color.BLACK, null, Color.WHITE, null, null, null, StrokeStyle.SQUARE);
+        assertTrue(s.contains(new Point2D.Double(1, 1), 0.01, 1.0));
+        assertFalse(s.contains(new Point2D.Double(5, 5), 0.01, 1.0));  //in the hole
+        assertTrue(s.contains(new Point2D.Double(5, 3.004), 0.01, 1.0));  //in the hole, near its edge
+        assertContainsMatchesShape(s);
+
+        s.rotate(45);
+        assertFalse(s.contains(new Point2D.Double(5, 5), 0.01, 1.0));  //rotation is about the center, which stays in the hole
+        assertContainsMatchesShape(s);
+    }
+
+    //Points on a grid over the element hit exactly where its canvas shape contains them, away from the outline
+    private static void assertContainsMatchesShape(ZAbstractShape e) {
+
+        final double margin = 1e-6;
+        final double edge = 0.01;  //points this close to the outline are skipped
+
+        Shape shape = e.getShape();
+        Rectangle2D b = shape.getBounds2D();
+        int tested = 0;
+        for (double x = b.getMinX() - 0.25; x <= b.getMaxX() + 0.25; x += 0.05) {
+            for (double y = b.getMinY() - 0.25; y <= b.getMaxY() + 0.25; y += 0.05) {
+                Rectangle2D near = new Rectangle2D.Double(x - edge, y - edge, 2*edge, 2*edge);
+                if (shape.intersects(near) && !shape.contains(near))
+                    continue;
+                assertEquals("Hit at " + x + "," + y, shape.contains(x, y), e.contains(new Point2D.Double(x, y), margin, 1.0));
+                tested++;
+            }
+        }
+        assertTrue(tested > 100);
+    }
+
+}
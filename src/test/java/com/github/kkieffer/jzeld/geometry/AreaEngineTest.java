@@ -0,0 +1,129 @@
+package com.github.kkieffer.jzeld.geometry;
+
+import com.github.kkieffer.jzeld.SyntheticCanvas;
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import com.github.kkieffer.jzeld.element.ZElement;
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the parallel reductions of AreaEngine give the same result as combining the shapes one at a time with Area
+ * @author kkieffer
+ */
+public class AreaEngineTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    public void joinMatchesSequential() {
+        List<Shape> shapes = syntheticShapes(1, 200);
+        assertMatchesSequential(CombineOperation.Join, shapes.get(0), shapes.subList(1, shapes.size()));
+    }
+
+    @Test
+    public void exclusiveJoinMatchesSequential() {
+        List<Shape> shapes = syntheticShapes(2, 100);
+        assertMatchesSequential(CombineOperation.Exclusive_Join, shapes.get(0), shapes.subList(1, shapes.size()));
+    }
+
+    @Test
+    public void subtractMatchesSequential() {
+        Shape ref = new Rectangle2D.Double(0, 0, 5, 5);
+        assertMatchesSequential(CombineOperation.Subtract, ref, syntheticShapes(3, 200));
+    }
+
+    @Test
+    public void intersectMatchesSequential() {
+        Shape ref = new Ellipse2D.Double(0, 0, 4, 4);
+        List<Shape> shapes = Arrays.<Shape>asList(new Rectangle2D.Double(1, 1, 3, 3), new Ellipse2D.Double(0.5, 0.5, 3, 3), new Rectangle2D.Double(0, 1.5, 4, 2));
+        assertMatchesSequential(CombineOperation.Intersect, ref, shapes);
+    }
+
+    @Test
+    public void emptyResults() {
+        Shape ref = new Rectangle2D.Double(0, 0, 1, 1);
+        assertNull(AreaEngine.getShared().combine(CombineOperation.Intersect, ref, Arrays.<Shape>asList(new Rectangle2D.Double(2, 2, 1, 1)), null));
+        assertNull(AreaEngine.getShared().combine(CombineOperation.Subtract, ref, Arrays.<Shape>asList(new Rectangle2D.Double(-1, -1, 3, 3)), null));
+        assertNull(AreaEngine.getShared().combine(CombineOperation.Exclusive_Join, ref, Arrays.<Shape>asList(new Rectangle2D.Double(0, 0, 1, 1)), null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendUnsupported() {
+        AreaEngine.getShared().combine(CombineOperation.Append, new Rectangle2D.Double(0, 0, 1, 1), new ArrayList<Shape>(), null);
+    }
+
+
+    /**
+     * The shapes of a synthetic canvas, as placed on the canvas
+     * @param seed the random seed
+     * @param count the number of shapes
+     * @return the shapes
+     */
+    static List<Shape> syntheticShapes(long seed, int count) {
+        ArrayList<Shape> shapes = new ArrayList<>(count);
+        for (ZElement e : SyntheticCanvas.createElements(seed, count))
+            shapes.add(((ZAbstractShape)e).getShape());
+        return shapes;
+    }
+
+    /**
+     * The area inside one shape but not the other
+     * @param a the first shape, null for none
+     * @param b the second shape, null for none
+     * @return the area of the symmetric difference
+     */
+    static double differenceArea(Shape a, Shape b) {
+        Area d = a == null ? new Area() : new Area(a);
+        d.exclusiveOr(b == null ? new Area() : new Area(b));
+        return ZAbstractShape.computeArea(d);
+    }
+
+    private static Area sequential(CombineOperation operation, Shape ref, List<Shape> shapes) {
+        Area a = new Area(ref);
+        for (Shape s : shapes) {
+            switch (operation) {
+                case Join:
+                    a.add(new Area(s));
+                    break;
+                case Exclusive_Join:
+                    a.exclusiveOr(new Area(s));
+                    break;
+                case Subtract:
+                    a.subtract(new Area(s));
+                    break;
+                case Intersect:
+                    a.intersect(new Area(s));
+                    break;
+            }
+        }
+        return a.isEmpty() ? null : a;
+    }
+
+    private static void assertMatchesSequential(CombineOperation operation, Shape ref, List<Shape> shapes) {
+
+        Area expected = sequential(operation, ref, shapes);
+        Shape actual = AreaEngine.getShared().combine(operation, ref, shapes, null);
+
+        assertTrue("Expected a non-empty result", expected != null && actual != null);
+        assertEquals(ZAbstractShape.computeArea(expected), ZAbstractShape.computeArea(actual), EPSILON);
+        assertEquals(0.0, differenceArea(expected, actual), EPSILON);
+
+        Rectangle2D eb = expected.getBounds2D();
+        Rectangle2D ab = actual.getBounds2D();
+        assertEquals(eb.getMinX(), ab.getMinX(), EPSILON);
+        assertEquals(eb.getMinY(), ab.getMinY(), EPSILON);
+        assertEquals(eb.getMaxX(), ab.getMaxX(), EPSILON);
+        assertEquals(eb.getMaxY(), ab.getMaxY(), EPSILON);
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.github.kkieffer.jzeld.geometry;
+
+import com.github.kkieffer.jzeld.ZCanvas.CombineOperation;
+import com.github.kkieffer.jzeld.element.ZAbstractShape;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares PolygonClipEngine with AreaEngine.  The clipper replaces curves by lines, so its results may differ from the exact
+ * ones by the flattening tolerance along the outline of the shapes: the areas by at most the tolerance times the outline length,
+ * and the bounds by the tolerance.
+ * @author kkieffer
+ */
+public class PolygonClipEngineTest {
+
+    private static final double FLATNESS = PolygonClipEngine.DEFAULT_FLATNESS;
+    private static final double EPSILON = 1e-6;
+
+    private final PolygonClipEngine engine = new PolygonClipEngine();
+
+    @Test
+    public void joinSynthetic() {
+        List<Shape> shapes = AreaEngineTest.syntheticShapes(11, 200);
+        assertMatchesArea(CombineOperation.Join, shapes.get(0), shapes.subList(1, shapes.size()));
+    }
+
+    @Test
+    public void exclusiveJoinSynthetic() {
+        List<Shape> shapes = AreaEngineTest.syntheticShapes(12, 100);
+        assertMatchesArea(CombineOperation.Exclusive_Join, shapes.get(0), shapes.subList(1, shapes.size()));
+    }
+
+    @Test
+    public void subtractSynthetic() {
+        assertMatchesArea(CombineOperation.Subtract, new Rectangle2D.Double(0, 0, 5, 5), AreaEngineTest.syntheticShapes(13, 200));
+    }
+
+    @Test
+    public void intersectCurves() {
+        Shape ref = new Ellipse2D.Double(0, 0, 4, 4);
+        List<Shape> shapes = Arrays.<Shape>asList(new Rectangle2D.Double(1, 1, 3, 3), new Ellipse2D.Double(0.5, 0.5, 3, 3), new Rectangle2D.Double(0, 1.5, 4, 2));
+        assertMatchesArea(CombineOperation.Intersect, ref, shapes);
+    }
+
+    @Test
+    public void subtractMakesHole() {
+        Shape ref = new Rectangle2D.Double(0, 0, 10, 10);
+        List<Shape> holes = Arrays.<Shape>asList(new Rectangle2D.Double(2, 2, 2, 2), new Ellipse2D.Double(5, 5, 3, 3));
+        Shape result = assertMatchesArea(CombineOperation.Subtract, ref, holes);
+
+        assertFalse(result.contains(3, 3));
+        assertFalse(result.contains(6.5, 6.5));
+        assertTrue(result.contains(1, 1));
+    }
+
+    @Test
+    public void windingRules() {
+        Path2D evenOdd = new Path2D.Double(Path2D.WIND_EVEN_ODD);  //square with a hole
+        evenOdd.append(new Rectangle2D.Double(0, 0, 10, 10), false);
+        evenOdd.append(new Rectangle2D.Double(2, 2, 4, 4), false);
+
+        Path2D nonZero = new Path2D.Double(Path2D.WIND_NON_ZERO);  //overlapping squares, the same direction, count once
+        nonZero.append(new Rectangle2D.Double(4, 4, 4, 4), false);
+        nonZero.append(new Rectangle2D.Double(5, 5, 4, 4), false);
+
+        assertMatchesArea(CombineOperation.Join, evenOdd, Arrays.<Shape>asList(nonZero));
+        assertMatchesArea(CombineOperation.Intersect, evenOdd, Arrays.<Shape>asList(nonZero));
+        assertMatchesArea(CombineOperation.Subtract, evenOdd, Arrays.<Shape>asList(nonZero));
+        assertMatchesArea(CombineOperation.Exclusive_Join, evenOdd, Arrays.<Shape>asList(nonZero));
+    }
+
+    @Test
+    public void sharedEdges() {
+        Shape ref = new Rectangle2D.Double(0, 0, 1, 1);
+        List<Shape> shapes = Arrays.<Shape>asList(new Rectangle2D.Double(1, 0, 1, 1), new Rectangle2D.Double(0, 1, 2, 1));
+        Shape result = assertMatchesArea(CombineOperation.Join, ref, shapes);
+        assertEquals(4, countVertices(result));  //shared edges and collinear vertices are gone, leaving one square
+    }
+
+    @Test
+    public void coincidentShapes() {
+        Shape ref = new Rectangle2D.Double(0, 0, 2, 3);
+        List<Shape> same = Arrays.<Shape>asList(new Rectangle2D.Double(0, 0, 2, 3));
+
+        assertMatchesArea(CombineOperation.Join, ref, same);
+        assertMatchesArea(CombineOperation.Intersect, ref, same);
+        assertNull(engine.combine(CombineOperation.Subtract, ref, same, null));
+        assertNull(engine.combine(CombineOperation.Exclusive_Join, ref, same, null));
+    }
+
+    @Test
+    public void degenerateShapes() {
+        Shape ref = new Rectangle2D.Double(0, 0, 2, 2);
+        Shape line = new Line2D.Double(-1, 1, 3, 1);
+        Shape empty = new Path2D.Double();
+        Shape flat = new Rectangle2D.Double(0.5, 0.5, 1, 0);
+
+        assertMatchesArea(CombineOperation.Join, ref, Arrays.asList(line, empty, flat));
+        assertMatchesArea(CombineOperation.Subtract, ref, Arrays.asList(line, flat));
+        assertNull(engine.combine(CombineOperation.Intersect, ref, Arrays.asList(line), null));
+        assertNull(engine.combine(CombineOperation.Join, empty, Arrays.asList(line), null));
+    }
+
+    @Test
+    public void disjointIntersect() {
+        Shape ref = new Rectangle2D.Double(0, 0, 1, 1);
+        assertNull(engine.combine(CombineOperation.Intersect, ref, Arrays.<Shape>asList(new Rectangle2D.Double(2, 2, 1, 1)), null));
+        assertNull(engine.combine(CombineOperation.Intersect, ref, Arrays.<Shape>asList(new Rectangle2D.Double(0.5, 0, 1, 1), new Rectangle2D.Double(0, 0.5, 0.25, 1), new Rectangle2D.Double(0.75, 0, 1, 1)), null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveFlatness() {
+        new PolygonClipEngine(0);
+    }
+
+
+    //Combines with both engines, checks the results agree within the flattening tolerance, and returns the clipper result
+    private Shape assertMatchesArea(CombineOperation operation, Shape ref, List<Shape> shapes) {
+
+        Shape expected = AreaEngine.getShared().combine(operation, ref, shapes, null);
+        Shape actual = engine.combine(operation, ref, shapes, null);
+
+        assertNotNull("Expected a non-empty result", expected);
+        assertNotNull("Expected a non-empty result", actual);
+
+        double outline = outlineLength(ref);
+        for (Shape s : shapes)
+            outline += outlineLength(s);
+        double areaTolerance = outline * FLATNESS + EPSILON;
+
+        assertEquals(ZAbstractShape.computeArea(expected), ZAbstractShape.computeArea(actual), areaTolerance);
+        assertEquals(0.0, AreaEngineTest.differenceArea(expected, actual), areaTolerance);
+
+        Rectangle2D eb = expected.getBounds2D();
+        Rectangle2D ab = actual.getBounds2D();
+        double boundsTolerance = FLATNESS + EPSILON;
+        assertEquals(eb.getMinX(), ab.getMinX(), boundsTolerance);
+        assertEquals(eb.getMinY(), ab.getMinY(), boundsTolerance);
+        assertEquals(eb.getMaxX(), ab.getMaxX(), boundsTolerance);
+        assertEquals(eb.getMaxY(), ab.getMaxY(), boundsTolerance);
+
+        return actual;
+    }
+
+    private static double outlineLength(Shape s) {
+        PathIterator it = new FlatteningPathIterator(s.getPathIterator(null), FLATNESS);
+        double[] c = new double[6];
+        double length = 0, startX = 0, startY = 0, lastX = 0, lastY = 0;
+        while (!it.isDone()) {
+            switch (it.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    startX = lastX = c[0];
+                    startY = lastY = c[1];
+                    break;
+                case PathIterator.SEG_LINETO:
+                    length += Point2D.distance(lastX, lastY, c[0], c[1]);
+                    lastX = c[0];
+                    lastY = c[1];
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    length += Point2D.distance(lastX, lastY, startX, startY);
+                    lastX = startX;
+                    lastY = startY;
+                    break;
+            }
+            it.next();
+        }
+        return length;
+    }
+
+    private static int countVertices(Shape s) {
+        ArrayList<double[]> vertices = new ArrayList<>();
+        PathIterator it = s.getPathIterator(null);
+        double[] c = new double[6];
+        while (!it.isDone()) {
+            int type = it.currentSegment(c);
+            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO)
+                vertices.add(new double[] {c[0], c[1]});
+            it.next();
+        }
+        if (vertices.size() > 1 && Arrays.equals(vertices.get(0), vertices.get(vertices.size()-1)))  //an explicit line back to the start
+            vertices.remove(vertices.size()-1);
+        return vertices.size();
+    }
+
+}